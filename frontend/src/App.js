@@ -4,9 +4,13 @@ import ProductList from './components/ProductList';
 import productService from './services/productService';
 import './App.css';
 
+const PAGE_SIZE = 20;
+
 function App() {
   const [products, setProducts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [showForm, setShowForm] = useState(false);
   const [productToEdit, setProductToEdit] = useState(null);
   const [error, setError] = useState(null);
@@ -15,12 +19,14 @@ function App() {
     loadProducts();
   }, []);
 
+  // Starts again from the first page, so a save or delete never leaves a stale page behind
   const loadProducts = async () => {
     try {
       setLoading(true);
       setError(null);
-      const response = await productService.getAllProducts();
-      setProducts(response.data);
+      const response = await productService.getProductPage(PAGE_SIZE);
+      setProducts(response.data.items);
+      setNextCursor(response.data.nextCursor || null);
     } catch (error) {
       console.error('Error loading products:', error);
       setError('Failed to load products. Please make sure the backend server is running.');
@@ -29,6 +35,20 @@ function App() {
     }
   };
 
+  const loadMore = async () => {
+    try {
+      setLoadingMore(true);
+      const response = await productService.getProductPage(PAGE_SIZE, nextCursor);
+      setProducts(loaded => [...loaded, ...response.data.items]);
+      setNextCursor(response.data.nextCursor || null);
+    } catch (error) {
+      console.error('Error loading more products:', error);
+      alert('Failed to load more products. Please try again.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleAddNew = () => {
     setProductToEdit(null);
     setShowForm(true);
@@ -101,6 +121,18 @@ function App() {
             onDelete={handleDelete}
             loading={loading}
           />
+
+          {!loading && nextCursor && (
+            <div className="load-more-section">
+              <button
+                className="btn btn-load-more"
+                onClick={loadMore}
+                disabled={loadingMore}
+              >
+                {loadingMore ? 'Loading...' : 'Load More'}
+              </button>
+            </div>
+          )}
         </div>
       </main>
 
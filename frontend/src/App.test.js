@@ -8,6 +8,9 @@ import { mockProducts, mockNewProduct } from './testUtils';
 // Mock the productService
 jest.mock('./services/productService');
 
+// One keyset page as GET /api/v1/products?limit= returns it
+const page = (items, nextCursor) => ({ data: { items, nextCursor, limit: 20 } });
+
 describe('App Component - Integration Tests', () => {
   beforeEach(() => {
     jest.clearAllMocks();
@@ -17,7 +20,7 @@ describe('App Component - Integration Tests', () => {
 
   describe('Initial Rendering and Data Loading', () => {
     it('should render app header and title', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: [] });
+      productService.getProductPage.mockResolvedValue(page([]));
 
       render(<App />);
 
@@ -26,12 +29,12 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should load products on mount', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(1);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(1);
         expect(screen.getByText('Laptop')).toBeInTheDocument();
         expect(screen.getByText('Mouse')).toBeInTheDocument();
         expect(screen.getByText('Keyboard')).toBeInTheDocument();
@@ -39,8 +42,8 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should show loading state initially', () => {
-      productService.getAllProducts.mockImplementation(
-        () => new Promise(resolve => setTimeout(() => resolve({ data: [] }), 100))
+      productService.getProductPage.mockImplementation(
+        () => new Promise(resolve => setTimeout(() => resolve(page([])), 100))
       );
 
       render(<App />);
@@ -49,7 +52,7 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should show error banner when loading fails', async () => {
-      productService.getAllProducts.mockRejectedValue(new Error('Network error'));
+      productService.getProductPage.mockRejectedValue(new Error('Network error'));
 
       render(<App />);
 
@@ -60,7 +63,7 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should have retry button in error banner', async () => {
-      productService.getAllProducts.mockRejectedValue(new Error('Network error'));
+      productService.getProductPage.mockRejectedValue(new Error('Network error'));
 
       render(<App />);
 
@@ -70,9 +73,9 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should retry loading when retry button clicked', async () => {
-      productService.getAllProducts
+      productService.getProductPage
         .mockRejectedValueOnce(new Error('Network error'))
-        .mockResolvedValueOnce({ data: mockProducts });
+        .mockResolvedValueOnce(page(mockProducts));
 
       render(<App />);
 
@@ -83,15 +86,88 @@ describe('App Component - Integration Tests', () => {
       fireEvent.click(screen.getByText('Retry'));
 
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(2);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(2);
+        expect(screen.getByText('Laptop')).toBeInTheDocument();
+      });
+    });
+  });
+
+  describe('Paging', () => {
+    it('should request the first page without a cursor', async () => {
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
+
+      render(<App />);
+
+      await waitFor(() => {
+        expect(productService.getProductPage).toHaveBeenCalledWith(20);
+        expect(screen.getByText('Laptop')).toBeInTheDocument();
+      });
+    });
+
+    it('should not show Load More on the last page', async () => {
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
+
+      render(<App />);
+
+      await waitFor(() => {
         expect(screen.getByText('Laptop')).toBeInTheDocument();
       });
+
+      expect(screen.queryByText('Load More')).not.toBeInTheDocument();
+    });
+
+    it('should append the next page when Load More clicked', async () => {
+      productService.getProductPage
+        .mockResolvedValueOnce(page(mockProducts.slice(0, 2), 'c2'))
+        .mockResolvedValueOnce(page(mockProducts.slice(2)));
+
+      render(<App />);
+
+      await waitFor(() => {
+        expect(screen.getByText('Load More')).toBeInTheDocument();
+      });
+      expect(screen.queryByText('Keyboard')).not.toBeInTheDocument();
+
+      fireEvent.click(screen.getByText('Load More'));
+
+      await waitFor(() => {
+        expect(productService.getProductPage).toHaveBeenLastCalledWith(20, 'c2');
+        expect(screen.getByText('Laptop')).toBeInTheDocument();
+        expect(screen.getByText('Keyboard')).toBeInTheDocument();
+        expect(screen.queryByText('Load More')).not.toBeInTheDocument();
+      });
+    });
+
+    it('should start again from the first page after a delete', async () => {
+      productService.getProductPage
+        .mockResolvedValueOnce(page(mockProducts.slice(0, 2), 'c2'))
+        .mockResolvedValueOnce(page(mockProducts.slice(2)))
+        .mockResolvedValueOnce(page([mockProducts[1]], 'c1'));
+      productService.deleteProduct.mockResolvedValue({ status: 204 });
+
+      render(<App />);
+
+      await waitFor(() => {
+        expect(screen.getByText('Load More')).toBeInTheDocument();
+      });
+      fireEvent.click(screen.getByText('Load More'));
+      await waitFor(() => {
+        expect(screen.getByText('Keyboard')).toBeInTheDocument();
+      });
+
+      fireEvent.click(screen.getAllByText(/delete/i)[0]);
+
+      await waitFor(() => {
+        expect(productService.getProductPage).toHaveBeenLastCalledWith(20);
+        expect(screen.queryByText('Keyboard')).not.toBeInTheDocument();
+        expect(screen.getByText('Load More')).toBeInTheDocument();
+      });
     });
   });
 
   describe('Add New Product Flow', () => {
     it('should show Add New Product button initially', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -101,7 +177,7 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should show form when Add New Product button clicked', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -116,7 +192,7 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should hide Add New Product button when form is shown', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -130,9 +206,9 @@ describe('App Component - Integration Tests', () => {
 
     it('should create product and refresh list on successful save', async () => {
       const user = userEvent.setup();
-      productService.getAllProducts
-        .mockResolvedValueOnce({ data: mockProducts })
-        .mockResolvedValueOnce({ data: [...mockProducts, mockNewProduct] });
+      productService.getProductPage
+        .mockResolvedValueOnce(page(mockProducts))
+        .mockResolvedValueOnce(page([...mockProducts, mockNewProduct]));
       productService.createProduct.mockResolvedValue({ data: mockNewProduct });
 
       render(<App />);
@@ -158,13 +234,13 @@ describe('App Component - Integration Tests', () => {
           description: '',
           price: '499.99'
         });
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(2);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(2);
       });
     });
 
     it('should hide form after successful save', async () => {
       const user = userEvent.setup();
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
       productService.createProduct.mockResolvedValue({ data: mockNewProduct });
 
       render(<App />);
@@ -186,7 +262,7 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should hide form when Cancel button clicked', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -205,7 +281,7 @@ describe('App Component - Integration Tests', () => {
 
   describe('Edit Product Flow', () => {
     it('should show form with product data when Edit button clicked', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -224,9 +300,9 @@ describe('App Component - Integration Tests', () => {
     it('should update product and refresh list on successful update', async () => {
       const user = userEvent.setup();
       const updatedProduct = { ...mockProducts[0], name: 'Updated Laptop' };
-      productService.getAllProducts
-        .mockResolvedValueOnce({ data: mockProducts })
-        .mockResolvedValueOnce({ data: [updatedProduct, mockProducts[1], mockProducts[2]] });
+      productService.getProductPage
+        .mockResolvedValueOnce(page(mockProducts))
+        .mockResolvedValueOnce(page([updatedProduct, mockProducts[1], mockProducts[2]]));
       productService.updateProduct.mockResolvedValue({ data: updatedProduct });
 
       render(<App />);
@@ -247,13 +323,13 @@ describe('App Component - Integration Tests', () => {
           'P001',
           expect.objectContaining({ name: 'Updated Laptop' })
         );
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(2);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(2);
       });
     });
 
     it('should hide form after successful update', async () => {
       const user = userEvent.setup();
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
       productService.updateProduct.mockResolvedValue({ data: mockProducts[0] });
 
       render(<App />);
@@ -277,7 +353,7 @@ describe('App Component - Integration Tests', () => {
 
   describe('Delete Product Flow', () => {
     it('should show confirmation dialog when Delete button clicked', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -294,9 +370,9 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should delete product and refresh list when confirmed', async () => {
-      productService.getAllProducts
-        .mockResolvedValueOnce({ data: mockProducts })
-        .mockResolvedValueOnce({ data: [mockProducts[1], mockProducts[2]] });
+      productService.getProductPage
+        .mockResolvedValueOnce(page(mockProducts))
+        .mockResolvedValueOnce(page([mockProducts[1], mockProducts[2]]));
       productService.deleteProduct.mockResolvedValue({ status: 204 });
 
       render(<App />);
@@ -310,13 +386,13 @@ describe('App Component - Integration Tests', () => {
 
       await waitFor(() => {
         expect(productService.deleteProduct).toHaveBeenCalledWith('P001');
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(2);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(2);
       });
     });
 
     it('should not delete product when user cancels', async () => {
       global.confirm = jest.fn(() => false);
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
@@ -328,11 +404,11 @@ describe('App Component - Integration Tests', () => {
       fireEvent.click(deleteButtons[0]);
 
       expect(productService.deleteProduct).not.toHaveBeenCalled();
-      expect(productService.getAllProducts).toHaveBeenCalledTimes(1);
+      expect(productService.getProductPage).toHaveBeenCalledTimes(1);
     });
 
     it('should show alert when delete fails', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
       productService.deleteProduct.mockRejectedValue(new Error('Delete failed'));
 
       render(<App />);
@@ -353,19 +429,19 @@ describe('App Component - Integration Tests', () => {
   });
 
   describe('Backend Service Integration', () => {
-    it('should call getAllProducts on initial load', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+    it('should call getProductPage on initial load', async () => {
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
 
       render(<App />);
 
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(1);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(1);
       });
     });
 
     it('should call createProduct with correct data', async () => {
       const user = userEvent.setup();
-      productService.getAllProducts.mockResolvedValue({ data: [] });
+      productService.getProductPage.mockResolvedValue(page([]));
       productService.createProduct.mockResolvedValue({ data: mockNewProduct });
 
       render(<App />);
@@ -393,7 +469,7 @@ describe('App Component - Integration Tests', () => {
 
     it('should call updateProduct with correct ID and data', async () => {
       const user = userEvent.setup();
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
       productService.updateProduct.mockResolvedValue({ data: mockProducts[0] });
 
       render(<App />);
@@ -421,7 +497,7 @@ describe('App Component - Integration Tests', () => {
     });
 
     it('should call deleteProduct with correct ID', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
       productService.deleteProduct.mockResolvedValue({ status: 204 });
 
       render(<App />);
@@ -438,7 +514,7 @@ describe('App Component - Integration Tests', () => {
 
     it('should refresh product list after each operation', async () => {
       const user = userEvent.setup();
-      productService.getAllProducts.mockResolvedValue({ data: mockProducts });
+      productService.getProductPage.mockResolvedValue(page(mockProducts));
       productService.createProduct.mockResolvedValue({ data: mockNewProduct });
       productService.updateProduct.mockResolvedValue({ data: mockProducts[0] });
       productService.deleteProduct.mockResolvedValue({ status: 204 });
@@ -447,7 +523,7 @@ describe('App Component - Integration Tests', () => {
 
       // Initial load
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(1);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(1);
       });
 
       // Create product
@@ -458,7 +534,7 @@ describe('App Component - Integration Tests', () => {
       fireEvent.click(screen.getByText('Add Product'));
 
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(2);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(2);
       });
 
       // Edit product
@@ -467,7 +543,7 @@ describe('App Component - Integration Tests', () => {
       fireEvent.click(screen.getByText('Update Product'));
 
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(3);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(3);
       });
 
       // Delete product
@@ -475,14 +551,14 @@ describe('App Component - Integration Tests', () => {
       fireEvent.click(deleteButtons[0]);
 
       await waitFor(() => {
-        expect(productService.getAllProducts).toHaveBeenCalledTimes(4);
+        expect(productService.getProductPage).toHaveBeenCalledTimes(4);
       });
     });
   });
 
   describe('Footer', () => {
     it('should render footer with copyright', async () => {
-      productService.getAllProducts.mockResolvedValue({ data: [] });
+      productService.getProductPage.mockResolvedValue(page([]));
 
       render(<App />);
 
@@ -4,10 +4,14 @@ const API_BASE_URL = '/api/v1/products';
 
 class ProductService {
   /**
-   * Get all products
+   * Get one keyset page of products; pass the previous page's nextCursor to continue
    */
-  getAllProducts() {
-    return axios.get(API_BASE_URL);
+  getProductPage(limit, cursor) {
+    const params = { limit };
+    if (cursor) {
+      params.cursor = cursor;
+    }
+    return axios.get(API_BASE_URL, { params });
   }
 
   /**
@@ -14,32 +14,30 @@ describe('ProductService', () => {
     mock.restore();
   });
 
-  describe('getAllProducts', () => {
-    it('should fetch all products successfully', async () => {
-      mock.onGet('/api/v1/products').reply(200, mockProducts);
+  describe('getProductPage', () => {
+    it('should request the first page without a cursor', async () => {
+      mock.onGet('/api/v1/products').reply(200, { items: mockProducts, nextCursor: 'abc', limit: 3 });
 
-      const response = await productService.getAllProducts();
+      const response = await productService.getProductPage(3);
 
-      expect(response.data).toEqual(mockProducts);
-      expect(response.data).toHaveLength(3);
-      expect(mock.history.get.length).toBe(1);
-      expect(mock.history.get[0].url).toBe('/api/v1/products');
+      expect(response.data.items).toHaveLength(3);
+      expect(response.data.nextCursor).toBe('abc');
+      expect(mock.history.get[0].params).toEqual({ limit: 3 });
     });
 
-    it('should handle error when fetching products fails', async () => {
+    it('should handle error when fetching a page fails', async () => {
       mock.onGet('/api/v1/products').reply(500, { message: 'Server error' });
 
-      await expect(productService.getAllProducts()).rejects.toThrow();
+      await expect(productService.getProductPage(3)).rejects.toThrow();
       expect(mock.history.get.length).toBe(1);
     });
 
-    it('should return empty array when no products exist', async () => {
-      mock.onGet('/api/v1/products').reply(200, []);
+    it('should pass the cursor for following pages', async () => {
+      mock.onGet('/api/v1/products').reply(200, { items: [], limit: 3 });
 
-      const response = await productService.getAllProducts();
+      await productService.getProductPage(3, 'abc');
 
-      expect(response.data).toEqual([]);
-      expect(response.data).toHaveLength(0);
+      expect(mock.history.get[0].params).toEqual({ limit: 3, cursor: 'abc' });
     });
   });
 
@@ -156,12 +154,12 @@ describe('ProductService', () => {
 
   describe('API endpoint verification', () => {
     it('should use correct base URL for all requests', async () => {
-      mock.onGet('/api/v1/products').reply(200, []);
+      mock.onGet('/api/v1/products').reply(200, { items: [], limit: 20 });
       mock.onPost('/api/v1/products').reply(201, mockNewProduct);
       mock.onPut('/api/v1/products/P001').reply(200, mockProduct);
       mock.onDelete('/api/v1/products/P001').reply(204);
 
-      await productService.getAllProducts();
+      await productService.getProductPage(20);
       await productService.createProduct(mockNewProduct);
       await productService.updateProduct('P001', mockProduct);
       await productService.deleteProduct('P001');
@@ -0,0 +1,83 @@
+package com.anr.common;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Monotonic sequence stamped on every write of a change-tracked table, for "changed since"
+ * queries
+ *
+ * Numbers are handed out in call order but transactions commit in any order, so a reader that
+ * simply remembered the highest number it saw could skip a lower one committed later. Numbers are
+ * therefore tracked until their transaction completes, and {@link #horizon()} is the highest number
+ * below which every write has either committed or rolled back: a reader that only asks for
+ * (watermark, horizon] never misses a row. Rolled-back numbers are just gaps.
+ *
+ * In-process bookkeeping: correct for the single application instance that owns the database.
+ *
+ * @author amitr
+ */
+public class ChangeSequence {
+
+    private final Lock lock = new ReentrantLock();
+    private final NavigableSet<Long> inFlight = new TreeSet<>();
+    private long last;
+
+    /**
+     * @param last highest number already stored, so that numbering continues past it
+     */
+    public ChangeSequence(long last) {
+        this.last = last;
+    }
+
+    /**
+     * the next number, held back from {@link #horizon()} until the current transaction completes
+     */
+    public long next() {
+        long seq;
+        lock.lock();
+        try {
+            seq = ++last;
+            inFlight.add(seq);
+        } finally {
+            lock.unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    complete(seq);
+                }
+            });
+        } else {
+            complete(seq);
+        }
+        return seq;
+    }
+
+    /**
+     * highest number up to which every write has completed
+     */
+    public long horizon() {
+        lock.lock();
+        try {
+            return inFlight.isEmpty() ? last : inFlight.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void complete(long seq) {
+        lock.lock();
+        try {
+            inFlight.remove(seq);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.anr.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Encodes keyset positions as opaque, URL-safe cursor tokens so that clients cannot depend on
+ * (or tamper with) the underlying sort key
+ *
+ * @author amitr
+ */
+public final class CursorCodec {
+
+    private static final String PREFIX = "k1:";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + position).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token was not produced by {@link #encode(String)}
+     */
+    public static String decode(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            throw new IllegalArgumentException("cursor must not be blank");
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("malformed cursor", e);
+        }
+        if (!decoded.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("malformed cursor");
+        }
+        return decoded.substring(PREFIX.length());
+    }
+}
@@ -1,12 +1,10 @@
 package com.anr.common;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.NestedExceptionUtils;
 import org.springframework.stereotype.Component;
@@ -15,6 +13,7 @@ import org.springframework.web.client.RestClientException;
 import com.anr.config.ConfigProperties;
 import com.anr.exception.ErrorRootElement;
 import com.anr.exception.SBNestedException;
+import com.anr.logging.LogFormat;
 import com.anr.logging.LogForwarder;
 import com.anr.logging.model.SplunkEvent;
 import com.google.gson.Gson;
@@ -38,55 +37,131 @@ public class SBUtil {
     private Gson gson;
 
     private static final Logger logger = LoggerFactory.getLogger(SBUtil.class);
-    private static final String LOG_MSG_FORMAT = "[transmissionID = %s] %s (ts=%s)%n";
-    private static final String DATE_FORMAT_WITH_MS = "yyyy-MM-dd HH:mm:ss.SSS";
     private static final String SPACE = " ";
     private static final String ERR_MSG_SUFFIX = " at method: %s";
 
+    /*
+     * Log lines are "[transmissionID = <id>] <message> (ts=<timestamp>)", see LogFormat. Messages
+     * may hold {} placeholders for the arguments; a line is only rendered when its level is
+     * enabled, so callers should pass what goes into a message as arguments rather than
+     * concatenating it themselves
+     */
+
     public void logDebug(String transactionID, String message) {
         if (logger.isDebugEnabled()) {
-            logger.debug(String.format(LOG_MSG_FORMAT,
-                    StringUtils.isEmpty(transactionID) ? StringUtils.EMPTY : transactionID, message,
-                    new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date())));
+            log(Level.DEBUG, transactionID, message);
+        }
+    }
+
+    public void logDebug(String transactionID, String message, Object arg) {
+        if (logger.isDebugEnabled()) {
+            log(Level.DEBUG, transactionID, message, arg);
+        }
+    }
+
+    public void logDebug(String transactionID, String message, Object arg1, Object arg2) {
+        if (logger.isDebugEnabled()) {
+            log(Level.DEBUG, transactionID, message, arg1, arg2);
         }
     }
 
     public void logInfo(String transactionID, String message) {
         if (logger.isInfoEnabled()) {
-            logger.debug(String.format(LOG_MSG_FORMAT,
-                    StringUtils.isEmpty(transactionID) ? StringUtils.EMPTY : transactionID, message,
-                    new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date())));
+            log(Level.INFO, transactionID, message);
+        }
+    }
+
+    public void logInfo(String transactionID, String message, Object arg) {
+        if (logger.isInfoEnabled()) {
+            log(Level.INFO, transactionID, message, arg);
+        }
+    }
+
+    // a primitive argument is only boxed once the level is known to be on
+    public void logInfo(String transactionID, String message, long arg) {
+        if (logger.isInfoEnabled()) {
+            log(Level.INFO, transactionID, message, arg);
+        }
+    }
+
+    public void logInfo(String transactionID, String message, Object arg1, Object arg2) {
+        if (logger.isInfoEnabled()) {
+            log(Level.INFO, transactionID, message, arg1, arg2);
         }
     }
 
     public void logError(String transactionID, String message) {
         if (logger.isErrorEnabled()) {
-            logger.debug(String.format(LOG_MSG_FORMAT,
-                    StringUtils.isEmpty(transactionID) ? StringUtils.EMPTY : transactionID, message,
-                    new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date())));
+            log(Level.ERROR, transactionID, message);
+        }
+    }
+
+    public void logError(String transactionID, String message, Object arg) {
+        if (logger.isErrorEnabled()) {
+            log(Level.ERROR, transactionID, message, arg);
+        }
+    }
+
+    public void logError(String transactionID, String message, Object arg1, Object arg2) {
+        if (logger.isErrorEnabled()) {
+            log(Level.ERROR, transactionID, message, arg1, arg2);
         }
     }
 
     public void logTrace(String transactionID, String message) {
         if (logger.isTraceEnabled()) {
-            logger.debug(String.format(LOG_MSG_FORMAT,
-                    StringUtils.isEmpty(transactionID) ? StringUtils.EMPTY : transactionID, message,
-                    new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date())));
+            log(Level.TRACE, transactionID, message);
+        }
+    }
+
+    public void logTrace(String transactionID, String message, Object arg) {
+        if (logger.isTraceEnabled()) {
+            log(Level.TRACE, transactionID, message, arg);
         }
     }
 
+    public void logTrace(String transactionID, String message, Object arg1, Object arg2) {
+        if (logger.isTraceEnabled()) {
+            log(Level.TRACE, transactionID, message, arg1, arg2);
+        }
+    }
+
+    /**
+     * for callers whose message arguments are themselves costly to build
+     */
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+
     public void logStackTrace(String transactionID, String message, Throwable e) {
-        String txnID = StringUtils.isEmpty(transactionID) ? StringUtils.EMPTY : transactionID;
-        String dtNow = new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date());
         Boolean isStackTraceLoggingEnabled = appProps.getLogStackTrace();
 
         if (logger.isErrorEnabled() && isStackTraceLoggingEnabled) {
-            logger.error(LOG_MSG_FORMAT, txnID, message, dtNow);
-            logger.error(LOG_MSG_FORMAT, txnID, ExceptionUtils.getRootCause(e), dtNow);
+            long now = System.currentTimeMillis();
+            logger.error(LogFormat.line(transactionID, now, message));
+            logger.error(LogFormat.line(transactionID, now, "{}", ExceptionUtils.getRootCause(e)));
             ExceptionUtils.printRootCauseStackTrace(e);
         }
     }
 
+    // callers check the level first: with it off, not even the argument array is allocated
+    private void log(Level level, String transactionID, String message, Object... args) {
+        String line = LogFormat.line(transactionID, System.currentTimeMillis(), message, args);
+        switch (level) {
+        case ERROR:
+            logger.error(line);
+            break;
+        case INFO:
+            logger.info(line);
+            break;
+        case DEBUG:
+            logger.debug(line);
+            break;
+        default:
+            logger.trace(line);
+        }
+    }
+
     public String getRootCauseMessage(Throwable e) {
         String rootCauseMsg = null;
         Throwable rootExcept = NestedExceptionUtils.getMostSpecificCause(e);
@@ -124,13 +199,13 @@ public class SBUtil {
     public void logToSplunkOrSimilar(SplunkEvent event, long startTimeMS) {
         long responseTimeMS = 0;
         if (TransactionType.Request.equals(event.getTransactionType())) {
-            event.setProcesStartTs(new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date(startTimeMS)));
+            event.setProcesStartTs(LogFormat.timestamp(startTimeMS));
         } else if (TransactionType.Response.equals(event.getTransactionType())
                 || TransactionType.Failure.equals(event.getTransactionType())) {
             responseTimeMS = System.currentTimeMillis() - startTimeMS;
             event.setReponseTimeInMillis(responseTimeMS);
-            event.setProcessEndTs(new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date()));
-            event.setProcesStartTs(new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(new Date(startTimeMS)));
+            event.setProcessEndTs(LogFormat.timestamp(startTimeMS + responseTimeMS));
+            event.setProcesStartTs(LogFormat.timestamp(startTimeMS));
         }
         logforwarder.logEvent(event);
     }
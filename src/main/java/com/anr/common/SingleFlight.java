@@ -0,0 +1,75 @@
+package com.anr.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs the loader, callers
+ * arriving while it is in flight wait for and share its result (or its exception). Nothing is
+ * remembered once the load completes; caching stays the caller's business.
+ *
+ * Waiters park on a CompletableFuture rather than a monitor, so on virtual threads they unmount
+ * instead of pinning their carrier thread.
+ *
+ * @author amitr
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public <V> V run(String key, Supplier<V> loader) {
+        calls.incrementAndGet();
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            collapsed.incrementAndGet();
+            return (V) await(leader);
+        }
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * every call made through {@link #run(String, Supplier)}
+     */
+    public long callCount() {
+        return calls.get();
+    }
+
+    /**
+     * calls that shared another caller's load instead of running their own
+     */
+    public long collapsedCount() {
+        return collapsed.get();
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
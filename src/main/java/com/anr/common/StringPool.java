@@ -0,0 +1,26 @@
+package com.anr.common;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Canonical instances of low-cardinality field values ("small group", "health", "active"), so that
+ * the thousands of entities in a loaded member graph hold one String per distinct value instead
+ * of one per row. Weakly held: a value nothing refers to any more can be collected.
+ *
+ * @author amitr
+ */
+public final class StringPool {
+
+    private static final Interner<String> POOL = Interners.newWeakInterner();
+
+    private StringPool() {
+    }
+
+    /**
+     * @return the canonical instance equal to value, or null for null
+     */
+    public static String canonical(String value) {
+        return value == null ? null : POOL.intern(value);
+    }
+}
@@ -0,0 +1,59 @@
+package com.anr.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How far back "changed since" readers can be told about deletes
+ *
+ * Tombstones are kept for the last retention change numbers below the {@link ChangeSequence}
+ * horizon; older ones are pruned a batch at a time, once at least that many more have fallen out of
+ * the window, so the table stays within about twice the window and a delete rarely pays for a
+ * prune. {@link #prunedUpTo()} is raised before the rows go, so a reader that checks it after
+ * reading never misses a pruned delete unnoticed: a reader whose position is below it must resync
+ * from the beginning instead.
+ *
+ * In-process bookkeeping, like the change sequence it follows.
+ *
+ * @author amitr
+ */
+public class TombstoneRetention {
+
+    private final long retention;
+    private final AtomicLong prunedUpTo;
+
+    /**
+     * @param retention  change numbers below the horizon whose tombstones are kept
+     * @param prunedUpTo highest change number whose tombstone may already be gone
+     */
+    public TombstoneRetention(long retention, long prunedUpTo) {
+        this.retention = Math.max(retention, 0);
+        this.prunedUpTo = new AtomicLong(Math.max(prunedUpTo, 0));
+    }
+
+    /**
+     * highest change number whose tombstone may have been pruned
+     */
+    public long prunedUpTo() {
+        return prunedUpTo.get();
+    }
+
+    /**
+     * claims the next prune once a full batch has fallen out of the window, raising
+     * {@link #prunedUpTo()} before the caller deletes anything
+     *
+     * @return the change number to delete tombstones up to, or 0 when no prune is due
+     */
+    public long claim(long horizon) {
+        long upTo = horizon - retention;
+        long batch = Math.max(retention, 1);
+        while (true) {
+            long pruned = prunedUpTo.get();
+            if (upTo - pruned < batch) {
+                return 0L;
+            }
+            if (prunedUpTo.compareAndSet(pruned, upTo)) {
+                return upTo;
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.anr.common;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integer codes for the values of dictionary-encoded columns, shared by all of them and kept in
+ * the {@value #TABLE} table. The whole dictionary is held in memory; it is read on
+ * first use and again whenever a code or value is not known yet, e.g. one added by another
+ * instance. Values handed out are {@link StringPool} instances.
+ *
+ * Only writers add values, through {@link #register(Collection)} before they open the
+ * transaction that writes the rows; a new value is committed in a transaction of its own before
+ * its code is used, so a code in a row always resolves, even when the transaction writing the row
+ * rolls back, and registering outside that transaction never holds a second pooled connection.
+ * Everything else, query parameters included, looks codes up read-only with
+ * {@link #find(String)}, which reads the table again for an unknown value at most once per
+ * {@value #FIND_RELOAD_MILLIS} ms, so a stream of lookups for values nobody stored does not turn
+ * into a stream of full reads.
+ *
+ * @author amitr
+ */
+@Component
+public class ValueDictionary {
+
+    // mapped by com.anr.localmdb.model.DictionaryValue, which creates the table
+    public static final String TABLE = "dictionary_values";
+    public static final int MAX_VALUE_LENGTH = 100;
+    // codes are claimed from 1, so no row holds this one
+    public static final int ABSENT = 0;
+
+    private static final String SELECT_ALL = "SELECT code, dictionary_value FROM " + TABLE;
+    private static final String INSERT_NEXT = "INSERT INTO " + TABLE
+            + " (code, dictionary_value) SELECT COALESCE(MAX(code), 0) + 1, ? FROM " + TABLE;
+    // codes are claimed as MAX + 1; another instance claiming the same one makes the insert fail
+    private static final int ADD_ATTEMPTS = 5;
+    static final long FIND_RELOAD_MILLIS = 1000;
+
+    private final JdbcTemplate jdbc;
+    // resolved on first add: converters are created while the EntityManagerFactory, which the
+    // transaction manager needs, is still being built
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<Integer, String> values = new ConcurrentHashMap<>();
+    // a lock rather than synchronized: adding runs JDBC, which would pin a virtual thread
+    private final ReentrantLock adding = new ReentrantLock();
+    private final AtomicLong lastFindReload = new AtomicLong(System.nanoTime()
+            - TimeUnit.MILLISECONDS.toNanos(FIND_RELOAD_MILLIS));
+
+    public ValueDictionary(JdbcTemplate jdbc, ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.jdbc = jdbc;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * adds the values not in the dictionary yet, each committed on its own; call it before opening
+     * the transaction that writes them. Nulls are skipped
+     *
+     * @throws IllegalArgumentException when a value is longer than the dictionary allows
+     */
+    public void register(Collection<String> newValues) {
+        for (String value : newValues) {
+            code(value);
+        }
+    }
+
+    /**
+     * @return the code of value, added to the dictionary when new; null for null
+     * @throws IllegalArgumentException when value is longer than the dictionary allows
+     */
+    public Integer code(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * read-only lookup, for binding a value that is not being written
+     *
+     * @return the code of value, or {@link #ABSENT} when it is not stored, or was stored by another
+     *         instance since the last read of the table; null for null
+     */
+    public Integer find(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = codes.get(value);
+        if (code == null && claimFindReload()) {
+            reload();
+            code = codes.get(value);
+        }
+        return code != null ? code : ABSENT;
+    }
+
+    /**
+     * @return the canonical value of code; null for null
+     * @throws IllegalStateException when no such code exists
+     */
+    public String value(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        String value = values.get(code);
+        if (value == null) {
+            reload();
+            value = values.get(code);
+            if (value == null) {
+                throw new IllegalStateException("unknown dictionary code " + code);
+            }
+        }
+        return value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    private Integer add(String value) {
+        if (value.length() > MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("dictionary values are limited to " + MAX_VALUE_LENGTH
+                    + " characters");
+        }
+        adding.lock();
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager.getObject());
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            for (int attempt = 0; attempt < ADD_ATTEMPTS; attempt++) {
+                reload();
+                Integer code = codes.get(value);
+                if (code != null) {
+                    return code;
+                }
+                try {
+                    tx.executeWithoutResult(status -> jdbc.update(INSERT_NEXT, value));
+                } catch (DuplicateKeyException e) {
+                    // lost the code (or the value) to another instance; the reload shows which
+                }
+            }
+            reload();
+            Integer code = codes.get(value);
+            if (code == null) {
+                throw new IllegalStateException("could not add dictionary value '" + value + "'");
+            }
+            return code;
+        } finally {
+            adding.unlock();
+        }
+    }
+
+    // one caller per interval gets to read the table for an unknown value; the others answer from
+    // what is loaded
+    private boolean claimFindReload() {
+        long last = lastFindReload.get();
+        long now = System.nanoTime();
+        return now - last >= TimeUnit.MILLISECONDS.toNanos(FIND_RELOAD_MILLIS)
+                && lastFindReload.compareAndSet(last, now);
+    }
+
+    private void reload() {
+        jdbc.query(SELECT_ALL, rs -> {
+            int code = rs.getInt(1);
+            if (!values.containsKey(code)) {
+                String value = StringPool.canonical(rs.getString(2));
+                values.put(code, value);
+                codes.put(value, code);
+            }
+        });
+    }
+}
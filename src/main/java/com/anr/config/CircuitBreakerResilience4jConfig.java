@@ -135,20 +135,20 @@ public class CircuitBreakerResilience4jConfig {
                 .onStateTransition(event -> {
                     switch (event.getStateTransition().getToState()) {
                         case CLOSED:
-                            sbutil.logInfo(null, msgForClosed + ": " + circuitBreakerName);
+                            sbutil.logInfo(null, "{}: {}", msgForClosed, circuitBreakerName);
                             break;
                         case OPEN:
-                            sbutil.logInfo(null, msgForOpened + ": " + circuitBreakerName);
+                            sbutil.logInfo(null, "{}: {}", msgForOpened, circuitBreakerName);
                             break;
                         case HALF_OPEN:
-                            sbutil.logInfo(null, msgForHalfOpen + ": " + circuitBreakerName);
+                            sbutil.logInfo(null, "{}: {}", msgForHalfOpen, circuitBreakerName);
                             break;
                         default:
                             break;
                     }
                 })
                 .onError(event -> {
-                    sbutil.logError(null, "Circuit breaker error: " + event.getThrowable().getMessage());
+                    sbutil.logError(null, "Circuit breaker error: {}", event.getThrowable().getMessage());
                 })
                 .onSuccess(event -> {
                     sbutil.logDebug(null, "Circuit breaker call succeeded");
@@ -1,5 +1,8 @@
 package com.anr.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -8,8 +11,17 @@ import org.springframework.stereotype.Component;
 public class ConfigProperties {
 
     private Boolean logStackTrace;
+    private long asyncRequestTimeoutMS;
     private WaitProperty waitperiod;
     private Executor executor;
+    private ProductCacheProperty productCache;
+    private ChangeFeedProperty changeFeed;
+    private CatalogSnapshotProperty catalogSnapshot;
+    private PlanCacheProperty planCache;
+    private MemberIngestProperty memberIngest;
+    private SecondLevelCacheProperty secondLevelCache;
+    private MemberStorageProperty memberStorage;
+    private EligibilityIndexProperty eligibilityIndex;
 
     public static class Executor {
         private int corePoolSize;
@@ -50,6 +62,229 @@ public class ConfigProperties {
         }
     }
 
+    public static class ProductCacheProperty {
+        private long maximumSize;
+        private long expireAfterWriteSeconds;
+        private long jsonMaximumBytes;
+        private boolean jsonGzip;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getExpireAfterWriteSeconds() {
+            return expireAfterWriteSeconds;
+        }
+
+        public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+            this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        }
+
+        public long getJsonMaximumBytes() {
+            return jsonMaximumBytes;
+        }
+
+        public void setJsonMaximumBytes(long jsonMaximumBytes) {
+            this.jsonMaximumBytes = jsonMaximumBytes;
+        }
+
+        public boolean isJsonGzip() {
+            return jsonGzip;
+        }
+
+        public void setJsonGzip(boolean jsonGzip) {
+            this.jsonGzip = jsonGzip;
+        }
+    }
+
+    public static class ChangeFeedProperty {
+        private int historySize;
+        private int bufferSize;
+        private long heartbeatSeconds;
+        private long tombstoneRetention;
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(int historySize) {
+            this.historySize = historySize;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getHeartbeatSeconds() {
+            return heartbeatSeconds;
+        }
+
+        public void setHeartbeatSeconds(long heartbeatSeconds) {
+            this.heartbeatSeconds = heartbeatSeconds;
+        }
+
+        public long getTombstoneRetention() {
+            return tombstoneRetention;
+        }
+
+        public void setTombstoneRetention(long tombstoneRetention) {
+            this.tombstoneRetention = tombstoneRetention;
+        }
+    }
+
+    public static class CatalogSnapshotProperty {
+        private boolean enabled;
+        private int maxProducts;
+        private long maxStalenessMillis;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxProducts() {
+            return maxProducts;
+        }
+
+        public void setMaxProducts(int maxProducts) {
+            this.maxProducts = maxProducts;
+        }
+
+        public long getMaxStalenessMillis() {
+            return maxStalenessMillis;
+        }
+
+        public void setMaxStalenessMillis(long maxStalenessMillis) {
+            this.maxStalenessMillis = maxStalenessMillis;
+        }
+    }
+
+    public static class PlanCacheProperty {
+        private long maximumSize;
+        private long expireAfterWriteSeconds;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getExpireAfterWriteSeconds() {
+            return expireAfterWriteSeconds;
+        }
+
+        public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+            this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        }
+    }
+
+    public static class MemberIngestProperty {
+        private int chunkSize;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class MemberStorageProperty {
+        private Mode mode = Mode.RELATIONAL;
+
+        public enum Mode {
+            // insurance_members, policies and policy_plans rows; plan definitions stored once
+            RELATIONAL,
+            // one member_documents row per member, the whole aggregate in one column
+            DOCUMENT
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class EligibilityIndexProperty {
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class SecondLevelCacheProperty {
+        private boolean enabled;
+        private boolean metrics;
+        private Map<String, CacheRegionProperty> regions = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isMetrics() {
+            return metrics;
+        }
+
+        public void setMetrics(boolean metrics) {
+            this.metrics = metrics;
+        }
+
+        public Map<String, CacheRegionProperty> getRegions() {
+            return regions;
+        }
+
+        public void setRegions(Map<String, CacheRegionProperty> regions) {
+            this.regions = regions;
+        }
+    }
+
+    public static class CacheRegionProperty {
+        private long maximumSize;
+        private long expireAfterWriteSeconds;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getExpireAfterWriteSeconds() {
+            return expireAfterWriteSeconds;
+        }
+
+        public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+            this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        }
+    }
+
     public static class WaitProperty {
         private int apiDefaultService;
         private int apiSecondService;
@@ -198,6 +433,14 @@ public class ConfigProperties {
         logStackTrace = flag;
     }
 
+    public long getAsyncRequestTimeoutMS() {
+        return asyncRequestTimeoutMS;
+    }
+
+    public void setAsyncRequestTimeoutMS(long asyncRequestTimeoutMS) {
+        this.asyncRequestTimeoutMS = asyncRequestTimeoutMS;
+    }
+
     public WaitProperty getWaitperiod() {
         return waitperiod;
     }
@@ -214,4 +457,68 @@ public class ConfigProperties {
         this.executor = executor;
     }
 
+    public ProductCacheProperty getProductCache() {
+        return productCache;
+    }
+
+    public void setProductCache(ProductCacheProperty productCache) {
+        this.productCache = productCache;
+    }
+
+    public ChangeFeedProperty getChangeFeed() {
+        return changeFeed;
+    }
+
+    public void setChangeFeed(ChangeFeedProperty changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    public CatalogSnapshotProperty getCatalogSnapshot() {
+        return catalogSnapshot;
+    }
+
+    public void setCatalogSnapshot(CatalogSnapshotProperty catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    public PlanCacheProperty getPlanCache() {
+        return planCache;
+    }
+
+    public void setPlanCache(PlanCacheProperty planCache) {
+        this.planCache = planCache;
+    }
+
+    public MemberIngestProperty getMemberIngest() {
+        return memberIngest;
+    }
+
+    public void setMemberIngest(MemberIngestProperty memberIngest) {
+        this.memberIngest = memberIngest;
+    }
+
+    public SecondLevelCacheProperty getSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public void setSecondLevelCache(SecondLevelCacheProperty secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    public MemberStorageProperty getMemberStorage() {
+        return memberStorage;
+    }
+
+    public void setMemberStorage(MemberStorageProperty memberStorage) {
+        this.memberStorage = memberStorage;
+    }
+
+    public EligibilityIndexProperty getEligibilityIndex() {
+        return eligibilityIndex;
+    }
+
+    public void setEligibilityIndex(EligibilityIndexProperty eligibilityIndex) {
+        this.eligibilityIndex = eligibilityIndex;
+    }
+
 }
@@ -2,6 +2,7 @@ package com.anr.config;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -10,11 +11,14 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.anr.common.ValueDictionary;
+import com.anr.localmdb.model.DictionaryCodeListener;
 import com.anr.localmdb.model.InsuranceMember;
 import com.anr.localmdb.model.Plan;
 import com.anr.localmdb.model.Policy;
 import com.anr.localmdb.model.Product;
 import com.anr.localmdb.repository.MemberRepository;
+import com.anr.localmdb.repository.PlanRepository;
 import com.anr.localmdb.repository.ProductRepository;
 
 /**
@@ -27,7 +31,8 @@ public class DataInitializer {
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
 
     @Bean
-    CommandLineRunner initDatabase(ProductRepository productRepo, MemberRepository memberRepo) {
+    CommandLineRunner initDatabase(ProductRepository productRepo, MemberRepository memberRepo,
+            PlanRepository planRepo, ValueDictionary dictionary) {
         return args -> {
             logger.info("Initializing H2 database with sample data...");
 
@@ -35,7 +40,7 @@ public class DataInitializer {
             initializeProducts(productRepo);
 
             // Initialize Insurance Members
-            initializeMembers(memberRepo);
+            initializeMembers(memberRepo, planRepo, dictionary);
 
             logger.info("Database initialization complete!");
         };
@@ -73,12 +78,38 @@ public class DataInitializer {
         return product;
     }
 
-    private void initializeMembers(MemberRepository memberRepo) {
+    private Plan createPlan(int planDefinitionId, String name, String number, String segment, String family,
+            String coverageType, String status) {
+        Plan plan = new Plan();
+        plan.setPlanDefinitionId(planDefinitionId);
+        plan.setPlanName(name);
+        plan.setPlanNumber(number);
+        plan.setSegment(segment);
+        plan.setPlanFamily(family);
+        plan.setCoverageType(coverageType);
+        plan.setStatus(status);
+        return plan;
+    }
+
+    private void initializeMembers(MemberRepository memberRepo, PlanRepository planRepo, ValueDictionary dictionary) {
         logger.info("Loading sample insurance members...");
 
         try {
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
 
+            // Plan definitions - stored once, referenced from every policy that carries them
+            Plan happyHealth = createPlan(111, "happyHealth", "01405", "small group", "ForWorkoutPeople", "health",
+                    "active");
+            Plan previousHealth = createPlan(109, "previousHealth", "01123", "small group", "ForWorkoutPeople",
+                    "health", "active");
+            Plan olderHealth = createPlan(108, "olderHealth", "01043", "individual under 65", "ForNormalPeople",
+                    "health", "soft retired");
+            Plan basicMedicines = createPlan(321, "basicMedicines", "23", "small group", "ForWorkoutPeople", "rx",
+                    "active");
+            List<Plan> plans = Arrays.asList(happyHealth, previousHealth, olderHealth, basicMedicines);
+            plans.forEach(plan -> dictionary.register(DictionaryCodeListener.encodedValues(plan)));
+            planRepo.saveAll(plans);
+
             // Sample Member: John Deer
             InsuranceMember member = new InsuranceMember();
             member.setId("545345");
@@ -99,28 +130,7 @@ public class DataInitializer {
             policy1.setPolicyStartDate(sdf.parse("2020-01-01"));
             policy1.setPolicyExpiryDate(sdf.parse("2020-12-31"));
 
-            List<Plan> plans1 = new ArrayList<>();
-            Plan plan1a = new Plan();
-            plan1a.setPlanDefinitionId(111);
-            plan1a.setPlanName("happyHealth");
-            plan1a.setPlanNumber("01405");
-            plan1a.setSegment("small group");
-            plan1a.setPlanFamily("ForWorkoutPeople");
-            plan1a.setCoverageType("health");
-            plan1a.setStatus("active");
-            plans1.add(plan1a);
-
-            Plan plan1b = new Plan();
-            plan1b.setPlanDefinitionId(321);
-            plan1b.setPlanName("basicMedicines");
-            plan1b.setPlanNumber("23");
-            plan1b.setSegment("small group");
-            plan1b.setPlanFamily("ForWorkoutPeople");
-            plan1b.setCoverageType("rx");
-            plan1b.setStatus("active");
-            plans1.add(plan1b);
-
-            policy1.setPlans(plans1);
+            policy1.setPlans(Arrays.asList(happyHealth, basicMedicines));
             policies.add(policy1);
 
             // Policy 2 - Previous year
@@ -132,28 +142,7 @@ public class DataInitializer {
             policy2.setPolicyStartDate(sdf.parse("2019-01-01"));
             policy2.setPolicyExpiryDate(sdf.parse("2019-12-31"));
 
-            List<Plan> plans2 = new ArrayList<>();
-            Plan plan2a = new Plan();
-            plan2a.setPlanDefinitionId(109);
-            plan2a.setPlanName("previousHealth");
-            plan2a.setPlanNumber("01123");
-            plan2a.setSegment("small group");
-            plan2a.setPlanFamily("ForWorkoutPeople");
-            plan2a.setCoverageType("health");
-            plan2a.setStatus("active");
-            plans2.add(plan2a);
-
-            Plan plan2b = new Plan();
-            plan2b.setPlanDefinitionId(321);
-            plan2b.setPlanName("basicMedicines");
-            plan2b.setPlanNumber("23");
-            plan2b.setSegment("small group");
-            plan2b.setPlanFamily("ForWorkoutPeople");
-            plan2b.setCoverageType("rx");
-            plan2b.setStatus("active");
-            plans2.add(plan2b);
-
-            policy2.setPlans(plans2);
+            policy2.setPlans(Arrays.asList(previousHealth, basicMedicines));
             policies.add(policy2);
 
             // Policy 3 - Older year
@@ -165,31 +154,11 @@ public class DataInitializer {
             policy3.setPolicyStartDate(sdf.parse("2018-01-01"));
             policy3.setPolicyExpiryDate(sdf.parse("2018-12-31"));
 
-            List<Plan> plans3 = new ArrayList<>();
-            Plan plan3a = new Plan();
-            plan3a.setPlanDefinitionId(108);
-            plan3a.setPlanName("olderHealth");
-            plan3a.setPlanNumber("01043");
-            plan3a.setSegment("individual under 65");
-            plan3a.setPlanFamily("ForNormalPeople");
-            plan3a.setCoverageType("health");
-            plan3a.setStatus("soft retired");
-            plans3.add(plan3a);
-
-            Plan plan3b = new Plan();
-            plan3b.setPlanDefinitionId(321);
-            plan3b.setPlanName("basicMedicines");
-            plan3b.setPlanNumber("23");
-            plan3b.setSegment("small group");
-            plan3b.setPlanFamily("ForWorkoutPeople");
-            plan3b.setCoverageType("rx");
-            plan3b.setStatus("active");
-            plans3.add(plan3b);
-
-            policy3.setPlans(plans3);
+            policy3.setPlans(Arrays.asList(olderHealth, basicMedicines));
             policies.add(policy3);
 
             member.setPolicies(policies);
+            policies.forEach(policy -> dictionary.register(DictionaryCodeListener.encodedValues(policy)));
             memberRepo.save(member);
 
             logger.info("Loaded 1 insurance member with {} policies", policies.size());
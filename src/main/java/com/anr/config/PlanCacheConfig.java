@@ -0,0 +1,38 @@
+package com.anr.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.anr.service.PlanDefinitionCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Plan definition cache sizing and its actuator metrics, published under the "cache.*" meters
+ * with tag cache=planDefinitions
+ *
+ * @author amitr
+ */
+@Configuration
+public class PlanCacheConfig {
+
+    private static final String CACHE_NAME = "planDefinitions";
+
+    @Autowired
+    private ConfigProperties appProps;
+
+    @Bean
+    public PlanDefinitionCache planDefinitionCache(MeterRegistry meterRegistry) {
+        ConfigProperties.PlanCacheProperty props = appProps.getPlanCache();
+        PlanDefinitionCache planCache = new PlanDefinitionCache(props.getMaximumSize(),
+                Duration.ofSeconds(props.getExpireAfterWriteSeconds()));
+
+        GuavaCacheMetrics.monitor(meterRegistry, planCache.getNativeCache(), CACHE_NAME);
+
+        return planCache;
+    }
+}
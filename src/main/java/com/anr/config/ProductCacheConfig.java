@@ -0,0 +1,117 @@
+package com.anr.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+
+import com.anr.common.SingleFlight;
+import com.anr.localmdb.repository.ProductRepository;
+import com.anr.service.ProductCatalogSnapshot;
+import com.anr.service.ProductCache;
+import com.anr.service.ProductJsonCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Product read-through cache and serialized-JSON cache sizing, and their actuator metrics
+ *
+ * Hit, miss, size and eviction counters are published under the "cache.*" meters with
+ * tag cache=products (see /actuator/metrics/cache.gets); explicit write invalidations are
+ * counted separately as product.cache.invalidations. The JSON cache reports the same meters with
+ * tag cache=productJson, plus product.json.cache.bytes for the encoded bytes it holds.
+ * Cache misses for the same id or name are coalesced into one database load; product.loads.calls
+ * and product.loads.collapsed show how many lookups rode along on another's load.
+ * The optional whole-catalog snapshot reports product.catalog.snapshot.products,
+ * product.catalog.snapshot.rebuilds and product.catalog.snapshot.stale (reads sent to the
+ * database because the snapshot lagged too far behind)
+ *
+ * @author amitr
+ */
+@Configuration
+public class ProductCacheConfig {
+
+    private static final String CACHE_NAME = "products";
+    private static final String JSON_CACHE_NAME = "productJson";
+
+    @Autowired
+    private ConfigProperties appProps;
+
+    @Bean
+    public ProductCache productCache(MeterRegistry meterRegistry) {
+        ConfigProperties.ProductCacheProperty props = appProps.getProductCache();
+        ProductCache productCache = new ProductCache(props.getMaximumSize(),
+                Duration.ofSeconds(props.getExpireAfterWriteSeconds()));
+
+        GuavaCacheMetrics.monitor(meterRegistry, productCache.getNativeCache(), CACHE_NAME);
+        FunctionCounter.builder("product.cache.invalidations", productCache, ProductCache::invalidationCount)
+                .description("entries evicted by product writes")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+
+        return productCache;
+    }
+
+    @Bean
+    public ProductJsonCache productJsonCache(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        ConfigProperties.ProductCacheProperty props = appProps.getProductCache();
+        ProductJsonCache jsonCache = new ProductJsonCache(objectMapper, props.getJsonMaximumBytes(),
+                Duration.ofSeconds(props.getExpireAfterWriteSeconds()), props.isJsonGzip());
+
+        GuavaCacheMetrics.monitor(meterRegistry, jsonCache.getNativeCache(), JSON_CACHE_NAME);
+        Gauge.builder("product.json.cache.bytes", jsonCache, ProductJsonCache::bytesHeld)
+                .description("encoded product bytes held, JSON and gzip")
+                .baseUnit("bytes")
+                .tag("cache", JSON_CACHE_NAME)
+                .register(meterRegistry);
+
+        return jsonCache;
+    }
+
+    @Bean
+    public ProductCatalogSnapshot productCatalogSnapshot(MeterRegistry meterRegistry, ObjectMapper objectMapper,
+            ProductRepository productRepo) {
+        ConfigProperties.CatalogSnapshotProperty props = appProps.getCatalogSnapshot();
+        if (!props.isEnabled()) {
+            return ProductCatalogSnapshot.disabled();
+        }
+        ProductCatalogSnapshot snapshot = new ProductCatalogSnapshot(
+                limit -> productRepo.findByIdGreaterThanOrderByIdAsc("", Limit.of(limit)), objectMapper,
+                props.getMaxProducts(), Duration.ofMillis(props.getMaxStalenessMillis()),
+                appProps.getProductCache().isJsonGzip(),
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("catalog-snapshot").factory()));
+
+        Gauge.builder("product.catalog.snapshot.products", snapshot, ProductCatalogSnapshot::size)
+                .description("products in the current catalog snapshot")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.catalog.snapshot.rebuilds", snapshot, ProductCatalogSnapshot::rebuildCount)
+                .description("catalog snapshots built and swapped in")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.catalog.snapshot.stale", snapshot, ProductCatalogSnapshot::staleReadCount)
+                .description("catalog reads served by the database because the snapshot was too stale")
+                .register(meterRegistry);
+
+        return snapshot;
+    }
+
+    @Bean
+    public SingleFlight productLoads(MeterRegistry meterRegistry) {
+        SingleFlight loads = new SingleFlight();
+
+        FunctionCounter.builder("product.loads.calls", loads, SingleFlight::callCount)
+                .description("product lookups by id or name that reached the database layer")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.loads.collapsed", loads, SingleFlight::collapsedCount)
+                .description("lookups that shared a concurrent identical load instead of querying")
+                .register(meterRegistry);
+
+        return loads;
+    }
+}
@@ -0,0 +1,67 @@
+package com.anr.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.anr.common.ChangeSequence;
+import com.anr.common.TombstoneRetention;
+import com.anr.localmdb.repository.ProductRepository;
+import com.anr.localmdb.repository.ProductTombstoneRepository;
+import com.anr.service.ProductChangeFeed;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Catalog change tracking: the change sequence stamped on product rows and tombstones (continuing
+ * past the highest one stored), how long tombstones are kept, and the change stream with its actuator metrics:
+ * product.changes.subscribers (open streams), product.changes.published and
+ * product.changes.dropped (subscribers cut off for falling a whole buffer behind)
+ *
+ * @author amitr
+ */
+@Configuration
+public class ProductChangeFeedConfig {
+
+    @Autowired
+    private ConfigProperties appProps;
+
+    @Bean
+    public ChangeSequence productChangeSequence(ProductRepository productRepo,
+            ProductTombstoneRepository tombstoneRepo) {
+        return new ChangeSequence(Math.max(productRepo.maxChangeSeq(), tombstoneRepo.maxChangeSeq()));
+    }
+
+    // pruning leaves no record, so after a restart anything below the oldest tombstone kept is
+    // taken as pruned; with none left, everything up to the last change is
+    @Bean
+    public TombstoneRetention productTombstoneRetention(ChangeSequence productChangeSequence,
+            ProductTombstoneRepository tombstoneRepo) {
+        Long oldest = tombstoneRepo.minChangeSeq();
+        return new TombstoneRetention(appProps.getChangeFeed().getTombstoneRetention(),
+                oldest == null ? productChangeSequence.horizon() : oldest - 1);
+    }
+
+    @Bean
+    public ProductChangeFeed productChangeFeed(MeterRegistry meterRegistry) {
+        ConfigProperties.ChangeFeedProperty props = appProps.getChangeFeed();
+        ProductChangeFeed changeFeed = new ProductChangeFeed(props.getHistorySize(), props.getBufferSize(),
+                Duration.ofSeconds(props.getHeartbeatSeconds()));
+
+        Gauge.builder("product.changes.subscribers", changeFeed, ProductChangeFeed::subscriberCount)
+                .description("open catalog change streams")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.changes.published", changeFeed, ProductChangeFeed::lastSequence)
+                .description("product writes pushed to the change stream")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.changes.dropped", changeFeed, ProductChangeFeed::droppedCount)
+                .description("subscribers disconnected for falling behind")
+                .register(meterRegistry);
+
+        return changeFeed;
+    }
+}
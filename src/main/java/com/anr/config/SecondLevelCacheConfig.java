@@ -0,0 +1,127 @@
+package com.anr.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate second-level cache: one in-process Caffeine region per cached entity or collection,
+ * sized and expired from sbsvc.secondLevelCache.regions. With sbsvc.secondLevelCache.metrics, hit,
+ * miss and put counts are published under the "cache.*" meters with tag cache=&lt;region&gt;
+ *
+ * @author amitr
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final List<String> REGIONS = List.of(InsuranceMember.POLICIES_CACHE_REGION, Policy.CACHE_REGION,
+            Policy.PLANS_CACHE_REGION, Plan.CACHE_REGION);
+
+    @Autowired
+    private ConfigProperties appProps;
+
+    // a manager of its own per application context, so test contexts never share cached rows
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "sbsvc.secondLevelCache.enabled", havingValue = "true")
+    public CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+        Map<String, ConfigProperties.CacheRegionProperty> regions = appProps.getSecondLevelCache().getRegions();
+        for (String region : REGIONS) {
+            ConfigProperties.CacheRegionProperty props = regions.get(region);
+            if (props == null) {
+                throw new IllegalStateException("sbsvc.secondLevelCache.regions." + region + " is not configured");
+            }
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(props.getMaximumSize()));
+            config.setExpireAfterWrite(
+                    OptionalLong.of(Duration.ofSeconds(props.getExpireAfterWriteSeconds()).toNanos()));
+            config.setStatisticsEnabled(false);
+            cacheManager.createCache(region, config);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            ObjectProvider<CacheManager> secondLevelCacheManager) {
+        return hibernateProps -> {
+            if (!appProps.getSecondLevelCache().isEnabled()) {
+                // hibernate-jcache on the classpath would otherwise be picked up with default regions
+                hibernateProps.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                return;
+            }
+            hibernateProps.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProps.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProps.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager.getObject());
+            // every region is created above; a region Hibernate asks for beyond those is a mapping mistake
+            hibernateProps.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // region hit and miss counts are kept by the statistics, which cost on every session
+            if (appProps.getSecondLevelCache().isMetrics()) {
+                hibernateProps.put(AvailableSettings.GENERATE_STATISTICS, true);
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnExpression("${sbsvc.secondLevelCache.enabled:false} and ${sbsvc.secondLevelCache.metrics:false}")
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : REGIONS) {
+                counter(registry, "cache.gets", stats, region, "hit", CacheRegionStatistics::getHitCount);
+                counter(registry, "cache.gets", stats, region, "miss", CacheRegionStatistics::getMissCount);
+                FunctionCounter.builder("cache.puts", stats,
+                        s -> count(s, region, CacheRegionStatistics::getPutCount))
+                        .tag("cache", region)
+                        .description("Entries added to the second-level cache region")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static void counter(MeterRegistry registry, String name, Statistics stats,
+            String region, String result, ToLongFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder(name, stats, s -> count(s, region, count))
+                .tags("cache", region, "result", result)
+                .description("Second-level cache region lookups, by result")
+                .register(registry);
+    }
+
+    private static double count(Statistics stats, String region, ToLongFunction<CacheRegionStatistics> count) {
+        CacheRegionStatistics regionStats = stats.getDomainDataRegionStatistics(region);
+        return regionStats == null ? 0 : count.applyAsLong(regionStats);
+    }
+}
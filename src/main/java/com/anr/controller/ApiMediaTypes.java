@@ -0,0 +1,75 @@
+package com.anr.controller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings the resource APIs negotiate by Accept / Content-Type: JSON, and the binary Jackson
+ * formats CBOR and Smile with the same field names and shapes. The binary converters are
+ * registered by Spring MVC once jackson-dataformat-cbor/-smile are on the classpath
+ *
+ * @author amitr
+ */
+final class ApiMediaTypes {
+
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    private static final List<MediaType> BINARY = List.of(MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+
+    private ApiMediaTypes() {
+    }
+
+    /**
+     * whether the Accept header picks CBOR or Smile over JSON: the highest-quality type it names
+     * explicitly, the first one on ties, as Spring's negotiation does; wildcards alone mean JSON
+     *
+     * Responses kept as pre-encoded JSON bytes use this to fall back to the entity for binary
+     * clients.
+     */
+    static boolean prefersBinary(String accept) {
+        return preferredBinary(accept) != null;
+    }
+
+    /**
+     * @return the binary type the Accept header picks over JSON, by the rule of
+     *         {@link #prefersBinary(String)}, or null when it picks JSON
+     */
+    static MediaType preferredBinary(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType best = null;
+        for (MediaType type : types) {
+            if (type.isWildcardType() || type.isWildcardSubtype() || !isNegotiated(type)) {
+                continue;
+            }
+            if (best == null || type.getQualityValue() > best.getQualityValue()) {
+                best = type;
+            }
+        }
+        return best != null && best.getQualityValue() > 0 && isBinary(best)
+                ? new MediaType(best.getType(), best.getSubtype()) : null;
+    }
+
+    private static boolean isNegotiated(MediaType type) {
+        return MediaType.APPLICATION_JSON.equalsTypeAndSubtype(type) || isBinary(type);
+    }
+
+    private static boolean isBinary(MediaType type) {
+        for (MediaType binary : BINARY) {
+            if (binary.equalsTypeAndSubtype(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,243 @@
+package com.anr.controller;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.MemberPage;
+import com.anr.model.MemberSummary;
+import com.anr.service.MemberIngestService;
+import com.anr.service.MemberService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/v1/members")
+@Tag(name = "Member Lookup", description = "Read APIs for insurance members; bodies are JSON, or CBOR "
+        + "(application/cbor) or Smile (application/x-jackson-smile) by Accept")
+public class MemberController {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private MemberIngestService memberIngestService;
+
+    @GetMapping(value = "/{id}", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Get member by ID",
+               description = "The member with all of its policies and their plans")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Member found",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = InsuranceMember.class))),
+            @ApiResponse(responseCode = "404", description = "Member not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    public ResponseEntity<InsuranceMember> getMemberById(@PathVariable String id) {
+        InsuranceMember member = memberService.findById(id);
+        if (member == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(member);
+    }
+
+    @GetMapping(value = "/by-name", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Find members by name",
+               description = "Members matching the firstname, the lastname or both; member fields only, "
+                       + "without policies")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching members, possibly none",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = MemberSummary.class))),
+            @ApiResponse(responseCode = "400", description = "Neither firstname nor lastname given",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    public ResponseEntity<?> getMembersByName(
+            @Parameter(description = "exact firstname")
+            @RequestParam(required = false) String firstname,
+            @Parameter(description = "exact lastname")
+            @RequestParam(required = false) String lastname) {
+        try {
+            return ResponseEntity.ok(memberService.findByName(firstname, lastname));
+        } catch (IllegalArgumentException e) {
+            return badRequest("firstname", e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/by-birthday", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Find members by birthday range",
+               description = "One keyset page of the members born between from and to, both inclusive, ordered "
+                       + "by date of birth then id; pass nextCursor back as cursor for the following page. "
+                       + "view=full (default) returns members with their policies and plans, view=summary "
+                       + "only id, partyId, names and date of birth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of matching members, possibly empty",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = MemberPage.class))),
+            @ApiResponse(responseCode = "400",
+                    description = "Missing or malformed date, from after to, or invalid view, cursor or page size",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    public ResponseEntity<?> getMembersByBirthday(
+            @Parameter(description = "earliest date of birth, yyyy-MM-dd")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "latest date of birth, yyyy-MM-dd")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "page size, 1 to " + MAX_PAGE_SIZE)
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "opaque nextCursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "full or summary")
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
+        if (!isView(view)) {
+            return badRequest("view", "view must be " + VIEW_FULL + " or " + VIEW_SUMMARY);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            return badRequest("limit", "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from.isAfter(to)) {
+            return badRequest("from", "from must not be after to");
+        }
+        try {
+            if (VIEW_SUMMARY.equals(view)) {
+                return ResponseEntity.ok(memberService.findSummaryPageByBirthday(from, to, cursor, pageSize));
+            }
+            return ResponseEntity.ok(memberService.findPageByBirthday(from, to, cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return badRequest("cursor", e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/eligible", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Find policies in force on a date",
+               description = "Every policy in force on date - started on or before it, not expired before it, "
+                       + "no expiry date meaning open-ended - as member id, policy id and plan definition ids "
+                       + "only, ordered by member id then policy id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Policies in force, possibly none",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = EligiblePolicy.class))),
+            @ApiResponse(responseCode = "400", description = "Missing or malformed date",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    public ResponseEntity<List<EligiblePolicy>> getEligibleOn(
+            @Parameter(description = "date of coverage, yyyy-MM-dd")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(memberService.findEligibleOn(date));
+    }
+
+    @GetMapping(value = "/by-birthday/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export members by birthday range",
+               description = "Streams every member born between from and to, both inclusive, as newline-delimited "
+                       + "JSON in date of birth then id order; memory use does not grow with the range. view as "
+                       + "for /by-birthday")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Members streamed",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)),
+            @ApiResponse(responseCode = "400", description = "Missing or malformed date, from after to, or invalid view",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportMembersByBirthday(
+            @Parameter(description = "earliest date of birth, yyyy-MM-dd")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "latest date of birth, yyyy-MM-dd")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "full or summary")
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
+        // checked here because once the body streams the status is already sent
+        if (!isView(view) || from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean summary = VIEW_SUMMARY.equals(view);
+        StreamingResponseBody body = out -> memberService.exportByBirthday(from, to, summary, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.ndjson\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Ingest members",
+               description = "Inserts new members read from a newline-delimited JSON body, one member document "
+                       + "per line in the SampleMemberRecord.json shape (gzip with Content-Encoding: gzip). "
+                       + "Members are committed in chunks; the response streams one line per committed chunk "
+                       + "(lines, inserted, failed members with reasons, throughput) and ends with the totals. "
+                       + "Memory use does not grow with the body size")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ingest progress, then totals",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)),
+            @ApiResponse(responseCode = "415", description = "Body is not application/x-ndjson",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> ingestMembers(HttpServletRequest request) {
+        StreamingResponseBody body = out -> {
+            InputStream in = request.getInputStream();
+            if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+                in = new GZIPInputStream(in);
+            }
+            memberIngestService.ingest(in, out);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static boolean isView(String view) {
+        return VIEW_FULL.equals(view) || VIEW_SUMMARY.equals(view);
+    }
+
+    private ResponseEntity<Map<String, String>> badRequest(String field, String message) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put(field, message);
+        return ResponseEntity.badRequest().body(errors);
+    }
+}
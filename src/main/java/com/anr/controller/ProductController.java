@@ -1,10 +1,15 @@
 package com.anr.controller;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,15 +21,28 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import com.anr.localmdb.model.Product;
+import com.anr.model.ProductBatchResult;
+import com.anr.model.ProductCatalog;
+import com.anr.model.ProductChangeEvent;
+import com.anr.model.ProductJson;
+import com.anr.model.ProductLookup;
+import com.anr.model.ProductPage;
+import com.anr.service.ProductBatchService;
+import com.anr.service.ProductChangeFeed;
 import com.anr.service.ProductService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -33,49 +51,308 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 @RestController
 @RequestMapping("/api/v1/products")
-@Tag(name = "Product Management", description = "APIs for managing products")
+@Tag(name = "Product Management", description = "APIs for managing products; bodies are JSON, or CBOR "
+        + "(application/cbor) or Smile (application/x-jackson-smile) by Accept / Content-Type")
 public class ProductController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final int MAX_LOOKUP_SIZE = 1000;
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
     @Autowired
     private ProductService productService;
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
     @Operation(summary = "Get all products", 
-               description = "Retrieves a list of all products in the system")
+               description = "Retrieves a list of all products in the system. When limit or cursor is given, "
+                       + "returns one keyset page ordered by id plus an opaque nextCursor for the following page. "
+                       + "With changedSince, returns only products written and ids deleted after that watermark "
+                       + "(blank for everything) plus the watermark to pass next time, with resync set when the "
+                       + "watermark predates the deletes still kept and the whole catalog is listed again. "
+                       + "With ids, returns just those products in the order given plus the ids that were not found")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved list of products",
                     content = @Content(mediaType = "application/json", 
                     schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "304", description = "If-None-Match matched; list unchanged", 
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, watermark or page size", 
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<?> getAllProducts(
+            @Parameter(description = "page size, 1 to " + MAX_PAGE_SIZE)
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "nextCursor value of the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "comma-separated product fields to return; id is always included")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "watermark of the previous delta sync, blank for a first full sync")
+            @RequestParam(required = false) String changedSince,
+            @Parameter(description = "comma-separated product ids to look up, at most " + MAX_LOOKUP_SIZE)
+            @RequestParam(required = false) List<String> ids,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ids != null) {
+            return lookupProducts(ids);
+        }
+        if (changedSince != null) {
+            return getProductChanges(changedSince, limit);
+        }
+        if (fields != null) {
+            return getProductFields(fields, limit, cursor);
+        }
+        if (limit == null && cursor == null) {
+            ProductCatalog catalog = productService.findCatalog();
+            MediaType binary = ApiMediaTypes.preferredBinary(accept);
+            if (catalog != null && binary != null) {
+                return ResponseEntity.ok().eTag(ProductETags.encoded(catalog.getEtag(), binary))
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(catalog.getProducts());
+            }
+            if (catalog != null) {
+                return catalogResponse(catalog, acceptEncoding, ifNoneMatch);
+            }
+            List<Product> products = productService.findAll();
+            return ResponseEntity.ok().eTag(ProductETags.of(products, null)).body(products);
+        }
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            return badRequest("limit", "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            ProductPage<Product> page = productService.findPage(cursor, pageSize);
+            return ResponseEntity.ok().eTag(ProductETags.of(page.getItems(), page.getNextCursor())).body(page);
+        } catch (IllegalArgumentException e) {
+            return badRequest("cursor", e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/lookup", 
+                 consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                         ApiMediaTypes.APPLICATION_SMILE_VALUE }, 
+                 produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                         ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Get products by id list", 
+               description = "Body variant of GET ?ids= for id lists too long for a URL: a JSON array of ids, "
+                       + "answered with the products found in that order plus the ids that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lookup done, possibly with missing ids",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = ProductLookup.class))),
+            @ApiResponse(responseCode = "400", description = "No ids, or more than " + MAX_LOOKUP_SIZE, 
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<?> lookupProductsByBody(@RequestBody List<String> ids) {
+        return lookupProducts(ids);
+    }
+
+    @GetMapping(value = "/by-price", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Get products ordered by price", 
+               description = "One keyset page of products ordered by price (ties by id), optionally limited to a "
+                       + "price range; products without a price are left out")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved page of products",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = ProductPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid price, order, cursor or page size", 
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<?> getProductsByPrice(
+            @Parameter(description = "lowest price, inclusive, e.g. 3.50 or $3.50")
+            @RequestParam(required = false) String min,
+            @Parameter(description = "highest price, inclusive")
+            @RequestParam(required = false) String max,
+            @Parameter(description = "asc (default) or desc")
+            @RequestParam(defaultValue = "asc") String order,
+            @Parameter(description = "page size, 1 to " + MAX_PAGE_SIZE)
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "nextCursor value of the previous page")
+            @RequestParam(required = false) String cursor) {
+        Long minPrice = Product.toMinorUnits(min);
+        Long maxPrice = Product.toMinorUnits(max);
+        if (min != null && minPrice == null) {
+            return badRequest("min", "min must be a price such as 10.00 or $10.00");
+        }
+        if (max != null && maxPrice == null) {
+            return badRequest("max", "max must be a price such as 10.00 or $10.00");
+        }
+        if (!"asc".equals(order) && !"desc".equals(order)) {
+            return badRequest("order", "order must be asc or desc");
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            return badRequest("limit", "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            ProductPage<Product> page = productService.findPageByPrice(minPrice, maxPrice, "desc".equals(order), cursor,
+                    pageSize);
+            return ResponseEntity.ok().eTag(ProductETags.of(page.getItems(), page.getNextCursor())).body(page);
+        } catch (IllegalArgumentException e) {
+            return badRequest("cursor", e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/cheapest", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Get the cheapest products", 
+               description = "The n lowest-priced products, cheapest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid count", 
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<?> getCheapestProducts(
+            @Parameter(description = "number of products, 1 to " + MAX_PAGE_SIZE)
+            @RequestParam(defaultValue = "10") int n) {
+        if (n < 1 || n > MAX_PAGE_SIZE) {
+            return badRequest("n", "n must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Product> products = productService.findCheapest(n);
+        return ResponseEntity.ok().eTag(ProductETags.of(products, null)).body(products);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all products", 
+               description = "Streams the whole catalog as newline-delimited JSON, one product per line "
+                       + "in the products.txt shape; memory use does not grow with catalog size")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catalog streamed",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = out -> productService.exportAll(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(body);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream catalog changes", 
+               description = "Server-sent events, one per committed create, update or delete (id, version, "
+                       + "operation). Reconnecting with Last-Event-ID replays missed events; a reset event means "
+                       + "they are no longer available and the catalog must be reloaded. A client that falls too "
+                       + "far behind is disconnected")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
             @ApiResponse(responseCode = "500", description = "Internal server error", 
                     content = @Content)
     })
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.findAll();
+    public SseEmitter streamChanges(
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId,
+            @Parameter(description = "resume position for clients that cannot send the Last-Event-ID header")
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        SseEmitter emitter = new SseEmitter();
+        ProductChangeFeed.Subscription subscription =
+                productChangeFeed.subscribe(lastEventId != null ? lastEventId : lastEventIdParam);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        Thread.ofVirtual().name("product-changes").start(() -> pumpChanges(subscription, emitter));
+        return emitter;
+    }
+
+    @GetMapping(value = "/search", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Search products by description", 
+               description = "Case-insensitive substring search on product description, ordered by id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching products, possibly none",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Missing or blank search text", 
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<?> searchProducts(
+            @Parameter(description = "text to look for in the description")
+            @RequestParam(required = false) String q) {
+        if (q == null || q.isBlank()) {
+            return badRequest("q", "search text is required");
+        }
+        List<Product> products = productService.findByDescContaining(q);
         return ResponseEntity.ok(products);
     }
 
-    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/{id}", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ApiMediaTypes.APPLICATION_SMILE_VALUE })
     @Operation(summary = "Get product by ID", 
                description = "Retrieves a specific product by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved product",
                     content = @Content(mediaType = "application/json", 
                     schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "304", description = "If-None-Match matched; product unchanged", 
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", 
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found", 
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error", 
                     content = @Content)
     })
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        Product product = productService.findById(id);
-        if (product == Product.EMPTY) {
+    public ResponseEntity<?> getProductById(@PathVariable String id,
+            @Parameter(description = "comma-separated product fields to return; id is always included")
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (fields != null) {
+            try {
+                Map<String, Object> row = productService.findFieldsById(id, fields);
+                return row.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(row);
+            } catch (IllegalArgumentException e) {
+                return badRequest("fields", e.getMessage());
+            }
+        }
+        MediaType binary = ApiMediaTypes.preferredBinary(accept);
+        if (binary != null) {
+            // the byte cache holds JSON only; binary clients get the cached entity encoded as asked
+            Product product = productService.findById(id);
+            if (product == Product.EMPTY) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().eTag(ProductETags.encoded(ProductETags.of(product), binary))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(product);
+        }
+        // already-encoded bytes: a hot product is written without touching the entity or Jackson
+        ProductJson product = productService.findJsonById(id);
+        if (product == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(product);
+        return encodedJson(ProductETags.of(product.getId(), product.getVersion()), product.getJson(),
+                product.getGzip(), acceptEncoding, ifNoneMatch);
     }
 
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, 
-                 produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                         ApiMediaTypes.APPLICATION_SMILE_VALUE }, 
+                 produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                         ApiMediaTypes.APPLICATION_SMILE_VALUE })
     @Operation(summary = "Create a new product", 
                description = "Creates a new product in the system")
     @ApiResponses(value = {
@@ -98,14 +375,45 @@ public class ProductController {
         }
         
         Product savedProduct = productService.saveOne(product);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedProduct);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ProductETags.of(savedProduct)).body(savedProduct);
+    }
+
+    @PostMapping(value = "/batch",
+                 consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                         ApiMediaTypes.APPLICATION_SMILE_VALUE }, 
+                 produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                         ApiMediaTypes.APPLICATION_SMILE_VALUE })
+    @Operation(summary = "Create products in bulk", 
+               description = "Validates each product and inserts the valid ones in chunked, JDBC-batched "
+                       + "transactions; the response reports created/invalid/failed per item in request order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item status",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = ProductBatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Empty batch or more than " + MAX_BATCH_SIZE + " products", 
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", 
+                    content = @Content)
+    })
+    public ResponseEntity<?> createProducts(@RequestBody List<Product> products) {
+        if (products == null || products.isEmpty()) {
+            return badRequest("products", "at least one product is required");
+        }
+        if (products.size() > MAX_BATCH_SIZE) {
+            return badRequest("products", "at most " + MAX_BATCH_SIZE + " products per request");
+        }
+        ProductBatchResult result = productBatchService.createAll(products);
+        return ResponseEntity.ok(result);
     }
 
     @PutMapping(value = "/{id}", 
-                consumes = MediaType.APPLICATION_JSON_VALUE, 
-                produces = MediaType.APPLICATION_JSON_VALUE)
+                consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                        ApiMediaTypes.APPLICATION_SMILE_VALUE }, 
+                produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                        ApiMediaTypes.APPLICATION_SMILE_VALUE })
     @Operation(summary = "Update an existing product", 
-               description = "Updates an existing product by its ID")
+               description = "Updates an existing product by its ID; with If-Match, or a version in the body, "
+                       + "only if it is still at that version")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully",
                     content = @Content(mediaType = "application/json", 
@@ -114,10 +422,15 @@ public class ProductController {
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid input - validation errors", 
                     content = @Content),
+            @ApiResponse(responseCode = "409", description = "Body version does not match the current version", 
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version", 
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error", 
                     content = @Content)
     })
     public ResponseEntity<?> updateProduct(@PathVariable String id, 
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                            @Valid @RequestBody Product product,
                                            BindingResult result) {
         // Check for validation errors
@@ -129,29 +442,177 @@ public class ProductController {
             return ResponseEntity.badRequest().body(errors);
         }
         
-        Product updatedProduct = productService.updateProduct(id, product);
+        Product updatedProduct;
+        if (ifMatch == null && product.getVersion() != null) {
+            // a version in the body is the client's optimistic lock token
+            try {
+                updatedProduct = productService.updateProduct(id, product, product.getVersion());
+            } catch (OptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        } else if (ifMatch == null) {
+            updatedProduct = productService.updateProduct(id, product);
+        } else {
+            try {
+                updatedProduct = productService.updateProduct(id, product, ProductETags.expectedVersion(ifMatch, id));
+            } catch (IllegalArgumentException | OptimisticLockingFailureException e) {
+                return preconditionFailed();
+            }
+            if (updatedProduct == Product.EMPTY) {
+                // no current representation can match an If-Match
+                return preconditionFailed();
+            }
+        }
         if (updatedProduct == Product.EMPTY) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(updatedProduct);
+        return ResponseEntity.ok().eTag(ProductETags.of(updatedProduct)).body(updatedProduct);
     }
 
     @DeleteMapping(value = "/{id}")
     @Operation(summary = "Delete a product", 
-               description = "Deletes a product by its ID")
+               description = "Deletes a product by its ID; with If-Match only if it is still at that version")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Product deleted successfully",
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found", 
                     content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version", 
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error", 
                     content = @Content)
     })
-    public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
+    public ResponseEntity<Void> deleteProduct(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            try {
+                if (!productService.deleteProduct(id, ProductETags.expectedVersion(ifMatch, id))) {
+                    return preconditionFailed();
+                }
+            } catch (IllegalArgumentException | OptimisticLockingFailureException e) {
+                return preconditionFailed();
+            }
+            return ResponseEntity.noContent().build();
+        }
         boolean deleted = productService.deleteProduct(id);
         if (!deleted) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.noContent().build();
     }
+
+    // the snapshot's pre-encoded array, same bytes for every reader until the next rebuild
+    private ResponseEntity<byte[]> catalogResponse(ProductCatalog catalog, String acceptEncoding,
+            String ifNoneMatch) {
+        return encodedJson(catalog.getEtag(), catalog.getJson(), catalog.getGzip(), acceptEncoding, ifNoneMatch);
+    }
+
+    // pre-encoded JSON, gzipped when the client takes it; the gzip body has its own tag, and an
+    // If-None-Match naming either encoding of this version is answered 304 before any body is written
+    private static ResponseEntity<byte[]> encodedJson(String etag, byte[] json, byte[] gzip, String acceptEncoding,
+            String ifNoneMatch) {
+        boolean gzipped = gzip != null && acceptsGzip(acceptEncoding);
+        String tag = gzipped ? ProductETags.gzip(etag) : etag;
+        if (ProductETags.noneMatchHits(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(tag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT);
+        if (gzipped) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        return response.body(json);
+    }
+
+    private ResponseEntity<?> lookupProducts(List<String> ids) {
+        List<String> wanted = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (id != null && !id.isBlank()) {
+                wanted.add(id.trim());
+            }
+        }
+        if (wanted.isEmpty() || wanted.size() > MAX_LOOKUP_SIZE) {
+            return badRequest("ids", "between 1 and " + MAX_LOOKUP_SIZE + " product ids are required");
+        }
+        return ResponseEntity.ok(productService.findByIds(wanted));
+    }
+
+    private ResponseEntity<?> getProductChanges(String changedSince, Integer limit) {
+        int pageSize = limit == null ? MAX_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            return badRequest("limit", "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            return ResponseEntity.ok(productService.findChangedSince(changedSince, pageSize));
+        } catch (IllegalArgumentException e) {
+            return badRequest("changedSince", e.getMessage());
+        }
+    }
+
+    // sparse responses are projections, not versioned Products, so they carry no ETag
+    private ResponseEntity<?> getProductFields(String fields, Integer limit, String cursor) {
+        try {
+            if (limit == null && cursor == null) {
+                return ResponseEntity.ok(productService.findAllFields(fields));
+            }
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            if (pageSize < 1) {
+                return badRequest("limit", "limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            return ResponseEntity.ok(productService.findPageFields(fields, cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage().startsWith("unknown field") ? "fields" : "cursor", e.getMessage());
+        }
+    }
+
+    // runs until the client goes away or is dropped for falling behind; an idle stream gets keep-alives
+    private static void pumpChanges(ProductChangeFeed.Subscription subscription, SseEmitter emitter) {
+        try {
+            while (!subscription.isClosed()) {
+                ProductChangeEvent event = subscription.poll();
+                if (event != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(event.getEventId())
+                            .name(event.getOperation().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                } else if (!subscription.isClosed()) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // client disconnected or the emitter already timed out
+            subscription.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscription.close();
+            emitter.complete();
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private <T> ResponseEntity<T> preconditionFailed() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    private ResponseEntity<Map<String, String>> badRequest(String field, String message) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put(field, message);
+        return ResponseEntity.badRequest().body(errors);
+    }
 }
@@ -0,0 +1,136 @@
+package com.anr.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+
+import com.anr.localmdb.model.Product;
+
+/**
+ * Strong entity tags derived from Product.version, so a tag changes exactly when the row does and
+ * can be compared without serializing the body
+ *
+ * single product: "&lt;id&gt;-v&lt;version&gt;"; lists: a digest over every id and version in order.
+ * Other representations of the same state carry the tag with a mark appended: "-gz" for the
+ * gzip-encoded JSON body, "-&lt;subtype&gt;" for CBOR and Smile bodies
+ *
+ * @author amitr
+ */
+final class ProductETags {
+
+    private static final String VERSION_MARK = "-v";
+    private static final String GZIP_MARK = "-gz";
+    private static final List<String> REPRESENTATION_MARKS = List.of(GZIP_MARK,
+            "-" + MediaType.APPLICATION_CBOR.getSubtype(), "-" + ApiMediaTypes.APPLICATION_SMILE.getSubtype());
+
+    private ProductETags() {
+    }
+
+    static String of(Product product) {
+        return of(product.getId(), versionOf(product));
+    }
+
+    static String of(String id, long version) {
+        return "\"" + id + VERSION_MARK + version + "\"";
+    }
+
+    static String of(List<Product> products, String suffix) {
+        MessageDigest digest = sha256();
+        for (Product product : products) {
+            digest.update((product.getId() + VERSION_MARK + versionOf(product) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        if (suffix != null) {
+            digest.update(suffix.getBytes(StandardCharsets.UTF_8));
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * @return the tag of the gzip-encoded body of the representation tagged tag
+     */
+    static String gzip(String tag) {
+        return mark(tag, GZIP_MARK);
+    }
+
+    /**
+     * @return the tag of the body encoded as type, for the state whose JSON body is tagged tag
+     */
+    static String encoded(String tag, MediaType type) {
+        return MediaType.APPLICATION_JSON.equalsTypeAndSubtype(type) ? tag : mark(tag, "-" + type.getSubtype());
+    }
+
+    /**
+     * whether an If-None-Match value names tag or its gzip variant, so a client holding either
+     * encoding of the current version is answered 304 whichever one it asks for now; compared
+     * weakly, as RFC 9110 has it for If-None-Match
+     */
+    static boolean noneMatchHits(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String gzip = gzip(tag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || value.equals(tag) || value.equals(gzip)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * version carried by an If-Match value for the given product id
+     *
+     * @return the version, or null when the tag is "*" (any current representation)
+     * @throws IllegalArgumentException when the tag is weak, malformed or names another product
+     */
+    static Long expectedVersion(String ifMatch, String id) {
+        String tag = ifMatch.trim();
+        if ("*".equals(tag)) {
+            return null;
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match must be a strong entity tag");
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        for (String mark : REPRESENTATION_MARKS) {
+            if (value.endsWith(mark)) {
+                value = value.substring(0, value.length() - mark.length());
+                break;
+            }
+        }
+        int mark = value.lastIndexOf(VERSION_MARK);
+        if (mark < 0 || !value.substring(0, mark).equals(id)) {
+            throw new IllegalArgumentException("If-Match does not refer to product " + id);
+        }
+        try {
+            return Long.valueOf(value.substring(mark + VERSION_MARK.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match does not carry a product version", e);
+        }
+    }
+
+    private static String mark(String tag, String mark) {
+        return tag.substring(0, tag.length() - 1) + mark + "\"";
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() == null ? 0L : product.getVersion();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
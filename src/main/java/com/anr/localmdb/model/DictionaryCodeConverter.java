@@ -0,0 +1,36 @@
+package com.anr.localmdb.model;
+
+import com.anr.common.ValueDictionary;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a low-cardinality String attribute as its integer code in the value dictionary and reads
+ * it back as the canonical instance, so equal values across rows share one String. Created by
+ * Hibernate through the Spring bean container
+ *
+ * Hibernate also converts query parameters here, possibly in the middle of a flush, so lookups are
+ * read-only: writers register the values of an entity before its transaction starts
+ * ({@link DictionaryCodeListener} checks they did), and a parameter naming a value never stored
+ * gets a code no row holds
+ */
+@Converter
+public class DictionaryCodeConverter implements AttributeConverter<String, Integer> {
+
+    private final ValueDictionary dictionary;
+
+    public DictionaryCodeConverter(ValueDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        return dictionary.find(value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer code) {
+        return dictionary.value(code);
+    }
+}
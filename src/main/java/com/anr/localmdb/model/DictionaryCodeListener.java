@@ -0,0 +1,70 @@
+package com.anr.localmdb.model;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.Convert;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.anr.common.ValueDictionary;
+
+/**
+ * Checks that the values of an entity's dictionary-encoded attributes (those converted by
+ * {@link DictionaryCodeConverter}) are in the value dictionary before it is inserted or updated.
+ * Writers register them ahead of their transaction (see {@link #encodedValues(Object)}); adding a
+ * value from here would need a second connection in the middle of a flush, so a value nobody
+ * registered fails the write instead of being stored as a code no row resolves. Instantiated
+ * through Hibernate's Spring bean container, like ProductChangeListener
+ */
+public class DictionaryCodeListener {
+
+    private static final ClassValue<List<Field>> ENCODED_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                Convert convert = field.getAnnotation(Convert.class);
+                if (convert != null && convert.converter() == DictionaryCodeConverter.class) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return List.copyOf(fields);
+        }
+    };
+
+    @Autowired
+    private ObjectProvider<ValueDictionary> dictionary;
+
+    /**
+     * @return the values of the entity's dictionary-encoded attributes, nulls included
+     */
+    public static List<String> encodedValues(Object entity) {
+        List<Field> fields = ENCODED_FIELDS.get(entity.getClass());
+        List<String> values = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            try {
+                values.add((String) field.get(entity));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return values;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void checkRegistered(Object entity) {
+        for (String value : encodedValues(entity)) {
+            if (value != null && dictionary.getObject().find(value) == ValueDictionary.ABSENT) {
+                throw new IllegalStateException("dictionary value '" + value
+                        + "' was not registered before the write");
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.anr.localmdb.model;
+
+import com.anr.common.ValueDictionary;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * One entry of the value dictionary behind the dictionary-encoded columns (see
+ * {@link DictionaryCodeConverter}): rows store the code, this table the value once. Entries are
+ * only ever added, so a code never changes meaning; read and written through
+ * {@link ValueDictionary}, mapped here for the schema
+ */
+@Entity
+@Table(name = ValueDictionary.TABLE)
+public class DictionaryValue {
+
+    @Id
+    @Column(name = "code", nullable = false)
+    private Integer code;
+
+    @Column(name = "dictionary_value", nullable = false, unique = true, length = ValueDictionary.MAX_VALUE_LENGTH)
+    private String value;
+
+    protected DictionaryValue() {
+    }
+
+    public Integer getCode() {
+        return code;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
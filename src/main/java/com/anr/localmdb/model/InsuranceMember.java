@@ -5,24 +5,49 @@ import java.util.List;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
+/**
+ * Member aggregate: member -> policies -> plans. Both collections are lazy and batch-fetched, so a
+ * query loads only what its use case asks for; the {@value #WITH_POLICIES} graph joins the
+ * policies in, and plans follow in one IN query per {@value #FETCH_BATCH_SIZE} policies. Policies
+ * and both collections are also kept in the second-level cache, so a warm member read is the
+ * member row alone
+ */
 @Entity
-@Table(name = "insurance_members")
+@Table(name = "insurance_members", indexes = @Index(name = "idx_insurance_members_dob",
+        columnList = "date_of_birth, id"))
+@NamedEntityGraph(name = InsuranceMember.WITH_POLICIES, attributeNodes = @NamedAttributeNode("policies"))
 @JsonInclude(Include.NON_NULL)
 public class InsuranceMember {
 
+    public static final String WITH_POLICIES = "InsuranceMember.policies";
+    // collections initialized per IN query when walking a list of members or policies
+    public static final int FETCH_BATCH_SIZE = 50;
+    // second-level cache region of the member -> policy id lists
+    public static final String POLICIES_CACHE_REGION = "memberPolicies";
+
+    // _id and dob: field names of the enrollment documents (see SampleMemberRecord.json)
     @Id
     @Column(name = "id", nullable = false, length = 50)
+    @JsonAlias("_id")
     private String id;
     
     @Column(name = "party_id", length = 50)
@@ -36,9 +61,12 @@ public class InsuranceMember {
     
     @Temporal(TemporalType.DATE)
     @Column(name = "date_of_birth")
+    @JsonAlias("dob")
     private Date dateOfBirth;
     
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @BatchSize(size = FETCH_BATCH_SIZE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = POLICIES_CACHE_REGION)
     private List<Policy> policies;
 
     @Override
@@ -0,0 +1,89 @@
+package com.anr.localmdb.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+/**
+ * Document-mode storage of a member aggregate: the whole member, policies and plans encoded into
+ * one column, as the enrollment documents were kept before the move to tables. The member columns
+ * next to it are copies kept for lookups - id, names and date of birth are indexed the way the
+ * relational table is queried - and are what summaries read, so those never decode a document
+ */
+@Entity
+@Table(name = "member_documents", indexes = {
+        @Index(name = "idx_member_documents_dob", columnList = "date_of_birth, id"),
+        @Index(name = "idx_member_documents_firstname", columnList = "firstname, id"),
+        @Index(name = "idx_member_documents_lastname", columnList = "lastname, firstname, id") })
+public class MemberDocument {
+
+    // upper bound of an encoded aggregate; a member with hundreds of policies stays well below it
+    public static final int MAX_DOCUMENT_BYTES = 1_048_576;
+
+    @Id
+    @Column(name = "id", nullable = false, length = 50)
+    private String id;
+
+    @Column(name = "party_id", length = 50)
+    private String partyId;
+
+    @Column(name = "firstname", length = 100)
+    private String firstname;
+
+    @Column(name = "lastname", length = 100)
+    private String lastname;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "date_of_birth")
+    private Date dateOfBirth;
+
+    @Column(name = "document", nullable = false, length = MAX_DOCUMENT_BYTES)
+    private byte[] document;
+
+    protected MemberDocument() {
+    }
+
+    public MemberDocument(InsuranceMember member, byte[] document) {
+        this.id = member.getId();
+        this.partyId = member.getPartyId();
+        this.firstname = member.getFirstname();
+        this.lastname = member.getLastname();
+        this.dateOfBirth = member.getDateOfBirth();
+        this.document = document;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberDocument [id=" + id + ", bytes=" + (document == null ? 0 : document.length) + "]";
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getPartyId() {
+        return partyId;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public Date getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public byte[] getDocument() {
+        return document;
+    }
+}
@@ -1,25 +1,37 @@
 package com.anr.localmdb.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.Convert;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.anr.common.StringPool;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
+/**
+ * A plan definition, stored once per planDefinitionId; policies refer to it by id (see
+ * Policy#getPlanDefinitionIds) and member reads resolve the details from PlanDefinitionCache.
+ * segment, planFamily, coverageType and status are dictionary-encoded and canonical instances
+ */
 @Entity
-@Table(name = "plans")
+@Table(name = "plan_definitions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Plan.CACHE_REGION)
+@EntityListeners(DictionaryCodeListener.class)
 @JsonInclude(Include.NON_NULL)
 public class Plan {
+
+    // second-level cache region; bulk reads by id list go through PlanDefinitionCache instead
+    public static final String CACHE_REGION = "plan";
     
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    @Column(name = "id")
-    private Long id;
-    
     @Column(name = "plan_definition_id")
     private Integer planDefinitionId;
     
@@ -29,16 +41,20 @@ public class Plan {
     @Column(name = "plan_number", length = 50)
     private String planNumber;
     
-    @Column(name = "segment", length = 100)
+    @Convert(converter = DictionaryCodeConverter.class)
+    @Column(name = "segment_code")
     private String segment;
     
-    @Column(name = "plan_family", length = 100)
+    @Convert(converter = DictionaryCodeConverter.class)
+    @Column(name = "plan_family_code")
     private String planFamily;
     
-    @Column(name = "coverage_type", length = 50)
+    @Convert(converter = DictionaryCodeConverter.class)
+    @Column(name = "coverage_type_code")
     private String coverageType;
     
-    @Column(name = "status", length = 50)
+    @Convert(converter = DictionaryCodeConverter.class)
+    @Column(name = "status_code")
     private String status;
 
     @Override
@@ -47,14 +63,6 @@ public class Plan {
                 + planNumber + "]";
     }
 
-    public Long getId() {
-        return id;
-    }
-
-    public void setId(Long id) {
-        this.id = id;
-    }
-
     public Integer getPlanDefinitionId() {
         return planDefinitionId;
     }
@@ -84,7 +92,7 @@ public class Plan {
     }
 
     public void setSegment(String segment) {
-        this.segment = segment;
+        this.segment = StringPool.canonical(segment);
     }
 
     public String getPlanFamily() {
@@ -92,7 +100,7 @@ public class Plan {
     }
 
     public void setPlanFamily(String planFamily) {
-        this.planFamily = planFamily;
+        this.planFamily = StringPool.canonical(planFamily);
     }
 
     public String getCoverageType() {
@@ -100,7 +108,7 @@ public class Plan {
     }
 
     public void setCoverageType(String coverageType) {
-        this.coverageType = coverageType;
+        this.coverageType = StringPool.canonical(coverageType);
     }
 
     public String getStatus() {
@@ -108,6 +116,6 @@ public class Plan {
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        this.status = StringPool.canonical(status);
     }
 }
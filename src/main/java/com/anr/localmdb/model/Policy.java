@@ -1,25 +1,50 @@
 package com.anr.localmdb.model;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.CascadeType;
+import jakarta.persistence.Convert;
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Transient;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.anr.common.StringPool;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
 @Entity
-@Table(name = "policies")
+// policy periods: "in force on date X" is a range on the start date, with the expiry date and id
+// read from the index itself rather than from the table rows
+@Table(name = "policies", indexes = @Index(name = "idx_policies_period",
+        columnList = "policy_start_date, policy_expiry_date, policy_id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Policy.CACHE_REGION)
+@EntityListeners(DictionaryCodeListener.class)
 @JsonInclude(Include.NON_NULL)
 public class Policy {
+
+    // second-level cache regions: policies, and their plan definition id lists
+    public static final String CACHE_REGION = "policy";
+    public static final String PLANS_CACHE_REGION = "policyPlans";
     
     @Id
     @Column(name = "policy_id", nullable = false, length = 50)
@@ -28,10 +53,13 @@ public class Policy {
     @Column(name = "hcc_id", length = 50)
     private String hccID;
     
-    @Column(name = "group_name", length = 50)
+    // group and division repeat across policies: stored as dictionary codes, held as canonical instances
+    @Convert(converter = DictionaryCodeConverter.class)
+    @Column(name = "group_name_code")
     private String group;
     
-    @Column(name = "division", length = 50)
+    @Convert(converter = DictionaryCodeConverter.class)
+    @Column(name = "division_code")
     private String division;
     
     @Temporal(TemporalType.DATE)
@@ -42,7 +70,18 @@ public class Policy {
     @Column(name = "policy_expiry_date")
     private Date policyExpiryDate;
     
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    // references into plan_definitions - a plan shared by many policies is stored once
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "policy_plans", joinColumns = @JoinColumn(name = "policy_id"))
+    @OrderColumn(name = "plan_order")
+    @Column(name = "plan_definition_id", nullable = false)
+    @BatchSize(size = InsuranceMember.FETCH_BATCH_SIZE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = PLANS_CACHE_REGION)
+    @JsonIgnore
+    private List<Integer> planDefinitionIds;
+
+    // resolved from the referenced definitions on read, not persisted with the policy
+    @Transient
     private List<Plan> plans;
 
     @Override
@@ -71,7 +110,7 @@ public class Policy {
     }
 
     public void setGroup(String group) {
-        this.group = group;
+        this.group = StringPool.canonical(group);
     }
 
     public String getDivision() {
@@ -79,15 +118,34 @@ public class Policy {
     }
 
     public void setDivision(String division) {
-        this.division = division;
+        this.division = StringPool.canonical(division);
     }
 
     public List<Plan> getPlans() {
         return plans;
     }
 
+    /**
+     * also points the policy at the definitions of the given plans; the definitions themselves are
+     * saved separately
+     */
     public void setPlans(List<Plan> plans) {
         this.plans = plans;
+        List<Integer> ids = null;
+        if (plans != null) {
+            ids = new ArrayList<>(plans.size());
+            for (Plan plan : plans) {
+                ids.add(plan.getPlanDefinitionId());
+            }
+        }
+        // resolving the plans of a loaded policy must not replace its persistent collection
+        if (!Objects.equals(ids, planDefinitionIds)) {
+            this.planDefinitionIds = ids;
+        }
+    }
+
+    public List<Integer> getPlanDefinitionIds() {
+        return planDefinitionIds;
     }
 
     public Date getPolicyStartDate() {
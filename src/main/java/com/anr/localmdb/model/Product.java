@@ -1,7 +1,13 @@
 package com.anr.localmdb.model;
 
+import java.math.BigDecimal;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.Version;
@@ -9,11 +15,19 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 
 @Entity
-@Table(name = "products")
+@EntityListeners(ProductChangeListener.class)
+// (price_minor, id) serves price range filters and price-ordered keyset pages straight from the index;
+// change_seq serves "changed since" reads
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price_minor", columnList = "price_minor, id"),
+        @Index(name = "idx_products_change_seq", columnList = "change_seq") })
 @JsonInclude(Include.NON_NULL)
 public class Product {
     public static final Product EMPTY = new ProductBuilder("00", "empty product").desc("no such product is defined")
@@ -38,10 +52,20 @@ public class Product {
     @Size(max = 20, message = "Price must not exceed 20 characters")
     @Column(name = "price", length = 20)
     private String price;
+
+    // price in minor units (cents), derived from price; the column the database sorts and filters on
+    @JsonProperty(access = Access.READ_ONLY)
+    @Column(name = "price_minor")
+    private Long priceMinor;
     
     @Version  // Enables optimistic locking - prevents lost updates
     private Long version;
 
+    // position of the latest write to this row in the product change sequence
+    @JsonIgnore
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     public Product() {
         super();
     }
@@ -51,6 +75,7 @@ public class Product {
         name = pb.name;
         description = pb.description;
         price = pb.price;
+        priceMinor = toMinorUnits(pb.price);
     }
 
     public String getId() {
@@ -83,6 +108,33 @@ public class Product {
 
     public void setPrice(String price) {
         this.price = price;
+        this.priceMinor = toMinorUnits(price);
+    }
+
+    public Long getPriceMinor() {
+        return priceMinor;
+    }
+
+    /**
+     * "$3.50" or "3.50" to 350; null when the text is not a price (left to the @Pattern check)
+     */
+    public static Long toMinorUnits(String price) {
+        if (price == null) {
+            return null;
+        }
+        String amount = price.startsWith("$") ? price.substring(1) : price;
+        try {
+            return new BigDecimal(amount).movePointRight(2).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // field access bypasses setPrice, so re-derive before every write
+    @PrePersist
+    @PreUpdate
+    void syncPriceMinor() {
+        priceMinor = toMinorUnits(price);
     }
 
     public Long getVersion() {
@@ -93,6 +145,14 @@ public class Product {
         this.version = version;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public static class ProductBuilder {
         String id;
         String name;
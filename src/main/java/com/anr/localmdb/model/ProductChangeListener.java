@@ -0,0 +1,28 @@
+package com.anr.localmdb.model;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.anr.common.ChangeSequence;
+
+/**
+ * Stamps Product.changeSeq on every insert and entity update; instantiated through Hibernate's
+ * Spring bean container, so the sequence bean is looked up on first use rather than while the
+ * entity manager factory is still being built
+ *
+ * Bulk JPQL updates bypass entity callbacks and set the column themselves.
+ */
+public class ProductChangeListener {
+
+    @Autowired
+    private ObjectProvider<ChangeSequence> productChangeSequence;
+
+    @PrePersist
+    @PreUpdate
+    void stamp(Product product) {
+        product.setChangeSeq(productChangeSequence.getObject().next());
+    }
+}
@@ -0,0 +1,42 @@
+package com.anr.localmdb.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Record of a deleted product, so that "changed since" readers learn about deletes; keyed by the
+ * change sequence of the delete, so a product deleted, re-created and deleted again leaves one
+ * tombstone per delete
+ */
+@Entity
+@Table(name = "product_tombstones", indexes = @Index(name = "idx_product_tombstones_product_id",
+        columnList = "product_id"))
+public class ProductTombstone {
+
+    @Id
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "product_id", nullable = false, length = 50)
+    private String productId;
+
+    public ProductTombstone() {
+        super();
+    }
+
+    public ProductTombstone(Long changeSeq, String productId) {
+        this.changeSeq = changeSeq;
+        this.productId = productId;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+}
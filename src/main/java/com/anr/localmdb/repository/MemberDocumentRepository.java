@@ -0,0 +1,65 @@
+package com.anr.localmdb.repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import com.anr.localmdb.model.MemberDocument;
+import com.anr.model.MemberSummary;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * The member queries of {@link MemberRepository} over member_documents; one row is one whole
+ * member, so there is nothing to join or batch-fetch
+ */
+@Repository
+public interface MemberDocumentRepository extends JpaRepository<MemberDocument, String>,
+        MemberDocumentRepositoryCustom {
+
+    // indexed columns only - no document is read
+    String SUMMARY = "SELECT new com.anr.model.MemberSummary(m.id, m.partyId, m.firstname, m.lastname, "
+            + "m.dateOfBirth) FROM MemberDocument m ";
+
+    @Query("SELECT m FROM MemberDocument m " + MemberRepository.BIRTHDAY_PAGE)
+    List<MemberDocument> findBirthdayRangePage(Date fromDate, Date toDate, Date afterDob, String afterId,
+            Limit limit);
+
+    @Query(SUMMARY + MemberRepository.BIRTHDAY_PAGE)
+    List<MemberSummary> findBirthdaySummaryPage(Date fromDate, Date toDate, Date afterDob, String afterId,
+            Limit limit);
+
+    // Cursor-backed streams of the whole range, pulled in fetch-size chunks; must be consumed inside
+    // a transaction and closed by the caller
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT m FROM MemberDocument m " + MemberRepository.BIRTHDAY_RANGE)
+    Stream<MemberDocument> streamBirthdayRange(Date fromDate, Date toDate);
+
+    // every document, for the policy period index or a scan by policy dates; policies have no columns here
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT m FROM MemberDocument m ORDER BY m.id")
+    Stream<MemberDocument> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + MemberRepository.BIRTHDAY_RANGE)
+    Stream<MemberSummary> streamBirthdaySummaries(Date fromDate, Date toDate);
+
+    @Query(SUMMARY + "WHERE m.firstname = :firstname ORDER BY m.id")
+    List<MemberSummary> findSummariesByFirstname(String firstname);
+
+    @Query(SUMMARY + "WHERE m.lastname = :lastname ORDER BY m.id")
+    List<MemberSummary> findSummariesByLastname(String lastname);
+
+    @Query(SUMMARY + "WHERE m.firstname = :firstname AND m.lastname = :lastname ORDER BY m.id")
+    List<MemberSummary> findSummariesByFirstnameAndLastname(String firstname, String lastname);
+}
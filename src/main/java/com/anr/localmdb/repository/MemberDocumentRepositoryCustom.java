@@ -0,0 +1,18 @@
+package com.anr.localmdb.repository;
+
+import java.util.List;
+
+import com.anr.localmdb.model.MemberDocument;
+
+/**
+ * Insert-only writes of new member documents, one INSERT per document sent as JDBC batches;
+ * save() would SELECT each document first because the ids are assigned
+ */
+public interface MemberDocumentRepositoryCustom {
+
+    /**
+     * inserts the documents, then detaches them so the persistence context does not grow with
+     * repeated calls in one transaction
+     */
+    void insertAll(List<MemberDocument> documents);
+}
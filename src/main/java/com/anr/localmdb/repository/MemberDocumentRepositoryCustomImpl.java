@@ -0,0 +1,27 @@
+package com.anr.localmdb.repository;
+
+import java.util.List;
+
+import com.anr.localmdb.model.MemberDocument;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * persist() never reads before writing; a duplicate id surfaces at the flush as a translated
+ * DataIntegrityViolationException
+ */
+public class MemberDocumentRepositoryCustomImpl implements MemberDocumentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<MemberDocument> documents) {
+        for (MemberDocument document : documents) {
+            entityManager.persist(document);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
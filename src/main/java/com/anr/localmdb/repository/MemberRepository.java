@@ -2,15 +2,39 @@ package com.anr.localmdb.repository;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.anr.localmdb.model.InsuranceMember;
+import com.anr.model.MemberSummary;
+import com.anr.model.PolicyPlanRow;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface MemberRepository extends JpaRepository<InsuranceMember, String> {
+public interface MemberRepository extends JpaRepository<InsuranceMember, String>, MemberRepositoryCustom {
+
+    // member columns only - no policy or plan rows are read
+    String SUMMARY = "SELECT new com.anr.model.MemberSummary(m.id, m.partyId, m.firstname, m.lastname, "
+            + "m.dateOfBirth) FROM InsuranceMember m ";
+    // birthday range in (dateOfBirth, id) order past a keyset position, on the date_of_birth index;
+    // the leading >= on dateOfBirth is what lets the database seek instead of scanning the OR
+    String BIRTHDAY_PAGE = "WHERE m.dateOfBirth BETWEEN :fromDate AND :toDate AND m.dateOfBirth >= :afterDob "
+            + "AND (m.dateOfBirth > :afterDob OR m.id > :afterId) ORDER BY m.dateOfBirth, m.id";
+    // ids, period and plan references of policies - no member, policy or plan entities are built
+    String POLICY_PLAN_ROW = "SELECT new com.anr.model.PolicyPlanRow(m.id, p.policyID, p.policyStartDate, "
+            + "p.policyExpiryDate, pd) FROM InsuranceMember m JOIN m.policies p LEFT JOIN p.planDefinitionIds pd ";
+    // a policy's rows together, in plan order
+    String POLICY_PLAN_ORDER = "ORDER BY m.id, p.policyID, index(pd)";
+    String BIRTHDAY_RANGE = "WHERE m.dateOfBirth BETWEEN :fromDate AND :toDate ORDER BY m.dateOfBirth, m.id";
 
     // JPA method name query - finds members by firstname
     List<InsuranceMember> findMembersByFirstname(String name);
@@ -18,7 +42,49 @@ public interface MemberRepository extends JpaRepository<InsuranceMember, String>
     // JPA method name query - finds members by lastname
     List<InsuranceMember> findMembersByLastname(String name);
 
-    // JPQL query - finds members within birthday range
-    @Query("SELECT m FROM InsuranceMember m WHERE m.dateOfBirth BETWEEN :fromDate AND :toDate")
+    // JPQL query - finds members within birthday range, policies joined in (plans are batch-fetched)
+    @EntityGraph(InsuranceMember.WITH_POLICIES)
+    @Query("SELECT m FROM InsuranceMember m WHERE m.dateOfBirth BETWEEN :fromDate AND :toDate ORDER BY m.id")
     List<InsuranceMember> findMembersWithinBirthdayRange(Date fromDate, Date toDate);
+
+    // Keyset pages - no collection fetch, so the limit is applied by the database; the caller
+    // batch-loads policies and plans for the page
+    @Query("SELECT m FROM InsuranceMember m " + BIRTHDAY_PAGE)
+    List<InsuranceMember> findBirthdayRangePage(Date fromDate, Date toDate, Date afterDob, String afterId,
+            Limit limit);
+
+    @Query(SUMMARY + BIRTHDAY_PAGE)
+    List<MemberSummary> findBirthdaySummaryPage(Date fromDate, Date toDate, Date afterDob, String afterId,
+            Limit limit);
+
+    // Cursor-backed streams of the whole range, pulled in fetch-size chunks; must be consumed inside
+    // a transaction and closed by the caller
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT m FROM InsuranceMember m " + BIRTHDAY_RANGE)
+    Stream<InsuranceMember> streamBirthdayRange(Date fromDate, Date toDate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + BIRTHDAY_RANGE)
+    Stream<MemberSummary> streamBirthdaySummaries(Date fromDate, Date toDate);
+
+    // policies in force on date, on the policy period index: started on or before it and not expired
+    // before it; no expiry date means open-ended, no start date means never in force
+    @Query(POLICY_PLAN_ROW + "WHERE p.policyStartDate <= :date AND (p.policyExpiryDate IS NULL "
+            + "OR p.policyExpiryDate >= :date) " + POLICY_PLAN_ORDER)
+    List<PolicyPlanRow> findPolicyPlansActiveOn(Date date);
+
+    // every policy that can ever be in force, for building the in-memory period index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(POLICY_PLAN_ROW + "WHERE p.policyStartDate IS NOT NULL " + POLICY_PLAN_ORDER)
+    Stream<PolicyPlanRow> streamPolicyPlans();
+
+    @Query(SUMMARY + "WHERE m.firstname = :firstname ORDER BY m.id")
+    List<MemberSummary> findSummariesByFirstname(String firstname);
+
+    @Query(SUMMARY + "WHERE m.lastname = :lastname ORDER BY m.id")
+    List<MemberSummary> findSummariesByLastname(String lastname);
+
+    @Query(SUMMARY + "WHERE m.firstname = :firstname AND m.lastname = :lastname ORDER BY m.id")
+    List<MemberSummary> findSummariesByFirstnameAndLastname(String firstname, String lastname);
 }
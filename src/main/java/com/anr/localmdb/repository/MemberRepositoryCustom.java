@@ -0,0 +1,18 @@
+package com.anr.localmdb.repository;
+
+import java.util.List;
+
+import com.anr.localmdb.model.InsuranceMember;
+
+/**
+ * Insert-only writes of new member aggregates; save() would SELECT each member and policy first
+ * because their keys are assigned, which also keeps the inserts from being JDBC-batched
+ */
+public interface MemberRepositoryCustom {
+
+    /**
+     * inserts the members with their policies and plan references, then detaches them so the
+     * persistence context does not grow with repeated calls in one transaction
+     */
+    void insertAll(List<InsuranceMember> members);
+}
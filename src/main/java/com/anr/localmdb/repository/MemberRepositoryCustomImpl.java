@@ -0,0 +1,33 @@
+package com.anr.localmdb.repository;
+
+import java.util.List;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import com.anr.localmdb.model.InsuranceMember;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * persist() cascades to the policies and never reads before writing; the flush sends the rows as
+ * batched INSERTs (hibernate.jdbc.batch_size, order_inserts), and a duplicate key surfaces here as
+ * a translated DataIntegrityViolationException; bulk inserts are not put into the second-level
+ * cache, which keeps what is actually being read
+ */
+public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<InsuranceMember> members) {
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        for (InsuranceMember member : members) {
+            entityManager.persist(member);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
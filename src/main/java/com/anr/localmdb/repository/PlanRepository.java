@@ -0,0 +1,10 @@
+package com.anr.localmdb.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.anr.localmdb.model.Plan;
+
+@Repository
+public interface PlanRepository extends JpaRepository<Plan, Integer> {
+}
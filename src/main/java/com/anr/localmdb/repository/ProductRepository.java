@@ -1,21 +1,91 @@
 package com.anr.localmdb.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.anr.localmdb.model.Product;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, String> {
+public interface ProductRepository extends JpaRepository<Product, String>, ProductRepositoryCustom {
 
     // JPA method name query - finds products by exact name match
     List<Product> findProductsByName(String name);
 
-    // JPQL query - finds products with description containing the text (case-insensitive)
-    @Query("SELECT p FROM Product p WHERE LOWER(p.description) LIKE LOWER(CONCAT('%', :text, '%'))")
+    // JPQL query - finds products with description containing the text (case-insensitive), in id
+    // order; the text is a LIKE literal, with \, % and _ escaped by a backslash
+    @Query("SELECT p FROM Product p WHERE LOWER(p.description) LIKE LOWER(CONCAT('%', :text, '%')) ESCAPE '\\' "
+            + "ORDER BY p.id")
     List<Product> findProductsWithDescriptionContaining(String text);
 
+    // Keyset pagination - seeks past the last id of the previous page on the primary key index
+    // instead of counting and skipping rows with OFFSET
+    List<Product> findByIdGreaterThanOrderByIdAsc(String afterId, Limit limit);
+
+    // Cursor-backed full-table stream for exports - rows are pulled from the open result set in
+    // fetch-size chunks instead of being materialized into a List; must be consumed inside a
+    // transaction and closed by the caller
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderedById();
+
+    // Single-statement writes - no SELECT/merge first; the caller interprets the affected-row count
+    // (0 means missing or, for the versioned forms, moved past the expected version)
+    // Bulk updates skip entity callbacks, so the caller supplies the change sequence
+    @Modifying
+    @Query("UPDATE Product p SET p.name = :name, p.description = :description, p.price = :price, "
+            + "p.priceMinor = :priceMinor, p.changeSeq = :changeSeq, p.version = p.version + 1 "
+            + "WHERE p.id = :id AND p.version = :version")
+    int updateIfVersion(String id, Long version, String name, String description, String price, Long priceMinor,
+            long changeSeq);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.name = :name, p.description = :description, p.price = :price, "
+            + "p.priceMinor = :priceMinor, p.changeSeq = :changeSeq, p.version = p.version + 1 WHERE p.id = :id")
+    int updateById(String id, String name, String description, String price, Long priceMinor, long changeSeq);
+
+    // the version an unconditional update just wrote; the row stays locked by that UPDATE until
+    // commit, so no other writer can have moved it on
+    @Query("SELECT p.version FROM Product p WHERE p.id = :id")
+    Long findVersionById(String id);
+
+    // Price-ordered keyset pages within [min, max] on the (price_minor, id) index; the leading
+    // >= / <= on priceMinor is what lets the database seek instead of scanning the OR
+    @Query("SELECT p FROM Product p WHERE p.priceMinor BETWEEN :min AND :max AND p.priceMinor >= :afterPrice "
+            + "AND (p.priceMinor > :afterPrice OR p.id > :afterId) ORDER BY p.priceMinor ASC, p.id ASC")
+    List<Product> findPriceRangeAscending(long min, long max, long afterPrice, String afterId, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.priceMinor BETWEEN :min AND :max AND p.priceMinor <= :beforePrice "
+            + "AND (p.priceMinor < :beforePrice OR p.id < :beforeId) ORDER BY p.priceMinor DESC, p.id DESC")
+    List<Product> findPriceRangeDescending(long min, long max, long beforePrice, String beforeId, Limit limit);
+
+    // cheapest-N - reads the first N entries of the price index
+    List<Product> findByPriceMinorNotNullOrderByPriceMinorAscIdAsc(Limit limit);
+
+    // rows written within (after, upTo] in change order, on the change_seq index
+    List<Product> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(long after, long upTo,
+            Limit limit);
+
+    @Query("SELECT COALESCE(MAX(p.changeSeq), 0) FROM Product p")
+    long maxChangeSeq();
+
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.id = :id AND p.version = :version")
+    int deleteIfVersion(String id, Long version);
+
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.id = :id")
+    int deleteWhereId(String id);
+
 }
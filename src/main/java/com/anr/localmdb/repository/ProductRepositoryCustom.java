@@ -0,0 +1,19 @@
+package com.anr.localmdb.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Limit;
+
+/**
+ * Column projections of Product for sparse fieldsets; rows come back as field -&gt; value maps
+ * built from tuples, so no entity is instantiated or attached to the persistence context
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * @param fields Product attribute names to select, in output order
+     * @param afterId keyset position; null starts from the first product
+     */
+    List<Map<String, Object>> findFieldsOrderedById(List<String> fields, String afterId, Limit limit);
+}
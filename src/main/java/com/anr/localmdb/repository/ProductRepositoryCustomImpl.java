@@ -0,0 +1,66 @@
+package com.anr.localmdb.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Limit;
+
+import com.anr.localmdb.model.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Criteria tuple queries selecting only the requested Product columns; field names are expected to
+ * be validated by the caller against Product's attributes
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsOrderedById(List<String> fields, String afterId, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> product = query.from(Product.class);
+
+        List<Selection<?>> columns = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            columns.add(product.get(field).alias(field));
+        }
+        query.multiselect(columns);
+        if (afterId != null) {
+            query.where(cb.greaterThan(product.get("id"), afterId));
+        }
+        query.orderBy(cb.asc(product.get("id")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        List<Tuple> tuples = typed.getResultList();
+
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                Object value = tuple.get(field);
+                // same NON_NULL rule as the full Product JSON
+                if (value != null) {
+                    row.put(field, value);
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
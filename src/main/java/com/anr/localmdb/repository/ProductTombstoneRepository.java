@@ -0,0 +1,36 @@
+package com.anr.localmdb.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.anr.localmdb.model.ProductTombstone;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+
+    // single INSERT - save() would SELECT first because the key is assigned
+    @Modifying
+    @Query("INSERT INTO ProductTombstone (changeSeq, productId) VALUES (:changeSeq, :productId)")
+    int insert(long changeSeq, String productId);
+
+    // deletes within (after, upTo] in change order, read off the primary key
+    List<ProductTombstone> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(long after,
+            long upTo, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(t.changeSeq), 0) FROM ProductTombstone t")
+    long maxChangeSeq();
+
+    // null when there are none
+    @Query("SELECT MIN(t.changeSeq) FROM ProductTombstone t")
+    Long minChangeSeq();
+
+    // range delete on the primary key - tombstones that fell out of the retention window
+    @Modifying
+    @Query("DELETE FROM ProductTombstone t WHERE t.changeSeq <= :upTo")
+    int deleteUpTo(long upTo);
+}
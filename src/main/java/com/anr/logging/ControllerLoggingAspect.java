@@ -45,7 +45,7 @@ public class ControllerLoggingAspect {
         // construct a logBuilder event
         SplunkEventBuilder bldr = new SplunkEventBuilder("Default-Api", "localhost", sourceChannel, transactionID);
         bldr.transactionType(TransactionType.Request);
-        sbutil.logInfo(transactionID, "start time:" + startTime);
+        sbutil.logInfo(transactionID, "start time:{}", startTime);
 
         // Execute with Resilience4j circuit breaker protection
         SBResponseModel response;
@@ -66,32 +66,32 @@ public class ControllerLoggingAspect {
             // Unwrap the original exception if it was wrapped
             Throwable originalException = e.getCause() != null ? e.getCause() : e;
             
-            sbutil.logError(transactionID, String.format("Circuit breaker fallback: (method: %s) %s", 
-                    methodName, sbutil.getRootCauseMessage(originalException)));
+            sbutil.logError(transactionID, "Circuit breaker fallback: (method: {}) {}", methodName,
+                    sbutil.getRootCauseMessage(originalException));
             sbutil.logStackTrace(transactionID, methodName, originalException);
 
             response = failures.getSampleFailureResponse(transactionID, sourceChannel, locale, field1, field2, originalException);
         }
 
-        String messageString = null;
+        // messages are only rendered, and the response only serialized for them, when INFO is on
+        long timeTaken = System.currentTimeMillis() - startTime;
         if (response == null) {
-            messageString = "null response for default-service";
+            sbutil.logInfo(transactionID, "null response for default-service; timetaken = {} ms", timeTaken);
         } else if (response.getErr() != null) {
-            StringBuilder errMsg = new StringBuilder();
-            errMsg.append(response.getErr().getMessage());
-            errMsg.append(SPACE);
-            errMsg.append(response.getErr().getTechMessage());
-            messageString = "Failure: " + errMsg.toString();
+            String messageString = "Failure: " + response.getErr().getMessage() + SPACE
+                    + response.getErr().getTechMessage();
             bldr.transactionType(TransactionType.Failure);
             bldr.addErrorMsg(messageString);
             bldr.errorCode("ERR-002");
+            if (sbutil.isInfoEnabled()) {
+                sbutil.logInfo(transactionID, "{}; timetaken = {} ms", messageString, timeTaken);
+            }
         } else {
-            messageString = "Success: " + gson.toJson(response);
             bldr.transactionType(TransactionType.Response);
+            if (sbutil.isInfoEnabled()) {
+                sbutil.logInfo(transactionID, "Success: {}; timetaken = {} ms", gson.toJson(response), timeTaken);
+            }
         }
-
-        messageString += "; timetaken = " + (System.currentTimeMillis() - startTime) + " ms";
-        sbutil.logInfo(transactionID, messageString);
         sbutil.logToSplunkOrSimilar(bldr.build(), startTime);
 
         return response;
@@ -0,0 +1,125 @@
+package com.anr.logging;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Renders the service's log lines - "[transmissionID = &lt;id&gt;] &lt;message&gt; (ts=&lt;timestamp&gt;)" -
+ * and timestamps, in yyyy-MM-dd HH:mm:ss.SSS, local time
+ *
+ * Messages take SLF4J-style {} placeholders and are assembled in a builder sized for the line, so
+ * it rarely grows. The timestamp's date and time of day are formatted once per second for the
+ * whole process, and only the milliseconds are appended each time. Nothing is kept per thread:
+ * with virtual threads every request runs on a new thread, and a per-thread buffer would be built
+ * for each line and then thrown away. Callers that check the level first allocate nothing when it
+ * is off
+ *
+ * @author amitr
+ */
+public final class LogFormat {
+
+    // DateTimeFormatter is immutable and thread-safe, unlike the SimpleDateFormat it replaces; the
+    // milliseconds are appended by hand
+    private static final DateTimeFormatter SECOND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private static final String PLACEHOLDER = "{}";
+    private static final String LINE_START = "[transmissionID = ";
+    private static final String LINE_ID_END = "] ";
+    private static final String LINE_END = " (ts=";
+    private static final String NEWLINE = System.lineSeparator();
+    // yyyy-MM-dd HH:mm:ss.SSS
+    private static final int TIMESTAMP_CHARS = 23;
+    // room for a typical argument's text; a longer one grows the builder once
+    private static final int ARGUMENT_CHARS = 16;
+    private static final int FIXED_CHARS = LINE_START.length() + LINE_ID_END.length() + LINE_END.length()
+            + TIMESTAMP_CHARS + 1 + NEWLINE.length();
+
+    // the last second formatted by any thread; replaced whole, so a reader never sees a second
+    // paired with another second's text
+    private static volatile FormattedSecond lastSecond = new FormattedSecond(Long.MIN_VALUE, null);
+
+    private LogFormat() {
+    }
+
+    /**
+     * @return the log line for the message with its placeholders replaced by args, in order; a
+     *         null or empty transactionID is left blank
+     */
+    public static String line(String transactionID, long epochMillis, String pattern, Object... args) {
+        StringBuilder line = new StringBuilder(FIXED_CHARS + length(transactionID) + length(pattern)
+                + ARGUMENT_CHARS * args.length);
+        line.append(LINE_START);
+        if (transactionID != null) {
+            line.append(transactionID);
+        }
+        line.append(LINE_ID_END);
+        appendMessage(line, pattern, args);
+        line.append(LINE_END);
+        appendTimestamp(line, epochMillis);
+        line.append(')').append(NEWLINE);
+        return line.toString();
+    }
+
+    /**
+     * @return epochMillis as yyyy-MM-dd HH:mm:ss.SSS, local time
+     */
+    public static String timestamp(long epochMillis) {
+        StringBuilder text = new StringBuilder(TIMESTAMP_CHARS);
+        appendTimestamp(text, epochMillis);
+        return text.toString();
+    }
+
+    private static void appendTimestamp(StringBuilder line, long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        FormattedSecond formatted = lastSecond;
+        if (formatted.second != epochSecond) {
+            // threads racing here format the same text; whichever is stored last is as good
+            formatted = new FormattedSecond(epochSecond, SECOND.format(Instant.ofEpochSecond(epochSecond)));
+            lastSecond = formatted;
+        }
+        int millis = (int) Math.floorMod(epochMillis, 1000L);
+        line.append(formatted.text).append('.');
+        if (millis < 100) {
+            line.append('0');
+        }
+        if (millis < 10) {
+            line.append('0');
+        }
+        line.append(millis);
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    // {} placeholders without an argument are kept as they are, arguments without one are dropped
+    private static void appendMessage(StringBuilder line, String pattern, Object[] args) {
+        if (pattern == null) {
+            line.append((String) null);
+            return;
+        }
+        int from = 0;
+        for (Object arg : args) {
+            int at = pattern.indexOf(PLACEHOLDER, from);
+            if (at < 0) {
+                break;
+            }
+            line.append(pattern, from, at).append(arg);
+            from = at + PLACEHOLDER.length();
+        }
+        line.append(pattern, from, pattern.length());
+    }
+
+    private static final class FormattedSecond {
+
+        final long second;
+        final String text;
+
+        FormattedSecond(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package com.anr.logging;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +19,6 @@ public class LogForwarder {
     private static final Logger logger = LoggerFactory.getLogger(LogForwarder.class);
     private static final String ERROR_TOKEN = "SplunkForwarder";
     private static final String INFO_MSG = "Failed to log this message to splunk";
-    private static final String DATE_FORMAT_WITH_MS = "yyyy-MM-dd HH:mm:ss.SSS";
 
     @Autowired
     private SplunkLogRecord logRecord;
@@ -43,7 +39,7 @@ public class LogForwarder {
     }
 
     private void logToConsole(SplunkLogRecord logRecord) {
-        String currTS = new SimpleDateFormat(DATE_FORMAT_WITH_MS).format(Calendar.getInstance().getTime());
+        String currTS = LogFormat.timestamp(System.currentTimeMillis());
         logRecord.setTimestamp(currTS);
         String logMsgString = gson.toJson(logRecord);
         if (StringUtils.isNotBlank(logMsgString)) {
@@ -0,0 +1,94 @@
+package com.anr.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A policy in force on the date asked about: who holds it and which plan definitions it covers,
+ * without any member, policy or plan details
+ */
+public class EligiblePolicy {
+
+    private String memberId;
+    private String policyId;
+    private List<Integer> planDefinitionIds;
+
+    public EligiblePolicy() {
+        super();
+    }
+
+    public EligiblePolicy(String memberId, String policyId, List<Integer> planDefinitionIds) {
+        this.memberId = memberId;
+        this.policyId = policyId;
+        this.planDefinitionIds = planDefinitionIds;
+    }
+
+    /**
+     * one EligiblePolicy per policy, from rows that keep each policy's plan references together
+     */
+    public static List<EligiblePolicy> fromRows(Iterator<PolicyPlanRow> rows) {
+        List<EligiblePolicy> policies = new ArrayList<>();
+        EligiblePolicy current = null;
+        while (rows.hasNext()) {
+            PolicyPlanRow row = rows.next();
+            if (current == null || !current.policyId.equals(row.getPolicyId())) {
+                current = new EligiblePolicy(row.getMemberId(), row.getPolicyId(), new ArrayList<>());
+                policies.add(current);
+            }
+            if (row.getPlanDefinitionId() != null) {
+                current.planDefinitionIds.add(row.getPlanDefinitionId());
+            }
+        }
+        return policies;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EligiblePolicy)) {
+            return false;
+        }
+        EligiblePolicy other = (EligiblePolicy) o;
+        return Objects.equals(memberId, other.memberId) && Objects.equals(policyId, other.policyId)
+                && Objects.equals(planDefinitionIds, other.planDefinitionIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(memberId, policyId, planDefinitionIds);
+    }
+
+    @Override
+    public String toString() {
+        return "EligiblePolicy [memberId=" + memberId + ", policyId=" + policyId + ", planDefinitionIds="
+                + planDefinitionIds + "]";
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(String memberId) {
+        this.memberId = memberId;
+    }
+
+    public String getPolicyId() {
+        return policyId;
+    }
+
+    public void setPolicyId(String policyId) {
+        this.policyId = policyId;
+    }
+
+    public List<Integer> getPlanDefinitionIds() {
+        return planDefinitionIds;
+    }
+
+    public void setPlanDefinitionIds(List<Integer> planDefinitionIds) {
+        this.planDefinitionIds = planDefinitionIds;
+    }
+}
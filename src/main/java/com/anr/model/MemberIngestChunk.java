@@ -0,0 +1,112 @@
+package com.anr.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * Outcome of one chunk of a member ingest: input lines firstLine to lastLine, committed together
+ */
+@JsonInclude(Include.NON_NULL)
+public class MemberIngestChunk {
+
+    private int chunk;
+    private long firstLine;
+    private long lastLine;
+    private int inserted;
+    private int failed;
+    private long millis;
+    private List<Failure> failures;
+
+    public MemberIngestChunk() {
+        super();
+    }
+
+    public MemberIngestChunk(int chunk, long firstLine) {
+        this.chunk = chunk;
+        this.firstLine = firstLine;
+    }
+
+    public void inserted(int count) {
+        inserted += count;
+    }
+
+    public void fail(long line, String id, String error) {
+        if (failures == null) {
+            failures = new ArrayList<>();
+        }
+        failures.add(new Failure(line, id, error));
+        failed++;
+    }
+
+    public void finish(long lastLine, long millis) {
+        this.lastLine = lastLine;
+        this.millis = millis;
+    }
+
+    public int getChunk() {
+        return chunk;
+    }
+
+    public long getFirstLine() {
+        return firstLine;
+    }
+
+    public long getLastLine() {
+        return lastLine;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getMembersPerSecond() {
+        return MemberIngestResult.perSecond(inserted, millis);
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * a member not inserted: the input line, its id when it could be read, and why
+     */
+    @JsonInclude(Include.NON_NULL)
+    public static class Failure {
+        private long line;
+        private String id;
+        private String error;
+
+        public Failure() {
+            super();
+        }
+
+        public Failure(long line, String id, String error) {
+            this.line = line;
+            this.id = id;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
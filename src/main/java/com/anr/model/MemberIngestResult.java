@@ -0,0 +1,53 @@
+package com.anr.model;
+
+/**
+ * Totals of a member ingest; per-chunk detail, including which members failed, is in the
+ * MemberIngestChunk reports
+ */
+public class MemberIngestResult {
+
+    private long lines;
+    private long inserted;
+    private long failed;
+    private int chunks;
+    private long millis;
+
+    public void add(MemberIngestChunk chunk) {
+        lines += chunk.getLastLine() - chunk.getFirstLine() + 1;
+        inserted += chunk.getInserted();
+        failed += chunk.getFailed();
+        chunks++;
+    }
+
+    public void finish(long millis) {
+        this.millis = millis;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getMembersPerSecond() {
+        return perSecond(inserted, millis);
+    }
+
+    static long perSecond(long count, long millis) {
+        return count * 1000 / Math.max(millis, 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.anr.model;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * A member's own columns without the policy/plan tree, selected directly by the lookups that only
+ * need to identify members
+ */
+@JsonInclude(Include.NON_NULL)
+public class MemberSummary {
+
+    private String id;
+    private String partyId;
+    private String firstname;
+    private String lastname;
+    private Date dateOfBirth;
+
+    public MemberSummary() {
+        super();
+    }
+
+    public MemberSummary(String id, String partyId, String firstname, String lastname, Date dateOfBirth) {
+        this.id = id;
+        this.partyId = partyId;
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPartyId() {
+        return partyId;
+    }
+
+    public void setPartyId(String partyId) {
+        this.partyId = partyId;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public void setFirstname(String firstname) {
+        this.firstname = firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public void setLastname(String lastname) {
+        this.lastname = lastname;
+    }
+
+    public Date getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(Date dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+}
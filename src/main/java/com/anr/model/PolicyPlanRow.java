@@ -0,0 +1,46 @@
+package com.anr.model;
+
+import java.util.Date;
+
+/**
+ * One plan reference of a policy with the policy's period, selected directly from policies and
+ * policy_plans; rows of a policy come together, in plan order. planDefinitionId is null for a
+ * policy without plans
+ */
+public class PolicyPlanRow {
+
+    private final String memberId;
+    private final String policyId;
+    private final Date startDate;
+    private final Date expiryDate;
+    private final Integer planDefinitionId;
+
+    public PolicyPlanRow(String memberId, String policyId, Date startDate, Date expiryDate,
+            Integer planDefinitionId) {
+        this.memberId = memberId;
+        this.policyId = policyId;
+        this.startDate = startDate;
+        this.expiryDate = expiryDate;
+        this.planDefinitionId = planDefinitionId;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public String getPolicyId() {
+        return policyId;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getExpiryDate() {
+        return expiryDate;
+    }
+
+    public Integer getPlanDefinitionId() {
+        return planDefinitionId;
+    }
+}
@@ -0,0 +1,83 @@
+package com.anr.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * Outcome of a bulk product create; items are reported in request order
+ */
+@JsonInclude(Include.NON_NULL)
+public class ProductBatchResult {
+
+    public static final String CREATED = "created";
+    public static final String INVALID = "invalid";
+    public static final String FAILED = "failed";
+
+    private int created;
+    private int failed;
+    private List<Item> items = new ArrayList<>();
+
+    public void add(Item item) {
+        items.add(item);
+        if (CREATED.equals(item.getStatus())) {
+            created++;
+        } else {
+            failed++;
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * result for the product at {@code index} of the request; errors maps field to message like the
+     * single-product create endpoint does
+     */
+    @JsonInclude(Include.NON_NULL)
+    public static class Item {
+        private int index;
+        private String id;
+        private String status;
+        private Map<String, String> errors;
+
+        public Item() {
+            super();
+        }
+
+        public Item(int index, String id, String status, Map<String, String> errors) {
+            this.index = index;
+            this.id = id;
+            this.status = status;
+            this.errors = errors;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Map<String, String> getErrors() {
+            return errors;
+        }
+    }
+}
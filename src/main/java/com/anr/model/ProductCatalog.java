@@ -0,0 +1,47 @@
+package com.anr.model;
+
+import java.util.List;
+
+import com.anr.localmdb.model.Product;
+
+/**
+ * Immutable copy of the whole catalog in id order, together with its JSON array encoding (and
+ * gzip form when compression is enabled) and an entity tag over those bytes, so GET
+ * /api/v1/products can be answered without a query or Jackson
+ */
+public final class ProductCatalog {
+
+    private final List<Product> products;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    public ProductCatalog(List<Product> products, byte[] json, byte[] gzip, String etag) {
+        this.products = List.copyOf(products);
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * @return the gzip-compressed JSON, or null when compression is disabled
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * strong entity tag, quoted, derived from the JSON bytes
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
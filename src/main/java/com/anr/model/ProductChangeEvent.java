@@ -0,0 +1,52 @@
+package com.anr.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * One committed product write as pushed on the catalog change stream; RESET tells a resuming
+ * client that events were missed and it has to reload the catalog
+ */
+@JsonInclude(Include.NON_NULL)
+public class ProductChangeEvent {
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED, RESET
+    }
+
+    private final String eventId;
+    private final String id;
+    private final Long version;
+    private final Operation operation;
+
+    public ProductChangeEvent(String eventId, String id, Long version, Operation operation) {
+        this.eventId = eventId;
+        this.id = id;
+        this.version = version;
+        this.operation = operation;
+    }
+
+    /**
+     * position in the stream, sent as the SSE id and echoed back by clients as Last-Event-ID
+     */
+    @JsonIgnore
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * the version after the write; absent for deletes
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+}
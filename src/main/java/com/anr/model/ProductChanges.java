@@ -0,0 +1,77 @@
+package com.anr.model;
+
+import java.util.List;
+
+import com.anr.localmdb.model.Product;
+
+/**
+ * Products written and ids deleted after a watermark, in change order. Pass watermark back as
+ * changedSince for the next call; hasMore means the page was cut short and should be fetched again
+ * right away. resync means the watermark was too old to replay every delete since: the pages from
+ * this one on list the whole catalog again, and products not in them are gone
+ */
+public class ProductChanges {
+
+    private List<Product> changed;
+    private List<String> deleted;
+    private String watermark;
+    private boolean hasMore;
+    private boolean resync;
+
+    public ProductChanges() {
+        super();
+    }
+
+    public ProductChanges(List<Product> changed, List<String> deleted, String watermark, boolean hasMore) {
+        this(changed, deleted, watermark, hasMore, false);
+    }
+
+    public ProductChanges(List<Product> changed, List<String> deleted, String watermark, boolean hasMore,
+            boolean resync) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.watermark = watermark;
+        this.hasMore = hasMore;
+        this.resync = resync;
+    }
+
+    public List<Product> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<Product> changed) {
+        this.changed = changed;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<String> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public void setResync(boolean resync) {
+        this.resync = resync;
+    }
+}
@@ -0,0 +1,46 @@
+package com.anr.model;
+
+/**
+ * One product already encoded as UTF-8 JSON, plus its gzip form when compression is enabled, so a
+ * cache hit can be written to the response as-is
+ */
+public final class ProductJson {
+
+    private final String id;
+    private final long version;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    public ProductJson(String id, long version, byte[] json, byte[] gzip) {
+        this.id = id;
+        this.version = version;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * @return the gzip-compressed JSON, or null when compression is disabled
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * bytes held for this product, both encodings
+     */
+    public int size() {
+        return json.length + (gzip == null ? 0 : gzip.length);
+    }
+}
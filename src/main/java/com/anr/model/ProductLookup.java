@@ -0,0 +1,40 @@
+package com.anr.model;
+
+import java.util.List;
+
+import com.anr.localmdb.model.Product;
+
+/**
+ * Result of a multi-id product lookup: the products found, in the order their ids were asked
+ * for, and the ids that matched no product
+ */
+public class ProductLookup {
+
+    private List<Product> products;
+    private List<String> missing;
+
+    public ProductLookup() {
+        super();
+    }
+
+    public ProductLookup(List<Product> products, List<String> missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<Product> products) {
+        this.products = products;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+}
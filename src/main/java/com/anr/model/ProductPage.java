@@ -0,0 +1,52 @@
+package com.anr.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * One keyset page of products, either whole Products or sparse field maps; nextCursor is absent on
+ * the last page
+ */
+@JsonInclude(Include.NON_NULL)
+public class ProductPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private int limit;
+
+    public ProductPage() {
+        super();
+    }
+
+    public ProductPage(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
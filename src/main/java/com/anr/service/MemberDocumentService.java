@@ -0,0 +1,250 @@
+package com.anr.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.MemberDocument;
+import com.anr.localmdb.model.Policy;
+import com.anr.localmdb.repository.MemberDocumentRepository;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.MemberPage;
+import com.anr.model.MemberSummary;
+import com.anr.model.PolicyPlanRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * The {@link MemberService} operations in document mode (sbsvc.memberStorage.mode=document): each
+ * member aggregate is one member_documents row, so a member is read or inserted in one statement.
+ * Documents are Smile-encoded with the application's Jackson configuration, and plans are copied
+ * into each document as they were when written; plan_definitions is not consulted
+ *
+ * @author amitr
+ */
+@Service
+public class MemberDocumentService {
+
+    private final MemberDocumentRepository docRepo;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper documentMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public MemberDocumentService(MemberDocumentRepository docRepo, ObjectMapper objectMapper) {
+        this.docRepo = docRepo;
+        this.objectMapper = objectMapper;
+        this.documentMapper = objectMapper.copyWith(new SmileFactory());
+    }
+
+    /**
+     * as {@link MemberService#saveOne}: inserts or replaces the member's document
+     */
+    @Transactional
+    public InsuranceMember saveOne(InsuranceMember mem) {
+        docRepo.save(documents(List.of(mem)).get(0));
+        return mem;
+    }
+
+    /**
+     * as {@link MemberService#saveBatch}
+     */
+    @Transactional
+    public void saveBatch(List<InsuranceMember> members) {
+        docRepo.saveAll(documents(members));
+    }
+
+    /**
+     * as {@link MemberService#insertBatch}: one INSERT per member, JDBC-batched
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException when a member already exists;
+     *         nothing of the batch is kept
+     */
+    @Transactional
+    public void insertBatch(List<InsuranceMember> members) {
+        docRepo.insertAll(documents(members));
+    }
+
+    /**
+     * as {@link MemberService#findById}, in one statement
+     */
+    @Transactional(readOnly = true)
+    public InsuranceMember findById(String id) {
+        return docRepo.findById(id).map(this::member).orElse(null);
+    }
+
+    /**
+     * as {@link MemberService#findByName}
+     */
+    @Transactional(readOnly = true)
+    public List<MemberSummary> findByName(String firstname, String lastname) {
+        boolean byFirst = firstname != null && !firstname.isBlank();
+        boolean byLast = lastname != null && !lastname.isBlank();
+        if (byFirst && byLast) {
+            return docRepo.findSummariesByFirstnameAndLastname(firstname, lastname);
+        } else if (byFirst) {
+            return docRepo.findSummariesByFirstname(firstname);
+        } else if (byLast) {
+            return docRepo.findSummariesByLastname(lastname);
+        }
+        throw new IllegalArgumentException("firstname or lastname is required");
+    }
+
+    /**
+     * as {@link MemberService#findPageByBirthday}, in one statement
+     */
+    @Transactional(readOnly = true)
+    public MemberPage<InsuranceMember> findPageByBirthday(LocalDate from, LocalDate to, String cursor, int limit) {
+        MemberService.checkRange(from, to);
+        MemberService.BirthdayPosition after = MemberService.BirthdayPosition.of(cursor, from);
+        List<MemberDocument> rows = docRepo.findBirthdayRangePage(MemberService.toDate(from),
+                MemberService.toDate(to), MemberService.toDate(after.dob), after.id, Limit.of(limit + 1));
+        List<InsuranceMember> members = new ArrayList<>(rows.size());
+        for (MemberDocument row : rows) {
+            members.add(member(row));
+        }
+        return MemberService.page(members, limit, InsuranceMember::getDateOfBirth, InsuranceMember::getId);
+    }
+
+    /**
+     * as {@link MemberService#findSummaryPageByBirthday}
+     */
+    @Transactional(readOnly = true)
+    public MemberPage<MemberSummary> findSummaryPageByBirthday(LocalDate from, LocalDate to, String cursor,
+            int limit) {
+        MemberService.checkRange(from, to);
+        MemberService.BirthdayPosition after = MemberService.BirthdayPosition.of(cursor, from);
+        List<MemberSummary> rows = docRepo.findBirthdaySummaryPage(MemberService.toDate(from),
+                MemberService.toDate(to), MemberService.toDate(after.dob), after.id, Limit.of(limit + 1));
+        return MemberService.page(rows, limit, MemberSummary::getDateOfBirth, MemberSummary::getId);
+    }
+
+    /**
+     * as {@link MemberService#exportByBirthday}; documents are released
+     * {@value InsuranceMember#FETCH_BATCH_SIZE} at a time
+     */
+    @Transactional(readOnly = true)
+    public long exportByBirthday(LocalDate from, LocalDate to, boolean summary, OutputStream out)
+            throws IOException {
+        MemberService.checkRange(from, to);
+        long count = 0;
+        if (summary) {
+            try (Stream<MemberSummary> rows = docRepo.streamBirthdaySummaries(MemberService.toDate(from),
+                    MemberService.toDate(to))) {
+                Iterator<MemberSummary> it = rows.iterator();
+                while (it.hasNext()) {
+                    writeLine(out, it.next());
+                    if (++count % InsuranceMember.FETCH_BATCH_SIZE == 0) {
+                        out.flush();
+                    }
+                }
+            }
+            return count;
+        }
+        try (Stream<MemberDocument> rows = docRepo.streamBirthdayRange(MemberService.toDate(from),
+                MemberService.toDate(to))) {
+            Iterator<MemberDocument> it = rows.iterator();
+            while (it.hasNext()) {
+                writeLine(out, member(it.next()));
+                if (++count % InsuranceMember.FETCH_BATCH_SIZE == 0) {
+                    out.flush();
+                    // written documents are never touched again; drop them so the context does not grow
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * as {@link MemberService#findEligibleOn}; policies have no columns of their own in this mode, so
+     * every document is decoded - the policy period index is what answers these lookups here
+     */
+    @Transactional(readOnly = true)
+    public List<EligiblePolicy> findEligibleOn(LocalDate date) {
+        List<EligiblePolicy> policies;
+        try (Stream<PolicyPlanRow> rows = streamPolicyPlans()) {
+            policies = EligiblePolicy.fromRows(rows.filter(row -> PolicyPeriodIndex.inForce(row, date)).iterator());
+        }
+        // documents come in id order, their policies in list order
+        policies.sort(Comparator.comparing(EligiblePolicy::getMemberId).thenComparing(EligiblePolicy::getPolicyId));
+        return policies;
+    }
+
+    /**
+     * the policies of every member as policy period rows, decoded document by document; must be
+     * consumed inside a transaction and closed by the caller
+     */
+    @Transactional(readOnly = true)
+    public Stream<PolicyPlanRow> streamPolicyPlans() {
+        long[] count = new long[1];
+        return docRepo.streamAll().flatMap(document -> {
+            if (++count[0] % InsuranceMember.FETCH_BATCH_SIZE == 0) {
+                // decoded documents are never touched again; drop them so the context does not grow
+                entityManager.clear();
+            }
+            return PolicyPeriodIndex.rows(member(document)).stream();
+        });
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private List<MemberDocument> documents(List<InsuranceMember> members) {
+        // same contract as relational mode, even though the definitions are not stored separately here
+        MemberService.planDefinitions(members);
+        List<MemberDocument> documents = new ArrayList<>(members.size());
+        for (InsuranceMember member : members) {
+            documents.add(document(member));
+        }
+        return documents;
+    }
+
+    private MemberDocument document(InsuranceMember member) {
+        try {
+            return new MemberDocument(member, documentMapper.writeValueAsBytes(member));
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not encode member " + member.getId(), e);
+        }
+    }
+
+    private InsuranceMember member(MemberDocument document) {
+        InsuranceMember member;
+        try {
+            member = documentMapper.readValue(document.getDocument(), InsuranceMember.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not decode member " + document.getId(), e);
+        }
+        // dates come back as the DATE values relational mode returns, so both modes render them alike
+        member.setDateOfBirth(document.getDateOfBirth());
+        if (member.getPolicies() != null) {
+            for (Policy policy : member.getPolicies()) {
+                policy.setPolicyStartDate(sqlDate(policy.getPolicyStartDate()));
+                policy.setPolicyExpiryDate(sqlDate(policy.getPolicyExpiryDate()));
+            }
+        }
+        return member;
+    }
+
+    private static Date sqlDate(Date date) {
+        return date == null ? null : new java.sql.Date(date.getTime());
+    }
+}
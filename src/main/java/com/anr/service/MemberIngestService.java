@@ -0,0 +1,230 @@
+package com.anr.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.anr.config.ConfigProperties;
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.model.MemberIngestChunk;
+import com.anr.model.MemberIngestResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Streaming member ingest: reads newline-delimited member documents (the SampleMemberRecord.json
+ * shape, one per line) and inserts them in chunks of sbsvc.memberIngest.chunkSize, each chunk its
+ * own transaction sent as JDBC batches. Only the current chunk is held in memory, so a file of
+ * millions of members needs no more heap than a file of one chunk
+ *
+ * A line that does not parse or lacks a key is reported as failed without touching the database.
+ * A chunk rejected by the database (typically a member or policy that already exists) is retried
+ * one member at a time so that only the offending members are reported as failed
+ *
+ * @author amitr
+ */
+@Service
+public class MemberIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberIngestService.class);
+
+    private final MemberService memberService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader memberReader;
+    private final int chunkSize;
+
+    public MemberIngestService(MemberService memberService, ObjectMapper objectMapper, ConfigProperties appProps) {
+        this.memberService = memberService;
+        this.objectMapper = objectMapper;
+        this.memberReader = objectMapper.readerFor(InsuranceMember.class);
+        this.chunkSize = appProps.getMemberIngest().getChunkSize();
+    }
+
+    /**
+     * ingests every line of the input, handing each chunk's report to onChunk once it is committed
+     */
+    public MemberIngestResult ingest(InputStream in, Consumer<MemberIngestChunk> onChunk) throws IOException {
+        long started = System.nanoTime();
+        MemberIngestResult result = new MemberIngestResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Chunk chunk = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            if (chunk == null) {
+                chunk = new Chunk(result.getChunks() + 1, lineNumber);
+            }
+            chunk.add(lineNumber, line);
+            if (chunk.size() == chunkSize) {
+                result.add(commit(chunk, lineNumber, onChunk));
+                chunk = null;
+            }
+        }
+        if (chunk != null) {
+            result.add(commit(chunk, lineNumber, onChunk));
+        }
+        result.finish(millisSince(started));
+        logger.info("member ingest: {} inserted, {} failed in {} chunks, {} ms ({} members/s)",
+                result.getInserted(), result.getFailed(), result.getChunks(), result.getMillis(),
+                result.getMembersPerSecond());
+        return result;
+    }
+
+    /**
+     * as {@link #ingest(InputStream, Consumer)}, writing each chunk report and then the totals to
+     * the output as one JSON document per line, flushed as they happen
+     */
+    public MemberIngestResult ingest(InputStream in, OutputStream progress) throws IOException {
+        MemberIngestResult result;
+        try {
+            result = ingest(in, chunk -> {
+                try {
+                    writeLine(progress, chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // the client went away; stopping here leaves the committed chunks in place
+            throw e.getCause();
+        }
+        writeLine(progress, result);
+        return result;
+    }
+
+    private MemberIngestChunk commit(Chunk chunk, long lastLine, Consumer<MemberIngestChunk> onChunk) {
+        MemberIngestChunk report = chunk.report;
+        if (!chunk.members.isEmpty()) {
+            try {
+                memberService.insertBatch(chunk.members);
+                report.inserted(chunk.members.size());
+            } catch (DataAccessException e) {
+                logger.warn("chunk {} of {} members rejected, retrying one by one: {}", report.getChunk(),
+                        chunk.members.size(), e.getMessage());
+                for (int i = 0; i < chunk.members.size(); i++) {
+                    insertSingle(chunk.lineNumbers.get(i), chunk.lines.get(i), report);
+                }
+            }
+        }
+        report.finish(lastLine, millisSince(chunk.started));
+        logger.debug("member ingest chunk {}: lines {}-{}, {} inserted, {} failed, {} ms", report.getChunk(),
+                report.getFirstLine(), report.getLastLine(), report.getInserted(), report.getFailed(),
+                report.getMillis());
+        onChunk.accept(report);
+        return report;
+    }
+
+    private void insertSingle(long lineNumber, String line, MemberIngestChunk report) {
+        // parsed again: the rolled-back chunk left its entities attached to collections of a closed session
+        InsuranceMember member = parse(lineNumber, line, report);
+        try {
+            memberService.insertBatch(List.of(member));
+            report.inserted(1);
+        } catch (DataIntegrityViolationException e) {
+            report.fail(lineNumber, member.getId(), "member or policy already exists");
+        } catch (DataAccessException e) {
+            report.fail(lineNumber, member.getId(), e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private InsuranceMember parse(long lineNumber, String line, MemberIngestChunk report) {
+        InsuranceMember member;
+        try {
+            member = memberReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            report.fail(lineNumber, null, "malformed member document: " + e.getOriginalMessage());
+            return null;
+        }
+        String error = validate(member);
+        if (error != null) {
+            report.fail(lineNumber, member.getId(), error);
+            return null;
+        }
+        return member;
+    }
+
+    private static String validate(InsuranceMember member) {
+        if (StringUtils.isBlank(member.getId())) {
+            return "id is required";
+        }
+        if (member.getPolicies() == null) {
+            return null;
+        }
+        for (Policy policy : member.getPolicies()) {
+            if (StringUtils.isBlank(policy.getPolicyID())) {
+                return "policyID is required";
+            }
+            if (policy.getPlans() == null) {
+                continue;
+            }
+            for (Plan plan : policy.getPlans()) {
+                if (plan.getPlanDefinitionId() == null) {
+                    return "planDefinitionId is required";
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
+    private static long millisSince(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    /**
+     * the current chunk, timed from its first line; the raw lines are kept for the one-by-one retry
+     */
+    private final class Chunk {
+
+        private final MemberIngestChunk report;
+        private final long started = System.nanoTime();
+        private final List<InsuranceMember> members = new ArrayList<>();
+        private final List<Long> lineNumbers = new ArrayList<>();
+        private final List<String> lines = new ArrayList<>();
+        private int size;
+
+        Chunk(int number, long firstLine) {
+            report = new MemberIngestChunk(number, firstLine);
+        }
+
+        void add(long lineNumber, String line) {
+            size++;
+            InsuranceMember member = parse(lineNumber, line, report);
+            if (member != null) {
+                members.add(member);
+                lineNumbers.add(lineNumber);
+                lines.add(line);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
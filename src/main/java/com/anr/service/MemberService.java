@@ -1,24 +1,500 @@
 package com.anr.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.anr.common.CursorCodec;
+import com.anr.common.ValueDictionary;
+import com.anr.config.ConfigProperties;
+import com.anr.localmdb.model.DictionaryCodeListener;
 import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
 import com.anr.localmdb.repository.MemberRepository;
+import com.anr.localmdb.repository.PlanRepository;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.MemberPage;
+import com.anr.model.MemberSummary;
+import com.anr.model.PolicyPlanRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class MemberService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MemberService.class);
+
     @Autowired
     private MemberRepository memRepo;
 
+    @Autowired
+    private PlanRepository planRepo;
+
+    @Autowired
+    private PlanDefinitionCache planCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MemberDocumentService documents;
+
+    @Autowired
+    private ConfigProperties appProps;
+
+    @Autowired
+    private PolicyPeriodIndex eligibilityIndex;
+
+    @Autowired
+    private ValueDictionary dictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private boolean documentMode;
+    private boolean indexEligibility;
+    // writes run in a template rather than under @Transactional: the dictionary values they use are
+    // registered first, outside the transaction, so that adding one never holds a second connection
+    private TransactionTemplate writes;
+
+    @PostConstruct
+    void selectStorage() {
+        documentMode = appProps.getMemberStorage().getMode() == ConfigProperties.MemberStorageProperty.Mode.DOCUMENT;
+        indexEligibility = appProps.getEligibilityIndex().isEnabled();
+        writes = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * saves the member; definitions of the plans on its policies that are not stored yet are added,
+     * stored ones are shared with other members and kept as they are
+     *
+     * @throws IllegalArgumentException when a plan has no planDefinitionId
+     */
     public InsuranceMember saveOne(InsuranceMember mem) {
-        return memRepo.save(mem);
+        registerDictionaryValues(List.of(mem));
+        return writes.execute(status -> {
+            indexAfterCommit(List.of(mem));
+            if (documentMode) {
+                return documents.saveOne(mem);
+            }
+            savePlanDefinitions(List.of(mem));
+            return memRepo.save(mem);
+        });
     }
 
+    /**
+     * as {@link #saveOne}, for many members
+     */
     public void saveBatch(List<InsuranceMember> members) {
-        memRepo.saveAll(members);
+        registerDictionaryValues(members);
+        writes.executeWithoutResult(status -> {
+            indexAfterCommit(members);
+            if (documentMode) {
+                documents.saveBatch(members);
+                return;
+            }
+            savePlanDefinitions(members);
+            memRepo.saveAll(members);
+        });
+    }
+
+    /**
+     * inserts new members in one transaction, without reading them first, so the whole batch goes
+     * out as JDBC batches; plan definitions not stored yet are added, stored ones are kept as they
+     * are
+     *
+     * @throws IllegalArgumentException when a plan has no planDefinitionId
+     * @throws org.springframework.dao.DataIntegrityViolationException when a member or policy
+     *         already exists; nothing of the batch is kept
+     */
+    public void insertBatch(List<InsuranceMember> members) {
+        registerDictionaryValues(members);
+        writes.executeWithoutResult(status -> {
+            indexAfterCommit(members);
+            if (documentMode) {
+                documents.insertBatch(members);
+                return;
+            }
+            savePlanDefinitions(members);
+            memRepo.insertAll(members);
+        });
+    }
+
+    /**
+     * the whole member aggregate; the member row is read, its policies and their plan references
+     * come from the second-level cache when they are there, from batched IN queries when they are
+     * not
+     *
+     * @return the member, or null when there is none with that id
+     */
+    @Transactional(readOnly = true)
+    public InsuranceMember findById(String id) {
+        if (documentMode) {
+            return documents.findById(id);
+        }
+        InsuranceMember member = memRepo.findById(id).orElse(null);
+        if (member != null) {
+            loadPlans(List.of(member));
+        }
+        return member;
+    }
+
+    /**
+     * members by firstname, lastname or both, without their policies
+     *
+     * @throws IllegalArgumentException when neither name is given
+     */
+    @Transactional(readOnly = true)
+    public List<MemberSummary> findByName(String firstname, String lastname) {
+        if (documentMode) {
+            return documents.findByName(firstname, lastname);
+        }
+        boolean byFirst = firstname != null && !firstname.isBlank();
+        boolean byLast = lastname != null && !lastname.isBlank();
+        if (byFirst && byLast) {
+            return memRepo.findSummariesByFirstnameAndLastname(firstname, lastname);
+        } else if (byFirst) {
+            return memRepo.findSummariesByFirstname(firstname);
+        } else if (byLast) {
+            return memRepo.findSummariesByLastname(lastname);
+        }
+        throw new IllegalArgumentException("firstname or lastname is required");
+    }
+
+    /**
+     * one keyset page of the members born within [from, to], whole aggregates in (date of birth, id)
+     * order; the page's policies and plans follow in batched IN queries
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException when from is after to or the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public MemberPage<InsuranceMember> findPageByBirthday(LocalDate from, LocalDate to, String cursor, int limit) {
+        if (documentMode) {
+            return documents.findPageByBirthday(from, to, cursor, limit);
+        }
+        checkRange(from, to);
+        BirthdayPosition after = BirthdayPosition.of(cursor, from);
+        List<InsuranceMember> rows = memRepo.findBirthdayRangePage(toDate(from), toDate(to), toDate(after.dob),
+                after.id, Limit.of(limit + 1));
+        MemberPage<InsuranceMember> page = page(rows, limit, InsuranceMember::getDateOfBirth, InsuranceMember::getId);
+        loadPlans(page.getItems());
+        return page;
+    }
+
+    /**
+     * as {@link #findPageByBirthday}, but member columns only
+     */
+    @Transactional(readOnly = true)
+    public MemberPage<MemberSummary> findSummaryPageByBirthday(LocalDate from, LocalDate to, String cursor,
+            int limit) {
+        if (documentMode) {
+            return documents.findSummaryPageByBirthday(from, to, cursor, limit);
+        }
+        checkRange(from, to);
+        BirthdayPosition after = BirthdayPosition.of(cursor, from);
+        List<MemberSummary> rows = memRepo.findBirthdaySummaryPage(toDate(from), toDate(to), toDate(after.dob),
+                after.id, Limit.of(limit + 1));
+        return page(rows, limit, MemberSummary::getDateOfBirth, MemberSummary::getId);
+    }
+
+    /**
+     * writes the members born within [from, to] as one JSON document per line, in (date of birth,
+     * id) order; rows come off an open cursor and whole aggregates are completed and released
+     * {@value InsuranceMember#FETCH_BATCH_SIZE} at a time, so memory use does not grow with the
+     * range
+     *
+     * @param summary member columns only instead of whole aggregates
+     * @return number of members written
+     * @throws IllegalArgumentException when from is after to
+     */
+    @Transactional(readOnly = true)
+    public long exportByBirthday(LocalDate from, LocalDate to, boolean summary, OutputStream out)
+            throws IOException {
+        if (documentMode) {
+            return documents.exportByBirthday(from, to, summary, out);
+        }
+        checkRange(from, to);
+        // a range export reads each member once; served from the second-level cache where it can be,
+        // but not put into it, so it does not evict what single reads keep warm
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        long count = 0;
+        if (summary) {
+            try (Stream<MemberSummary> rows = memRepo.streamBirthdaySummaries(toDate(from), toDate(to))) {
+                Iterator<MemberSummary> it = rows.iterator();
+                while (it.hasNext()) {
+                    writeLine(out, it.next());
+                    if (++count % InsuranceMember.FETCH_BATCH_SIZE == 0) {
+                        out.flush();
+                    }
+                }
+            }
+            return count;
+        }
+        try (Stream<InsuranceMember> rows = memRepo.streamBirthdayRange(toDate(from), toDate(to))) {
+            Iterator<InsuranceMember> it = rows.iterator();
+            List<InsuranceMember> chunk = new ArrayList<>(InsuranceMember.FETCH_BATCH_SIZE);
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == InsuranceMember.FETCH_BATCH_SIZE || !it.hasNext()) {
+                    // the whole chunk is in the persistence context, so its collections load together
+                    loadPlans(chunk);
+                    for (InsuranceMember member : chunk) {
+                        writeLine(out, member);
+                    }
+                    count += chunk.size();
+                    chunk.clear();
+                    out.flush();
+                    // written members are never touched again; drop them so the context does not grow
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ids and plan definition ids of the policies in force on date - started on or before it and
+     * not expired before it - in member then policy order; from the policy period index when it is
+     * built, otherwise from the policies (start, expiry) index in one query
+     */
+    @Transactional(readOnly = true)
+    public List<EligiblePolicy> findEligibleOn(LocalDate date) {
+        Optional<List<EligiblePolicy>> indexed = eligibilityIndex.activeOn(date);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        if (documentMode) {
+            return documents.findEligibleOn(date);
+        }
+        return EligiblePolicy.fromRows(memRepo.findPolicyPlansActiveOn(toDate(date)).iterator());
+    }
+
+    /**
+     * loads every policy period into the eligibility index; runs once the sample data is in place
+     * and can be re-run to resynchronize after out-of-band changes to the tables
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildEligibilityIndex() {
+        if (!indexEligibility) {
+            return;
+        }
+        try (Stream<PolicyPlanRow> rows = documentMode ? documents.streamPolicyPlans()
+                : memRepo.streamPolicyPlans()) {
+            eligibilityIndex.rebuild(rows.iterator());
+        }
+        logger.info("Eligibility index built over {} policy periods", eligibilityIndex.size());
+    }
+
+    // the index follows committed writes only; the rows are taken now, as they are being written
+    private void indexAfterCommit(List<InsuranceMember> members) {
+        if (!indexEligibility) {
+            return;
+        }
+        Map<String, List<PolicyPlanRow>> rows = new LinkedHashMap<>();
+        for (InsuranceMember member : members) {
+            rows.put(member.getId(), PolicyPeriodIndex.rows(member));
+        }
+        afterCommit(() -> eligibilityIndex.put(rows));
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    static Date toDate(LocalDate date) {
+        return java.sql.Date.valueOf(date);
+    }
+
+    // fetched one row past the limit: its presence means there is a next page
+    static <T> MemberPage<T> page(List<T> rows, int limit, Function<T, Date> dob, Function<T, String> id) {
+        if (rows.size() <= limit) {
+            return new MemberPage<>(rows, null, limit);
+        }
+        List<T> items = rows.subList(0, limit);
+        T last = items.get(limit - 1);
+        return new MemberPage<>(items, BirthdayPosition.encode(dob.apply(last), id.apply(last)), limit);
+    }
+
+    // plan references are not part of the entity graph (two nested lists cannot be join-fetched
+    // together); touching the first collection loads the next FETCH_BATCH_SIZE of them in one query,
+    // then the definitions come from the cache, with any misses read in one IN query
+    private void loadPlans(List<InsuranceMember> members) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (InsuranceMember member : members) {
+            for (Policy policy : member.getPolicies()) {
+                ids.addAll(policy.getPlanDefinitionIds());
+            }
+        }
+        Map<Integer, Plan> definitions = planCache.getAll(ids, planRepo::findAllById);
+        for (InsuranceMember member : members) {
+            for (Policy policy : member.getPolicies()) {
+                List<Plan> plans = new ArrayList<>(policy.getPlanDefinitionIds().size());
+                for (Integer id : policy.getPlanDefinitionIds()) {
+                    plans.add(definitions.getOrDefault(id, unknownPlan(id)));
+                }
+                policy.setPlans(plans);
+            }
+        }
+    }
+
+    // a dangling reference still shows which definition the policy points at
+    private static Plan unknownPlan(Integer id) {
+        Plan plan = new Plan();
+        plan.setPlanDefinitionId(id);
+        return plan;
+    }
+
+    // the values of the policies' and plans' dictionary-encoded attributes, added to the dictionary
+    // before the write opens its transaction; documents store the values themselves
+    private void registerDictionaryValues(List<InsuranceMember> members) {
+        if (documentMode) {
+            return;
+        }
+        Set<String> values = new LinkedHashSet<>();
+        for (InsuranceMember member : members) {
+            if (member.getPolicies() == null) {
+                continue;
+            }
+            for (Policy policy : member.getPolicies()) {
+                values.addAll(DictionaryCodeListener.encodedValues(policy));
+                if (policy.getPlans() == null) {
+                    continue;
+                }
+                for (Plan plan : policy.getPlans()) {
+                    values.addAll(DictionaryCodeListener.encodedValues(plan));
+                }
+            }
+        }
+        dictionary.register(values);
+    }
+
+    // insert-if-absent: a definition is shared by every member referring to it, so one member's
+    // copy never overwrites the stored row; nothing stored changes, so nothing cached is evicted
+    private void savePlanDefinitions(List<InsuranceMember> members) {
+        Map<Integer, Plan> definitions = planDefinitions(members);
+        if (definitions.isEmpty()) {
+            return;
+        }
+        Map<Integer, Plan> stored = planCache.getAll(definitions.keySet(), planRepo::findAllById);
+        List<Plan> added = new ArrayList<>();
+        for (Plan plan : definitions.values()) {
+            if (!stored.containsKey(plan.getPlanDefinitionId())) {
+                added.add(plan);
+            }
+        }
+        planRepo.saveAll(added);
+    }
+
+    // the distinct definitions the members' plans refer to, by id
+    static Map<Integer, Plan> planDefinitions(List<InsuranceMember> members) {
+        Map<Integer, Plan> definitions = new LinkedHashMap<>();
+        for (InsuranceMember member : members) {
+            if (member.getPolicies() == null) {
+                continue;
+            }
+            for (Policy policy : member.getPolicies()) {
+                if (policy.getPlans() == null) {
+                    continue;
+                }
+                for (Plan plan : policy.getPlans()) {
+                    if (plan.getPlanDefinitionId() == null) {
+                        throw new IllegalArgumentException("planDefinitionId is required");
+                    }
+                    definitions.put(plan.getPlanDefinitionId(), plan);
+                }
+            }
+        }
+        return definitions;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * keyset position in a birthday range: "&lt;epoch day&gt;:&lt;id&gt;" inside the cursor
+     */
+    static final class BirthdayPosition {
+
+        private static final String SEPARATOR = ":";
+
+        final LocalDate dob;
+        final String id;
+
+        private BirthdayPosition(LocalDate dob, String id) {
+            this.dob = dob;
+            this.id = id;
+        }
+
+        // before the first page: every id sorts after "" on the first day of the range
+        static BirthdayPosition of(String cursor, LocalDate from) {
+            if (cursor == null) {
+                return new BirthdayPosition(from, "");
+            }
+            String position = CursorCodec.decode(cursor);
+            int separator = position.indexOf(SEPARATOR);
+            try {
+                return new BirthdayPosition(LocalDate.ofEpochDay(Long.parseLong(position.substring(0,
+                        Math.max(separator, 0)))), position.substring(separator + 1));
+            } catch (NumberFormatException | DateTimeException e) {
+                throw new IllegalArgumentException("malformed cursor", e);
+            }
+        }
+
+        static String encode(Date dob, String id) {
+            return CursorCodec.encode(new java.sql.Date(dob.getTime()).toLocalDate().toEpochDay() + SEPARATOR + id);
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.anr.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.anr.localmdb.model.Plan;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded in-process cache of plan definitions by planDefinitionId.
+ *
+ * Definitions are reference data shared by many policies and change rarely, so member reads
+ * resolve them here instead of re-reading identical rows; every member that references a plan gets
+ * the same instance, which callers must therefore treat as read-only. Writes of a definition evict
+ * it, and entries also expire after a while so that changes made outside this service are picked
+ * up. As in ProductCache, evictions bump an invalidation stamp; a load that started before the
+ * stamp moved is returned to its caller but not cached, so an in-flight read cannot put back a
+ * definition evicted after it read the row.
+ *
+ * @author amitr
+ */
+public class PlanDefinitionCache {
+
+    private final Cache<Integer, Plan> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PlanDefinitionCache(long maximumSize, Duration expireAfterWrite) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * returns the cached definitions; ids not cached are handed to the loader in one call, and
+     * whatever it finds is cached
+     *
+     * @return the definitions found, by id; ids without a definition are absent
+     */
+    public Map<Integer, Plan> getAll(Collection<Integer> ids,
+            Function<Collection<Integer>, ? extends Iterable<Plan>> loader) {
+        Map<Integer, Plan> found = new HashMap<>(cache.getAllPresent(ids));
+        Set<Integer> misses = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (!found.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        long stamp = invalidations.get();
+        for (Plan loaded : loader.apply(misses)) {
+            found.put(loaded.getPlanDefinitionId(), loaded);
+            if (stamp == invalidations.get()) {
+                cache.put(loaded.getPlanDefinitionId(), loaded);
+            }
+        }
+        return found;
+    }
+
+    public void evict(Collection<Integer> ids) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll(ids);
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long invalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * exposed so that cache statistics can be bound to the actuator metrics registry
+     */
+    public Cache<Integer, Plan> getNativeCache() {
+        return cache;
+    }
+}
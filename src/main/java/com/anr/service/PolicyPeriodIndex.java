@@ -0,0 +1,362 @@
+package com.anr.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Policy;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.PolicyPlanRow;
+
+/**
+ * In-memory interval index over policy periods for "which policies are in force on date X"
+ *
+ * Periods are kept in a treap (a binary search tree balanced by random priorities) ordered by start
+ * day, each node also holding the latest expiry day below it. A lookup skips every subtree whose
+ * latest expiry is before the date and stops going right once starts pass it: O(log n) nodes when
+ * nothing is in force, and at worst O(k log n) for the k periods it returns, since each of them
+ * can cost a root-to-leaf path through subtrees whose latest expiry alone is in range. A policy with
+ * no start date is never in force and is not indexed; one with no expiry date is open-ended
+ *
+ * The index only answers once {@link #rebuild(Iterator)} has run; until then, or when it is
+ * disabled, the caller queries the database. A rebuild reads its rows into a new tree without
+ * holding the lock and swaps it in at the end; member writes arriving meanwhile go to the current
+ * tree and are replayed onto the new one before the swap, so none is lost
+ *
+ * @author amitr
+ */
+@Component
+public class PolicyPeriodIndex {
+
+    private static final long OPEN_ENDED = Long.MAX_VALUE;
+    private static final Comparator<EligiblePolicy> BY_MEMBER_AND_POLICY = Comparator
+            .comparing(EligiblePolicy::getMemberId).thenComparing(EligiblePolicy::getPolicyId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // one rebuild at a time; held while reading rows, so not the read/write lock
+    private final ReentrantLock rebuilding = new ReentrantLock();
+    private final Random priorities = new Random();
+    private Periods periods = new Periods();
+    // member writes made while a rebuild reads its rows, null when none is running
+    private List<Map<String, List<PolicyPlanRow>>> putsDuringRebuild;
+    private volatile boolean ready;
+
+    /**
+     * @return the policies in force on date - started on or before it, expiring on or after it - in
+     *         member then policy order, or empty when the index has not been built
+     */
+    public Optional<List<EligiblePolicy>> activeOn(LocalDate date) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long day = date.toEpochDay();
+        List<EligiblePolicy> policies = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collect(periods.root, day, policies);
+        } finally {
+            lock.readLock().unlock();
+        }
+        policies.sort(BY_MEMBER_AND_POLICY);
+        return Optional.of(policies);
+    }
+
+    /**
+     * replaces the periods of the member with those of its current policies
+     */
+    public void put(InsuranceMember member) {
+        put(Map.of(member.getId(), rows(member)));
+    }
+
+    /**
+     * replaces the periods of each member with those of the given rows, as from {@link #rows}
+     */
+    void put(Map<String, List<PolicyPlanRow>> rowsByMember) {
+        lock.writeLock().lock();
+        try {
+            periods.put(rowsByMember);
+            if (putsDuringRebuild != null) {
+                putsDuringRebuild.add(rowsByMember);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * replaces the whole index with the periods of the given rows and starts answering lookups;
+     * rows of one policy must come together. Lookups keep being answered from the current tree
+     * while the rows are read
+     */
+    public void rebuild(Iterator<PolicyPlanRow> rows) {
+        rebuilding.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                putsDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Periods rebuilt = new Periods();
+            try {
+                rebuilt.addAll(rows);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    // a write replayed here may already be in the rows; replacing a member's periods
+                    // with the same ones again changes nothing
+                    for (Map<String, List<PolicyPlanRow>> put : putsDuringRebuild) {
+                        rebuilt.put(put);
+                    }
+                    putsDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                periods = rebuilt;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return number of indexed policy periods
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return periods.root == null ? 0 : periods.root.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * the member's policies as the rows a policy period query returns: one per plan reference, or
+     * one without a plan for a policy that has none
+     */
+    static List<PolicyPlanRow> rows(InsuranceMember member) {
+        List<PolicyPlanRow> rows = new ArrayList<>();
+        if (member.getPolicies() == null) {
+            return rows;
+        }
+        for (Policy policy : member.getPolicies()) {
+            List<Integer> plans = policy.getPlanDefinitionIds();
+            if (plans == null || plans.isEmpty()) {
+                rows.add(new PolicyPlanRow(member.getId(), policy.getPolicyID(), policy.getPolicyStartDate(),
+                        policy.getPolicyExpiryDate(), null));
+                continue;
+            }
+            for (Integer plan : plans) {
+                rows.add(new PolicyPlanRow(member.getId(), policy.getPolicyID(), policy.getPolicyStartDate(),
+                        policy.getPolicyExpiryDate(), plan));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return whether the row's policy is in force on date, by the same rule as the index
+     */
+    static boolean inForce(PolicyPlanRow row, LocalDate date) {
+        long day = date.toEpochDay();
+        return row.getStartDate() != null && day(row.getStartDate()) <= day && end(row.getExpiryDate()) >= day;
+    }
+
+    // DATE values carry no time: the calendar day in the default zone, as they were written
+    private static long day(Date date) {
+        return new java.sql.Date(date.getTime()).toLocalDate().toEpochDay();
+    }
+
+    private static long end(Date expiry) {
+        return expiry == null ? OPEN_ENDED : day(expiry);
+    }
+
+    private static Node remove(Node tree, Node node) {
+        Node[] parts = split(tree, node);
+        // the right part starts with node itself, the smallest key not below its own
+        Node[] rest = split(parts[1], node.next());
+        return merge(parts[0], rest[1]);
+    }
+
+    // {keys below key's, the others}
+    private static Node[] split(Node tree, Node key) {
+        if (tree == null) {
+            return new Node[2];
+        }
+        if (tree.compareTo(key) < 0) {
+            Node[] parts = split(tree.right, key);
+            tree.right = parts[0];
+            parts[0] = tree.update();
+            return parts;
+        }
+        Node[] parts = split(tree.left, key);
+        tree.left = parts[1];
+        parts[1] = tree.update();
+        return parts;
+    }
+
+    // every key of left is below every key of right
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static void collect(Node node, long day, List<EligiblePolicy> policies) {
+        // nothing below expires on or after day
+        if (node == null || node.maxEnd < day) {
+            return;
+        }
+        collect(node.left, day, policies);
+        if (node.start > day) {
+            // this and everything to the right starts after day
+            return;
+        }
+        if (node.end >= day) {
+            EligiblePolicy policy = node.policy;
+            policies.add(new EligiblePolicy(policy.getMemberId(), policy.getPolicyId(),
+                    List.copyOf(policy.getPlanDefinitionIds())));
+        }
+        collect(node.right, day, policies);
+    }
+
+    /**
+     * one tree with its per-member nodes; the index swaps in a new one on rebuild
+     */
+    private final class Periods {
+
+        private final Map<String, List<Node>> byMember = new HashMap<>();
+        private Node root;
+        // tie-break between periods starting on the same day, so every node has a distinct key
+        private long sequence;
+
+        void put(Map<String, List<PolicyPlanRow>> rowsByMember) {
+            for (Map.Entry<String, List<PolicyPlanRow>> member : rowsByMember.entrySet()) {
+                List<Node> old = byMember.remove(member.getKey());
+                if (old != null) {
+                    for (Node node : old) {
+                        root = remove(root, node);
+                    }
+                }
+                addAll(member.getValue().iterator());
+            }
+        }
+
+        void addAll(Iterator<PolicyPlanRow> rows) {
+            Node node = null;
+            while (rows.hasNext()) {
+                PolicyPlanRow row = rows.next();
+                if (node == null || !node.policy.getPolicyId().equals(row.getPolicyId())
+                        || !node.policy.getMemberId().equals(row.getMemberId())) {
+                    add(node);
+                    node = row.getStartDate() == null ? null : new Node(row, day(row.getStartDate()),
+                            end(row.getExpiryDate()), sequence++, priorities.nextInt());
+                    if (node == null) {
+                        continue;
+                    }
+                }
+                if (row.getPlanDefinitionId() != null) {
+                    node.policy.getPlanDefinitionIds().add(row.getPlanDefinitionId());
+                }
+            }
+            add(node);
+        }
+
+        private void add(Node node) {
+            if (node == null) {
+                return;
+            }
+            byMember.computeIfAbsent(node.policy.getMemberId(), id -> new ArrayList<>(2)).add(node);
+            Node[] parts = split(root, node);
+            root = merge(merge(parts[0], node), parts[1]);
+        }
+    }
+
+    private static final class Node implements Comparable<Node> {
+
+        final EligiblePolicy policy;
+        final long start;
+        final long end;
+        final long seq;
+        final int priority;
+        Node left;
+        Node right;
+        long maxEnd;
+        int count;
+
+        Node(PolicyPlanRow row, long start, long end, long seq, int priority) {
+            this.policy = new EligiblePolicy(row.getMemberId(), row.getPolicyId(), new ArrayList<>());
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.priority = priority;
+            update();
+        }
+
+        // search key just past this node's, for cutting it out of a tree
+        Node next() {
+            return new Node(this, seq + 1);
+        }
+
+        private Node(Node node, long seq) {
+            this.policy = node.policy;
+            this.start = node.start;
+            this.end = node.end;
+            this.seq = seq;
+            this.priority = 0;
+        }
+
+        Node update() {
+            maxEnd = end;
+            count = 1;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+                count += left.count;
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+                count += right.count;
+            }
+            return this;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            int byStart = Long.compare(start, other.start);
+            return byStart != 0 ? byStart : Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.anr.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.anr.localmdb.model.Product;
+import com.anr.model.ProductBatchResult;
+import com.google.common.collect.Lists;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Bulk product create: every item is validated against the Product constraints, and the valid ones
+ * are inserted in chunks of {@value #CHUNK_SIZE}, each chunk its own transaction so one bad chunk
+ * does not undo the others. With hibernate.jdbc.batch_size set, each chunk goes to the database as
+ * a few multi-row JDBC batches instead of one INSERT round trip per product
+ *
+ * A chunk rejected by the database (typically an id that already exists) is retried one product
+ * at a time so that only the offending items are reported as failed
+ *
+ * @author amitr
+ */
+@Service
+public class ProductBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBatchService.class);
+
+    static final int CHUNK_SIZE = 500;
+
+    private final ProductService productService;
+    private final Validator validator;
+
+    public ProductBatchService(ProductService productService, Validator validator) {
+        this.productService = productService;
+        this.validator = validator;
+    }
+
+    public ProductBatchResult createAll(List<Product> products) {
+        ProductBatchResult.Item[] results = new ProductBatchResult.Item[products.size()];
+        List<Integer> valid = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            Map<String, String> errors = validate(product);
+            if (errors.isEmpty() && !seenIds.add(product.getId())) {
+                errors.put("id", "duplicate id within the request");
+            }
+            if (errors.isEmpty()) {
+                // creates only: a client-sent version would turn the insert into a merge
+                product.setVersion(null);
+                valid.add(i);
+            } else {
+                results[i] = item(i, product, ProductBatchResult.INVALID, errors);
+            }
+        }
+
+        for (List<Integer> chunk : Lists.partition(valid, CHUNK_SIZE)) {
+            saveChunk(products, chunk, results);
+        }
+
+        ProductBatchResult result = new ProductBatchResult();
+        for (ProductBatchResult.Item item : results) {
+            result.add(item);
+        }
+        return result;
+    }
+
+    private void saveChunk(List<Product> products, List<Integer> chunk, ProductBatchResult.Item[] results) {
+        List<Product> batch = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            batch.add(products.get(i));
+        }
+        try {
+            productService.saveBatch(batch);
+            for (int i : chunk) {
+                results[i] = item(i, products.get(i), ProductBatchResult.CREATED, null);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("batch of {} products rejected, retrying one by one: {}", chunk.size(), e.getMessage());
+            for (int i : chunk) {
+                results[i] = saveSingle(i, products.get(i));
+            }
+        }
+    }
+
+    private ProductBatchResult.Item saveSingle(int index, Product product) {
+        // the rolled-back chunk already seeded a version; clear it so this is still an insert
+        product.setVersion(null);
+        try {
+            productService.saveOne(product);
+            return item(index, product, ProductBatchResult.CREATED, null);
+        } catch (DataIntegrityViolationException e) {
+            return item(index, product, ProductBatchResult.FAILED, error("id", "product already exists"));
+        } catch (DataAccessException e) {
+            return item(index, product, ProductBatchResult.FAILED, error("product", e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private Map<String, String> validate(Product product) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        if (product == null) {
+            errors.put("product", "product must not be null");
+            return errors;
+        }
+        for (ConstraintViolation<Product> violation : validator.validate(product)) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    private ProductBatchResult.Item item(int index, Product product, String status, Map<String, String> errors) {
+        return new ProductBatchResult.Item(index, product == null ? null : product.getId(), status, errors);
+    }
+
+    private Map<String, String> error(String field, String message) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        errors.put(field, message);
+        return errors;
+    }
+}
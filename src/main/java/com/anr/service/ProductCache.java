@@ -0,0 +1,123 @@
+package com.anr.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.anr.localmdb.model.Product;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded in-process read-through cache in front of product lookups by id.
+ *
+ * Entries are only ever replaced by a product carrying a newer @Version, so a slow reader that
+ * loaded an old row cannot overwrite what a concurrent writer already refreshed. Evictions bump an
+ * invalidation stamp; a load that started before the stamp moved is returned to its caller but not
+ * cached, which keeps a deleted product from being re-inserted by an in-flight read.
+ *
+ * @author amitr
+ */
+public class ProductCache {
+
+    private final Cache<String, Product> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCache(long maximumSize, Duration expireAfterWrite) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * returns the cached product, or loads it through the given loader and caches the result;
+     * Product.EMPTY (not found) is never cached
+     */
+    public Product get(String id, Function<String, Product> loader) {
+        Product cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = invalidations.get();
+        Product loaded = loader.apply(id);
+        if (loaded != null && loaded != Product.EMPTY && stamp == invalidations.get()) {
+            put(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * multi-id form of {@link #get(String, Function)}: ids not cached are handed to the loader in
+     * one call, and whatever it finds is cached
+     *
+     * @return the products found, by id; ids without a product are absent
+     */
+    public Map<String, Product> getAll(Collection<String> ids,
+            Function<Collection<String>, ? extends Iterable<Product>> loader) {
+        Map<String, Product> found = new HashMap<>(cache.getAllPresent(ids));
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            if (!found.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        long stamp = invalidations.get();
+        for (Product loaded : loader.apply(misses)) {
+            found.put(loaded.getId(), loaded);
+            if (stamp == invalidations.get()) {
+                put(loaded);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * caches the product unless an entry with a newer version is already present
+     */
+    public void put(Product product) {
+        if (product == null || product.getId() == null || product == Product.EMPTY) {
+            return;
+        }
+        cache.asMap().merge(product.getId(), product,
+                (existing, candidate) -> isSameOrNewer(candidate, existing) ? candidate : existing);
+    }
+
+    public void evict(String id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long invalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * exposed so that cache statistics can be bound to the actuator metrics registry
+     */
+    public Cache<String, Product> getNativeCache() {
+        return cache;
+    }
+
+    private static boolean isSameOrNewer(Product candidate, Product existing) {
+        return versionOf(candidate) >= versionOf(existing);
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() == null ? -1L : product.getVersion();
+    }
+}
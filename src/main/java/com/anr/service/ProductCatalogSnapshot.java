@@ -0,0 +1,207 @@
+package com.anr.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.anr.localmdb.model.Product;
+import com.anr.model.ProductCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Copy-on-write snapshot of the whole catalog for GET /api/v1/products: an immutable
+ * {@link ProductCatalog} behind a volatile reference, so readers take no lock and never wait.
+ *
+ * Committed writes only mark the snapshot out of date and queue a rebuild on the background
+ * executor; at most one rebuild is queued however many writes arrive, and each one reads every
+ * row, encodes the response once and swaps the reference. A snapshot that has fallen behind is
+ * still served until it is older than the staleness bound, after which readers get null and go to
+ * the database instead. Catalogs larger than the product limit are never snapshotted.
+ *
+ * @author amitr
+ */
+public class ProductCatalogSnapshot implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogSnapshot.class);
+
+    private final IntFunction<List<Product>> loader;
+    private final ObjectWriter writer;
+    private final int maxProducts;
+    private final long maxStalenessNanos;
+    private final boolean gzip;
+    private final Executor executor;
+    // bumped by every committed write; a snapshot remembers the count it was read at
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong staleReads = new AtomicLong();
+    private volatile Snapshot current;
+    private volatile boolean oversized;
+
+    /**
+     * @param loader reads at most the given number of products, in id order
+     */
+    public ProductCatalogSnapshot(IntFunction<List<Product>> loader, ObjectMapper objectMapper, int maxProducts,
+            Duration maxStaleness, boolean gzip, Executor executor) {
+        this.loader = loader;
+        this.writer = objectMapper == null ? null
+                : objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class,
+                        Product.class));
+        this.maxProducts = maxProducts;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.gzip = gzip;
+        this.executor = executor;
+    }
+
+    /**
+     * a snapshot that is never built: {@link #current()} is always null
+     */
+    public static ProductCatalogSnapshot disabled() {
+        return new ProductCatalogSnapshot(null, null, 0, Duration.ZERO, false, null);
+    }
+
+    public boolean isEnabled() {
+        return loader != null;
+    }
+
+    /**
+     * @return the catalog, or null when there is no snapshot yet, the catalog is too large, or the
+     *         snapshot lags the latest write by more than the staleness bound
+     */
+    public ProductCatalog current() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            return null;
+        }
+        // everything committed before the read started is in it, so this bounds how far behind it is
+        if (snapshot.writes != writes.get() && System.nanoTime() - snapshot.readAt > maxStalenessNanos) {
+            staleReads.incrementAndGet();
+            return null;
+        }
+        return snapshot.catalog;
+    }
+
+    /**
+     * called once a write has committed: the current snapshot becomes stale and a rebuild is queued
+     */
+    public void invalidate() {
+        if (!isEnabled()) {
+            return;
+        }
+        writes.incrementAndGet();
+        refresh();
+    }
+
+    /**
+     * queues a rebuild unless one is already waiting to run
+     */
+    public void refresh() {
+        if (!isEnabled() || !rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::rebuild);
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+            logger.warn("Catalog snapshot rebuild not scheduled: {}", e.getMessage());
+        }
+    }
+
+    public long rebuildCount() {
+        return rebuilds.get();
+    }
+
+    public long staleReadCount() {
+        return staleReads.get();
+    }
+
+    /**
+     * products in the current snapshot, 0 when there is none
+     */
+    public int size() {
+        Snapshot snapshot = current;
+        return snapshot == null ? 0 : snapshot.catalog.getProducts().size();
+    }
+
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void rebuild() {
+        // writes arriving from here on queue the next rebuild
+        rebuildQueued.set(false);
+        long seen = writes.get();
+        long readAt = System.nanoTime();
+        try {
+            List<Product> products = loader.apply(maxProducts + 1);
+            if (products.size() > maxProducts) {
+                current = null;
+                if (!oversized) {
+                    oversized = true;
+                    logger.info("Catalog has more than {} products, serving it from the database", maxProducts);
+                }
+                return;
+            }
+            oversized = false;
+            current = new Snapshot(encode(products), seen, readAt);
+            rebuilds.incrementAndGet();
+        } catch (RuntimeException | IOException e) {
+            // the previous snapshot stays until it ages past the staleness bound
+            logger.warn("Catalog snapshot rebuild failed", e);
+        }
+    }
+
+    private ProductCatalog encode(List<Product> products) throws IOException {
+        byte[] json = writer.writeValueAsBytes(products);
+        String etag = "\"" + HexFormat.of().formatHex(sha256().digest(json), 0, 16) + "\"";
+        return new ProductCatalog(products, json, gzip ? gzip(json) : null, etag);
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final ProductCatalog catalog;
+        private final long writes;
+        private final long readAt;
+
+        private Snapshot(ProductCatalog catalog, long writes, long readAt) {
+            this.catalog = catalog;
+            this.writes = writes;
+            this.readAt = readAt;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.anr.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.anr.model.ProductChangeEvent;
+import com.anr.model.ProductChangeEvent.Operation;
+
+/**
+ * In-process fan-out of committed product writes to change-stream subscribers
+ *
+ * Every event gets a sequence number and is kept in a fixed-size history ring, so a subscriber
+ * that reconnects with the last event id it saw is replayed what it missed. Each subscriber has
+ * its own bounded queue; publishing never blocks, and a subscriber whose queue is full is dropped
+ * instead of slowing writers down. When the requested position has already left the history (or
+ * belongs to an earlier process), the subscriber is sent a single RESET event instead.
+ *
+ * Event ids are "&lt;epoch&gt;-&lt;sequence&gt;", the epoch identifying this process.
+ *
+ * @author amitr
+ */
+public class ProductChangeFeed {
+
+    private static final String ID_SEPARATOR = "-";
+    // wakes a blocked poll once its subscription is closed
+    private static final ProductChangeEvent CLOSED = new ProductChangeEvent(null, null, null, null);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Lock lock = new ReentrantLock();
+    private final ProductChangeEvent[] history;
+    private final int bufferSize;
+    private final Duration heartbeat;
+    private final List<Subscription> subscribers = new ArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    // sequence of the most recent event, 0 before the first one
+    private long lastSeq;
+
+    /**
+     * @param heartbeat longest a subscriber waits for an event before it should send a keep-alive
+     */
+    public ProductChangeFeed(int historySize, int bufferSize, Duration heartbeat) {
+        this.history = new ProductChangeEvent[historySize];
+        this.bufferSize = bufferSize;
+        this.heartbeat = heartbeat;
+    }
+
+    public void publish(Operation operation, String id, Long version) {
+        lock.lock();
+        try {
+            long seq = ++lastSeq;
+            ProductChangeEvent event = new ProductChangeEvent(eventId(seq), id, version, operation);
+            history[(int) (seq % history.length)] = event;
+            subscribers.removeIf(subscriber -> !subscriber.offer(event));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param lastEventId the last event id the client received, or null to start with the next event
+     */
+    public Subscription subscribe(String lastEventId) {
+        lock.lock();
+        try {
+            Subscription subscription = new Subscription();
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscription, lastEventId.trim());
+            }
+            subscribers.add(subscription);
+            return subscription;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int subscriberCount() {
+        lock.lock();
+        try {
+            return subscribers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * subscribers disconnected because they fell a whole buffer behind
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * sequence number of the latest event
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replay(Subscription subscription, String lastEventId) {
+        long from = resumeAfter(lastEventId);
+        long oldestKept = Math.max(1, lastSeq - history.length + 1);
+        if (from < 0 || from > lastSeq || from + 1 < oldestKept || lastSeq - from > bufferSize) {
+            subscription.queue.add(new ProductChangeEvent(eventId(lastSeq), null, null, Operation.RESET));
+            return;
+        }
+        for (long seq = from + 1; seq <= lastSeq; seq++) {
+            subscription.queue.add(history[(int) (seq % history.length)]);
+        }
+    }
+
+    // sequence the id refers to, or -1 when it is malformed or from another process
+    private long resumeAfter(String lastEventId) {
+        int separator = lastEventId.lastIndexOf(ID_SEPARATOR);
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long seq) {
+        return epoch + ID_SEPARATOR + seq;
+    }
+
+    private void remove(Subscription subscription) {
+        lock.lock();
+        try {
+            subscribers.remove(subscription);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * one subscriber's bounded queue of pending events
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final BlockingQueue<ProductChangeEvent> queue = new ArrayBlockingQueue<>(bufferSize + 1);
+        private volatile boolean closed;
+
+        /**
+         * @return the next event, or null when none arrived within the heartbeat interval or the
+         *         subscription has been closed
+         */
+        public ProductChangeEvent poll() throws InterruptedException {
+            if (closed) {
+                return null;
+            }
+            ProductChangeEvent event = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+            return event == CLOSED ? null : event;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                remove(this);
+                wake();
+            }
+        }
+
+        // called under the feed lock; false once the subscriber has to go
+        private boolean offer(ProductChangeEvent event) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() < bufferSize && queue.offer(event)) {
+                return true;
+            }
+            closed = true;
+            dropped.incrementAndGet();
+            wake();
+            return false;
+        }
+
+        private void wake() {
+            queue.clear();
+            queue.offer(CLOSED);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.anr.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import com.anr.localmdb.model.Product;
+import com.anr.model.ProductJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Serialized-form cache for GET /api/v1/products/{id}: each entry is a product's encoded JSON
+ * (and optionally its gzip form) together with the id and version it was encoded from, so a hit
+ * needs neither the entity nor Jackson. Bounded by the bytes held rather than the entry count.
+ *
+ * Writers evict instead of re-encoding; the next read encodes the committed row once. As in
+ * {@link ProductCache}, a load that started before an eviction is answered but not cached, so an
+ * in-flight read cannot put back bytes of a version that was just replaced or deleted.
+ *
+ * @author amitr
+ */
+public class ProductJsonCache {
+
+    private final Cache<String, ProductJson> cache;
+    private final ObjectWriter writer;
+    private final boolean gzip;
+    private final AtomicLong bytesHeld = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductJsonCache(ObjectMapper objectMapper, long maximumBytes, Duration expireAfterWrite, boolean gzip) {
+        this.writer = objectMapper.writerFor(Product.class);
+        this.gzip = gzip;
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .<String, ProductJson>weigher((id, entry) -> entry.size())
+                .expireAfterWrite(expireAfterWrite)
+                .removalListener(notification -> bytesHeld.addAndGet(-notification.getValue().size()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * returns the cached encoding, or encodes the product found by the given loader and caches it
+     *
+     * @return the encoded product, or null when the loader finds nothing (Product.EMPTY)
+     */
+    public ProductJson get(String id, Function<String, Product> loader) {
+        ProductJson cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = invalidations.get();
+        Product product = loader.apply(id);
+        if (product == null || product == Product.EMPTY) {
+            return null;
+        }
+        ProductJson encoded = encode(product);
+        if (stamp == invalidations.get() && cache.asMap().putIfAbsent(id, encoded) == null) {
+            bytesHeld.addAndGet(encoded.size());
+        }
+        return encoded;
+    }
+
+    public void evict(String id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long bytesHeld() {
+        return bytesHeld.get();
+    }
+
+    /**
+     * exposed so that cache statistics can be bound to the actuator metrics registry
+     */
+    public Cache<String, ProductJson> getNativeCache() {
+        return cache;
+    }
+
+    private ProductJson encode(Product product) {
+        try {
+            byte[] json = writer.writeValueAsBytes(product);
+            long version = product.getVersion() == null ? 0L : product.getVersion();
+            return new ProductJson(product.getId(), version, json, gzip ? gzip(json) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not encode product " + product.getId(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        }
+        return out.toByteArray();
+    }
+}
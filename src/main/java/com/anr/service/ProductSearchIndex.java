@@ -0,0 +1,230 @@
+package com.anr.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.anr.localmdb.model.Product;
+
+/**
+ * In-memory trigram index over Product.description for case-insensitive substring search
+ *
+ * Each lowercased description is split into overlapping 3-character grams; a query is answered by
+ * intersecting the posting lists of its own grams (shortest first) and confirming the surviving
+ * candidates with a plain contains check, so only matching rows are ever loaded. Queries shorter
+ * than one gram, or issued before the first {@link #rebuild(Iterable)}, cannot be answered here and
+ * the caller falls back to the database LIKE query
+ *
+ * Postings are sorted int arrays of document ordinals rather than sets of ids, which keeps a
+ * million-product catalog within a few hundred MB. Ordinals only ever grow, so an update appends a
+ * new ordinal and leaves the old one dead; dead slots are skipped at query time and reclaimed by
+ * compacting once they outnumber the live ones
+ *
+ * @author amitr
+ */
+@Component
+public class ProductSearchIndex {
+
+    static final int GRAM = 3;
+    private static final int MIN_DEAD_BEFORE_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    // lowercased description per ordinal, null once the ordinal is dead
+    private final List<String> texts = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int dead;
+    private volatile boolean ready;
+
+    /**
+     * @return matching product ids in id order, or empty when the query must go to the database
+     */
+    public Optional<List<String>> search(String text) {
+        if (!ready || text == null || text.length() < GRAM) {
+            return Optional.empty();
+        }
+        String needle = normalize(text);
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String gram : grams(needle)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return Optional.of(Collections.emptyList());
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            List<String> matches = new ArrayList<>();
+            Postings shortest = lists.get(0);
+            for (int i = 0; i < shortest.size; i++) {
+                int ord = shortest.ords[i];
+                // grams only prove the pieces are present; the exact substring still has to be checked
+                String candidate = texts.get(ord);
+                if (candidate != null && inAll(ord, lists) && candidate.contains(needle)) {
+                    matches.add(ids.get(ord));
+                }
+            }
+            Collections.sort(matches);
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            add(product.getId(), product.getDescription());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            kill(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * replaces the whole index with the given products and starts answering queries
+     */
+    public void rebuild(Iterable<Product> products) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Product product : products) {
+                add(product.getId(), product.getDescription());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(String id, String description) {
+        kill(id);
+        if (description == null) {
+            return;
+        }
+        String text = normalize(description);
+        int ord = ids.size();
+        ids.add(id);
+        texts.add(text);
+        ordinals.put(id, ord);
+        for (String gram : grams(text)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).append(ord);
+        }
+    }
+
+    private void kill(String id) {
+        Integer ord = ordinals.remove(id);
+        if (ord != null) {
+            texts.set(ord, null);
+            dead++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (dead < MIN_DEAD_BEFORE_COMPACT || dead < ordinals.size()) {
+            return;
+        }
+        List<String> liveIds = new ArrayList<>();
+        List<String> liveTexts = new ArrayList<>();
+        for (int ord = 0; ord < ids.size(); ord++) {
+            if (texts.get(ord) != null) {
+                liveIds.add(ids.get(ord));
+                liveTexts.add(texts.get(ord));
+            }
+        }
+        clear();
+        for (int i = 0; i < liveIds.size(); i++) {
+            add(liveIds.get(i), liveTexts.get(i));
+        }
+    }
+
+    private void clear() {
+        ordinals.clear();
+        ids.clear();
+        texts.clear();
+        postings.clear();
+        dead = 0;
+    }
+
+    private static boolean inAll(int ord, List<Postings> lists) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(ord)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> grams(String text) {
+        if (text.length() < GRAM) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * ascending ordinals of the documents containing one gram; appends keep it sorted because new
+     * ordinals are always the largest
+     */
+    private static final class Postings {
+        private int[] ords = new int[4];
+        private int size;
+
+        void append(int ord) {
+            if (size == ords.length) {
+                ords = Arrays.copyOf(ords, size * 2);
+            }
+            ords[size++] = ord;
+        }
+
+        boolean contains(int ord) {
+            return Arrays.binarySearch(ords, 0, size, ord) >= 0;
+        }
+    }
+}
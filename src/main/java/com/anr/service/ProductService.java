@@ -1,77 +1,643 @@
 package com.anr.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.anr.common.ChangeSequence;
+import com.anr.common.CursorCodec;
+import com.anr.common.SingleFlight;
+import com.anr.common.TombstoneRetention;
 import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.ProductTombstone;
 import com.anr.localmdb.repository.ProductRepository;
+import com.anr.localmdb.repository.ProductTombstoneRepository;
+import com.anr.model.ProductChangeEvent.Operation;
+import com.anr.model.ProductCatalog;
+import com.anr.model.ProductChanges;
+import com.anr.model.ProductJson;
+import com.anr.model.ProductLookup;
+import com.anr.model.ProductPage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.google.common.collect.Lists;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 @Transactional(readOnly = true)  // Default for all methods (performance optimization)
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    // rows per export/index-rebuild chunk: the persistence context is cleared after each one
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    // attributes a fields= selection may name
+    private static final List<String> PROJECTABLE_FIELDS = List.of("id", "name", "description", "price",
+            "priceMinor", "version");
+    // price-ordered cursors carry "<priceMinor>:<id>"
+    private static final String PRICE_CURSOR_SEPARATOR = ":";
+    // delta sync watermarks carry "<after>", or "<after>:<known>" while a full sync is paged through
+    private static final String WATERMARK_SEPARATOR = ":";
+    // ids per primary-key lookup when loading search hits
+    private static final int SEARCH_LOAD_CHUNK_SIZE = 1000;
+    // once more than 1 in N products match, one LIKE scan is cheaper than loading the hits by id
+    private static final int SEARCH_SCAN_FRACTION = 10;
+    private static final JsonFactory NDJSON_FACTORY = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
     private final ProductRepository productRepo;
+    private final ProductCache productCache;
+    private final ProductJsonCache jsonCache;
+    private final ProductSearchIndex searchIndex;
+    private final SingleFlight loads;
+    private final ProductChangeFeed changeFeed;
+    private final ProductTombstoneRepository tombstoneRepo;
+    private final ChangeSequence changeSequence;
+    private final ProductCatalogSnapshot catalogSnapshot;
+    private final TombstoneRetention tombstoneRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     // Constructor injection (better than field injection)
-    public ProductService(ProductRepository productRepo) {
+    public ProductService(ProductRepository productRepo, ProductCache productCache, ProductJsonCache jsonCache,
+            ProductSearchIndex searchIndex, SingleFlight loads, ProductChangeFeed changeFeed,
+            ProductTombstoneRepository tombstoneRepo, ChangeSequence changeSequence,
+            ProductCatalogSnapshot catalogSnapshot, TombstoneRetention tombstoneRetention) {
         this.productRepo = productRepo;
+        this.productCache = productCache;
+        this.jsonCache = jsonCache;
+        this.searchIndex = searchIndex;
+        this.loads = loads;
+        this.changeFeed = changeFeed;
+        this.tombstoneRepo = tombstoneRepo;
+        this.changeSequence = changeSequence;
+        this.catalogSnapshot = catalogSnapshot;
+        this.tombstoneRetention = tombstoneRetention;
     }
 
     @Transactional  // Override for write operations
     public Product saveOne(Product prod) {
-        return productRepo.save(prod);
+        Product saved = productRepo.save(prod);
+        afterCommit(() -> {
+            productCache.put(saved);
+            jsonCache.evict(saved.getId());
+            searchIndex.put(saved);
+            changeFeed.publish(Operation.CREATED, saved.getId(), saved.getVersion());
+            catalogSnapshot.invalidate();
+        });
+        return saved;
     }
 
     @Transactional  // Ensures all saves happen in one transaction
     public List<Product> saveBatch(List<Product> products) {
-        return productRepo.saveAll(products);
+        List<Product> saved = productRepo.saveAll(products);
+        afterCommit(() -> {
+            saved.forEach(product -> {
+                productCache.put(product);
+                jsonCache.evict(product.getId());
+                searchIndex.put(product);
+                changeFeed.publish(Operation.CREATED, product.getId(), product.getVersion());
+            });
+            catalogSnapshot.invalidate();
+        });
+        return saved;
     }
 
+    // cache hits must not open a transaction; a miss loads through the repository's own read-only one,
+    // shared by every concurrent miss for the same id
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Product findById(String id) {
-        Optional<Product> product = productRepo.findById(id);
-        if (product.isEmpty()) {
-            return Product.EMPTY;
-        } else {
-            return product.get();
+        return productCache.get(id, key -> coalesced("id:" + key, () -> loadById(key)));
+    }
+
+    /**
+     * products for a list of ids, in the order asked for; cached products are served from the
+     * cache and all the others are read with one IN query
+     *
+     * @return found products in request order (repeated ids once) and the ids with no product
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductLookup findByIds(List<String> ids) {
+        Set<String> distinct = new LinkedHashSet<>(ids);
+        Map<String, Product> found = productCache.getAll(distinct, productRepo::findAllById);
+        List<Product> products = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : distinct) {
+            Product product = found.get(id);
+            if (product == null) {
+                missing.add(id);
+            } else {
+                products.add(product);
+            }
         }
+        return new ProductLookup(products, missing);
     }
 
+    /**
+     * the product's encoded JSON, from the serialized-form cache when it is hot; a miss goes through
+     * {@link #findById(String)} and is encoded once
+     *
+     * @return the encoded product, or null when there is no such product
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductJson findJsonById(String id) {
+        return jsonCache.get(id, this::findById);
+    }
+
+    // concurrent lookups of the same name share one query instead of opening a transaction each
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Product> findByExactName(String name) {
-        return productRepo.findProductsByName(name);
+        return coalesced("name:" + name, () -> productRepo.findProductsByName(name));
     }
 
+    /**
+     * case-insensitive substring search on description; answered from the trigram index when it is
+     * built, the text is long enough and the match is selective, otherwise by the LIKE query
+     */
     public List<Product> findByDescContaining(String textpart) {
-        return productRepo.findProductsWithDescriptionContaining(textpart);
+        Optional<List<String>> ids = searchIndex.search(textpart);
+        if (ids.isEmpty() || !isSelective(ids.get().size())) {
+            return productRepo.findProductsWithDescriptionContaining(likeLiteral(textpart));
+        }
+        if (ids.get().isEmpty()) {
+            return List.of();
+        }
+        // matching ids are loaded by primary key, a bounded IN list at a time
+        List<Product> products = new ArrayList<>(ids.get().size());
+        for (List<String> chunk : Lists.partition(ids.get(), SEARCH_LOAD_CHUNK_SIZE)) {
+            products.addAll(productRepo.findAllById(chunk));
+        }
+        products.sort(Comparator.comparing(Product::getId));
+        return products;
+    }
+
+    /**
+     * loads every description into the search index; runs once the sample data is in place and
+     * can be re-run to resynchronize after out-of-band changes to the table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        AtomicLong count = new AtomicLong();
+        try (Stream<Product> rows = productRepo.streamAllOrderedById()) {
+            searchIndex.rebuild(() -> rows.peek(product -> {
+                if (count.incrementAndGet() % EXPORT_CHUNK_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }).iterator());
+        }
+        logger.info("Product search index built over {} products", count.get());
     }
 
     public List<Product> findAll() {
         return productRepo.findAll();
     }
 
+    /**
+     * the whole catalog from the in-memory snapshot, without a query or a transaction
+     *
+     * @return the snapshot, or null when it is disabled, not built yet, or too stale - use
+     *         {@link #findAll()} then
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductCatalog findCatalog() {
+        return catalogSnapshot.current();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildCatalogSnapshot() {
+        catalogSnapshot.refresh();
+    }
+
+    /**
+     * all products reduced to the comma-separated fields, selected as columns rather than entities
+     *
+     * @throws IllegalArgumentException when a field is not a Product attribute
+     */
+    public List<Map<String, Object>> findAllFields(String fields) {
+        return productRepo.findFieldsOrderedById(parseFields(fields), null, Limit.unlimited());
+    }
+
+    /**
+     * {@link #findPage(String, int)} reduced to the comma-separated fields
+     *
+     * @throws IllegalArgumentException for an unknown field or a cursor not handed out by a previous page
+     */
+    public ProductPage<Map<String, Object>> findPageFields(String fields, String cursor, int limit) {
+        List<String> columns = parseFields(fields);
+        String afterId = cursor == null ? null : CursorCodec.decode(cursor);
+        List<Map<String, Object>> rows = productRepo.findFieldsOrderedById(columns, afterId, Limit.of(limit + 1));
+        if (rows.size() <= limit) {
+            return new ProductPage<>(rows, null, limit);
+        }
+        List<Map<String, Object>> items = rows.subList(0, limit);
+        String nextCursor = CursorCodec.encode((String) items.get(limit - 1).get("id"));
+        return new ProductPage<>(items, nextCursor, limit);
+    }
+
+    /**
+     * one product reduced to the comma-separated fields; served from the product cache, so only the
+     * response shrinks
+     *
+     * @return the selected fields, or an empty map when there is no such product
+     * @throws IllegalArgumentException when a field is not a Product attribute
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Map<String, Object> findFieldsById(String id, String fields) {
+        List<String> columns = parseFields(fields);
+        Product product = findById(id);
+        if (product == Product.EMPTY) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : columns) {
+            Object value = fieldValue(product, field);
+            if (value != null) {
+                row.put(field, value);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * keyset page of products ordered by id; a null cursor starts from the first product
+     *
+     * @throws IllegalArgumentException when the cursor is not one handed out by a previous page
+     */
+    public ProductPage<Product> findPage(String cursor, int limit) {
+        String afterId = cursor == null ? "" : CursorCodec.decode(cursor);
+        // fetch one extra row to learn whether another page follows without a count query
+        List<Product> rows = productRepo.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit + 1));
+        if (rows.size() <= limit) {
+            return new ProductPage<>(rows, null, limit);
+        }
+        List<Product> items = rows.subList(0, limit);
+        String nextCursor = CursorCodec.encode(items.get(limit - 1).getId());
+        return new ProductPage<>(items, nextCursor, limit);
+    }
+
+    /**
+     * keyset page of products ordered by price (then id) with prices in [minPrice, maxPrice] minor
+     * units; either bound may be null. Products without a price are not included
+     *
+     * @throws IllegalArgumentException when the cursor is not one handed out by a previous page
+     */
+    public ProductPage<Product> findPageByPrice(Long minPrice, Long maxPrice, boolean descending, String cursor, int limit) {
+        long min = minPrice == null ? Long.MIN_VALUE : minPrice;
+        long max = maxPrice == null ? Long.MAX_VALUE : maxPrice;
+        Limit fetch = Limit.of(limit + 1);
+        List<Product> rows;
+        if (cursor == null) {
+            rows = descending
+                    ? productRepo.findPriceRangeDescending(min, max, Long.MAX_VALUE, "", fetch)
+                    : productRepo.findPriceRangeAscending(min, max, Long.MIN_VALUE, "", fetch);
+        } else {
+            String position = CursorCodec.decode(cursor);
+            int separator = position.indexOf(PRICE_CURSOR_SEPARATOR);
+            long afterPrice;
+            try {
+                afterPrice = Long.parseLong(position.substring(0, Math.max(separator, 0)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("malformed cursor", e);
+            }
+            String afterId = position.substring(separator + 1);
+            rows = descending
+                    ? productRepo.findPriceRangeDescending(min, max, afterPrice, afterId, fetch)
+                    : productRepo.findPriceRangeAscending(min, max, afterPrice, afterId, fetch);
+        }
+        if (rows.size() <= limit) {
+            return new ProductPage<>(rows, null, limit);
+        }
+        List<Product> items = rows.subList(0, limit);
+        Product last = items.get(limit - 1);
+        String nextCursor = CursorCodec.encode(last.getPriceMinor() + PRICE_CURSOR_SEPARATOR + last.getId());
+        return new ProductPage<>(items, nextCursor, limit);
+    }
+
+    /**
+     * products written and deleted after the watermark, oldest change first, at most limit of them
+     * together; reads only rows whose change sequence is past the watermark, so the cost follows
+     * the churn rather than the catalog size. A watermark older than the pruned tombstones cannot
+     * be told about every delete since, so it starts a full resync instead
+     *
+     * @param watermark watermark of the previous call, or blank to start from the beginning
+     * @throws IllegalArgumentException when the watermark was not handed out by a previous call
+     */
+    public ProductChanges findChangedSince(String watermark, int limit) {
+        if (watermark == null || watermark.isBlank()) {
+            return changesAfter(0L, -1L, limit, false);
+        }
+        long[] position = decodeWatermark(watermark);
+        if (position[1] >= tombstoneRetention.prunedUpTo()) {
+            ProductChanges changes = changesAfter(position[0], position[1], limit, false);
+            // the mark is raised before tombstones go, so a prune that overlapped the read shows here
+            if (position[1] >= tombstoneRetention.prunedUpTo()) {
+                return changes;
+            }
+        }
+        return changesAfter(0L, -1L, limit, true);
+    }
+
+    // known: change number up to which the reader has been told of every delete that matters to it,
+    // or -1 for a sync from the beginning, which holds nothing deleted up to the horizon it starts at
+    private ProductChanges changesAfter(long after, long known, int limit, boolean resync) {
+        // everything at or below the horizon has committed or rolled back, so nothing can appear
+        // behind the new watermark later
+        long upTo = changeSequence.horizon();
+        Limit fetch = Limit.of(limit + 1);
+        List<Product> products = productRepo.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                after, upTo, fetch);
+        List<ProductTombstone> tombstones = tombstoneRepo
+                .findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(after, upTo, fetch);
+
+        List<Product> changed = new ArrayList<>();
+        Set<String> deleted = new LinkedHashSet<>();
+        int p = 0;
+        int t = 0;
+        long last = after;
+        while (changed.size() + t < limit && (p < products.size() || t < tombstones.size())) {
+            if (t == tombstones.size()
+                    || p < products.size() && products.get(p).getChangeSeq() < tombstones.get(t).getChangeSeq()) {
+                last = products.get(p).getChangeSeq();
+                changed.add(products.get(p++));
+            } else {
+                last = tombstones.get(t).getChangeSeq();
+                deleted.add(tombstones.get(t++).getProductId());
+            }
+        }
+        boolean hasMore = p < products.size() || t < tombstones.size();
+        // a product re-created after its delete is reported once, as changed
+        changed.forEach(product -> deleted.remove(product.getId()));
+        long next = hasMore ? last : Math.max(upTo, after);
+        String nextWatermark = encodeWatermark(next, Math.max(next, known < 0 ? upTo : known));
+        return new ProductChanges(changed, new ArrayList<>(deleted), nextWatermark, hasMore, resync);
+    }
+
+    private static String encodeWatermark(long after, long known) {
+        return CursorCodec.encode(known > after ? after + WATERMARK_SEPARATOR + known : Long.toString(after));
+    }
+
+    // {after, known}
+    private static long[] decodeWatermark(String watermark) {
+        String[] parts = CursorCodec.decode(watermark).split(WATERMARK_SEPARATOR, -1);
+        try {
+            long after = Long.parseLong(parts[0]);
+            long known = parts.length == 1 ? after : Long.parseLong(parts[1]);
+            if (parts.length > 2 || known < after) {
+                throw new IllegalArgumentException("malformed watermark");
+            }
+            return new long[] { after, known };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("malformed watermark", e);
+        }
+    }
+
+    public List<Product> findCheapest(int count) {
+        return productRepo.findByPriceMinorNotNullOrderByPriceMinorAscIdAsc(Limit.of(count));
+    }
+
+    /**
+     * writes every product as one JSON document per line, in the products.txt shape
+     * ({"_id":..,"name":..,"description":..,"price":..}); memory use is independent of catalog size
+     *
+     * @return number of products written
+     */
+    public long exportAll(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Product> rows = productRepo.streamAllOrderedById();
+                JsonGenerator json = NDJSON_FACTORY.createGenerator(out)) {
+            Iterator<Product> it = rows.iterator();
+            while (it.hasNext()) {
+                writeExportLine(json, it.next());
+                if (++count % EXPORT_CHUNK_SIZE == 0) {
+                    json.flush();
+                    // exported rows are never touched again; drop them so the context does not grow
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    private void writeExportLine(JsonGenerator json, Product product) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("_id", product.getId());
+        writeIfPresent(json, "name", product.getName());
+        writeIfPresent(json, "description", product.getDescription());
+        writeIfPresent(json, "price", product.getPrice());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeIfPresent(JsonGenerator json, String field, String value) throws IOException {
+        if (value != null) {
+            json.writeStringField(field, value);
+        }
+    }
+
+    /**
+     * unconditional update: one UPDATE statement, then the version it wrote is read back
+     *
+     * @return the product as written, or Product.EMPTY when there is no such product
+     */
     @Transactional  // Atomic update operation - prevents race conditions
     public Product updateProduct(String id, Product product) {
-        return productRepo.findById(id)
-            .map(existing -> {
-                product.setId(id); // Ensure the ID matches
-                // Preserve version for optimistic locking if it exists
-                if (existing.getVersion() != null) {
-                    product.setVersion(existing.getVersion());
-                }
-                return productRepo.save(product);
-            })
-            .orElse(Product.EMPTY);
+        return updateProduct(id, product, null);
     }
 
+    /**
+     * one versioned UPDATE ... WHERE id = ? AND version = ?; the row is only looked at again when
+     * nothing was updated, to tell a missing product from a stale version. Without an expected
+     * version the UPDATE matches on id alone and the version it wrote is read back in the same
+     * transaction
+     *
+     * @param expectedVersion version the client last saw, or null for an unconditional update
+     * @return the product as written, or Product.EMPTY when there is no such product
+     * @throws ObjectOptimisticLockingFailureException when the product is no longer at expectedVersion
+     */
+    @Transactional
+    public Product updateProduct(String id, Product product, Long expectedVersion) {
+        product.setId(id); // Ensure the ID matches
+        long changeSeq = changeSequence.next();
+        int rows = expectedVersion == null
+                ? productRepo.updateById(id, product.getName(), product.getDescription(), product.getPrice(),
+                        product.getPriceMinor(), changeSeq)
+                : productRepo.updateIfVersion(id, expectedVersion, product.getName(), product.getDescription(),
+                        product.getPrice(), product.getPriceMinor(), changeSeq);
+        if (rows == 0) {
+            if (expectedVersion != null) {
+                failIfPresent(id);
+            }
+            return Product.EMPTY;
+        }
+        product.setVersion(expectedVersion == null ? productRepo.findVersionById(id) : expectedVersion + 1);
+        afterCommit(() -> {
+            productCache.put(product);
+            jsonCache.evict(id);
+            searchIndex.put(product);
+            changeFeed.publish(Operation.UPDATED, id, product.getVersion());
+            catalogSnapshot.invalidate();
+        });
+        return product;
+    }
+
+    /**
+     * one DELETE ... WHERE id = ?, plus the tombstone insert
+     */
     @Transactional  // Atomic delete operation
     public boolean deleteProduct(String id) {
+        if (productRepo.deleteWhereId(id) == 0) {
+            return false;
+        }
+        afterDelete(id);
+        return true;
+    }
+
+    /**
+     * one DELETE ... WHERE id = ? AND version = ?, plus the tombstone insert
+     *
+     * @param expectedVersion version the client last saw, or null for an unconditional delete
+     * @throws ObjectOptimisticLockingFailureException when the product is no longer at expectedVersion
+     */
+    @Transactional
+    public boolean deleteProduct(String id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return deleteProduct(id);
+        }
+        if (productRepo.deleteIfVersion(id, expectedVersion) == 0) {
+            failIfPresent(id);
+            return false;
+        }
+        afterDelete(id);
+        return true;
+    }
+
+    // a versioned write that touched no row: the product is either gone or at another version
+    private void failIfPresent(String id) {
         if (productRepo.existsById(id)) {
-            productRepo.deleteById(id);
-            return true;
+            throw new ObjectOptimisticLockingFailureException(Product.class, id);
+        }
+    }
+
+    // the tombstone commits with the delete, so "changed since" readers cannot see one without the other;
+    // tombstones that fell out of the retention window go in the same transaction, a batch at a time
+    private void afterDelete(String id) {
+        tombstoneRepo.insert(changeSequence.next(), id);
+        long pruneUpTo = tombstoneRetention.claim(changeSequence.horizon());
+        if (pruneUpTo > 0) {
+            tombstoneRepo.deleteUpTo(pruneUpTo);
+        }
+        afterCommit(() -> {
+            productCache.evict(id);
+            jsonCache.evict(id);
+            searchIndex.remove(id);
+            changeFeed.publish(Operation.DELETED, id, null);
+            catalogSnapshot.invalidate();
+        });
+    }
+
+    // id first (keyset position and identity), then the requested fields in order, without repeats
+    private List<String> parseFields(String fields) {
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!PROJECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("unknown field '" + name + "', expected any of "
+                        + PROJECTABLE_FIELDS);
+            }
+            columns.add(name);
+        }
+        return new ArrayList<>(columns);
+    }
+
+    private Object fieldValue(Product product, String field) {
+        return switch (field) {
+            case "id" -> product.getId();
+            case "name" -> product.getName();
+            case "description" -> product.getDescription();
+            case "price" -> product.getPrice();
+            case "priceMinor" -> product.getPriceMinor();
+            case "version" -> product.getVersion();
+            default -> throw new IllegalArgumentException("unknown field '" + field + "'");
+        };
+    }
+
+    // a single chunk of hits is always worth loading by id; beyond that only a small share of the catalog
+    private boolean isSelective(int hits) {
+        return hits <= SEARCH_LOAD_CHUNK_SIZE || hits <= searchIndex.size() / SEARCH_SCAN_FRACTION;
+    }
+
+    // the text as a LIKE literal, so % and _ match themselves in the query as they do in the index
+    private static String likeLiteral(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private Product loadById(String id) {
+        Optional<Product> product = productRepo.findById(id);
+        if (product.isEmpty()) {
+            return Product.EMPTY;
+        } else {
+            return product.get();
+        }
+    }
+
+    // concurrent loads of one key share a call, except in a transaction, which must see its own writes
+    private <V> V coalesced(String key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        return loads.run(key, loader);
+    }
+
+    /**
+     * cache maintenance runs only once the write is committed, so readers never see uncommitted
+     * rows; without an active transaction (plain unit tests) the action runs immediately
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        return false;
     }
 
 }
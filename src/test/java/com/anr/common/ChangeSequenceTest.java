@@ -0,0 +1,52 @@
+package com.anr.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for the commit-safe change sequence horizon
+ *
+ * @author amitr
+ */
+public class ChangeSequenceTest {
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void test_next_continuesPastStoredMaximum() {
+        ChangeSequence sut = new ChangeSequence(41);
+
+        assertEquals(42, sut.next());
+        assertEquals(43, sut.next());
+        assertEquals(43, sut.horizon());
+    }
+
+    @Test
+    void test_horizon_staysBelowOpenTransaction() {
+        ChangeSequence sut = new ChangeSequence(0);
+        sut.next();
+
+        TransactionSynchronizationManager.initSynchronization();
+        long open = sut.next();
+        List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        // a later write commits first
+        sut.next();
+
+        assertEquals(open - 1, sut.horizon());
+
+        pending.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(3, sut.horizon());
+    }
+}
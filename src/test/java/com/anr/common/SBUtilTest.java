@@ -2,16 +2,19 @@ package com.anr.common;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.client.RestClientException;
 
 import com.anr.common.SBUtil.TransactionType;
@@ -20,6 +23,11 @@ import com.anr.exception.ErrorRootElement;
 import com.anr.logging.LogForwarder;
 import com.anr.logging.model.SplunkEvent;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
 /**
  * Comprehensive test suite for SBUtil class
  * Target: >90% code coverage
@@ -41,6 +49,26 @@ public class SBUtilTest {
     private static final String TRANSACTION_ID = "TXN-12345";
     private static final String TEST_MESSAGE = "Test log message";
 
+    private final Logger sbutilLogger = (Logger) LoggerFactory.getLogger(SBUtil.class);
+    private final Level sbutilLevel = sbutilLogger.getLevel();
+    private ListAppender<ILoggingEvent> appender;
+
+    @AfterEach
+    void restoreLogger() {
+        sbutilLogger.setLevel(sbutilLevel);
+        if (appender != null) {
+            sbutilLogger.detachAppender(appender);
+        }
+    }
+
+    private ListAppender<ILoggingEvent> capture(Level level) {
+        sbutilLogger.setLevel(level);
+        appender = new ListAppender<>();
+        appender.start();
+        sbutilLogger.addAppender(appender);
+        return appender;
+    }
+
     // ========================================================================
     // LOG DEBUG TESTS
     // ========================================================================
@@ -162,6 +190,52 @@ public class SBUtilTest {
         // Assert - method executes without exception
     }
 
+    // ========================================================================
+    // LOG LEVEL TESTS
+    // ========================================================================
+
+    @Test
+    void testLogInfo_emittedAtInfoWithArguments() {
+        ListAppender<ILoggingEvent> events = capture(Level.INFO);
+
+        sut.logInfo(TRANSACTION_ID, "start time:{} of {}", 42L, "api");
+        sut.logDebug(TRANSACTION_ID, TEST_MESSAGE);
+
+        assertEquals(1, events.list.size());
+        assertSame(Level.INFO, events.list.get(0).getLevel());
+        assertTrue(events.list.get(0).getFormattedMessage()
+                .startsWith("[transmissionID = TXN-12345] start time:42 of api (ts="));
+    }
+
+    @Test
+    void testLogError_emittedAtErrorWhenInfoIsOff() {
+        ListAppender<ILoggingEvent> events = capture(Level.WARN);
+
+        sut.logInfo(TRANSACTION_ID, TEST_MESSAGE);
+        sut.logError(TRANSACTION_ID, "failed: {}", "boom");
+
+        assertEquals(1, events.list.size());
+        assertSame(Level.ERROR, events.list.get(0).getLevel());
+        assertTrue(events.list.get(0).getFormattedMessage().contains("failed: boom"));
+    }
+
+    @Test
+    void testLog_levelOff_argumentsNotRendered() {
+        ListAppender<ILoggingEvent> events = capture(Level.ERROR);
+        Object unrenderable = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("rendered while the level is off");
+            }
+        };
+
+        sut.logTrace(TRANSACTION_ID, "{}", unrenderable);
+        sut.logDebug(TRANSACTION_ID, "{}", unrenderable);
+        sut.logInfo(TRANSACTION_ID, "{} {}", unrenderable, unrenderable);
+
+        assertTrue(events.list.isEmpty());
+    }
+
     // ========================================================================
     // LOG STACK TRACE TESTS
     // ========================================================================
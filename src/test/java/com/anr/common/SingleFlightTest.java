@@ -0,0 +1,109 @@
+package com.anr.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for request coalescing, run on virtual threads as the web tier does
+ *
+ * @author amitr
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight sut = new SingleFlight();
+
+    @Test
+    void test_run_concurrentCallersShareOneLoad() throws Exception {
+        int callers = 50;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+
+        List<Future<Object>> answers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                answers.add(executor.submit(() -> sut.run("id:P001", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return result;
+                })));
+            }
+            // hold the load open until every other caller has joined it
+            while (sut.collapsedCount() < callers - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<Object> answer : answers) {
+                assertSame(result, answer.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(callers, sut.callCount());
+        assertEquals(callers - 1, sut.collapsedCount());
+    }
+
+    @Test
+    void test_run_followersSeeLeadersException() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> leader = executor.submit(() -> sut.run("name:x", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("db down");
+            }));
+            started.await();
+            Future<Object> follower = executor.submit(() -> sut.run("name:x", () -> "never"));
+            while (sut.collapsedCount() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertEquals("db down", failed.getCause().getMessage());
+            assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void test_run_completedLoadIsNotReused() {
+        AtomicInteger loads = new AtomicInteger();
+
+        sut.run("id:P001", loads::incrementAndGet);
+        sut.run("id:P001", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, sut.collapsedCount());
+    }
+
+    @Test
+    void test_run_differentKeysDoNotCollapse() {
+        assertEquals("a", sut.run("id:a", () -> "a"));
+        assertEquals("b", sut.run("id:b", () -> "b"));
+        assertEquals(0, sut.collapsedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
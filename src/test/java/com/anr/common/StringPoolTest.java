@@ -0,0 +1,31 @@
+package com.anr.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for canonical String instances
+ *
+ * @author amitr
+ */
+public class StringPoolTest {
+
+    @Test
+    void test_canonical_equalValuesShareOneInstance() {
+        String first = new String("small group");
+        String second = new String("small group");
+        assertNotSame(first, second);
+
+        assertSame(StringPool.canonical(first), StringPool.canonical(second));
+        assertEquals("small group", StringPool.canonical(second));
+    }
+
+    @Test
+    void test_canonical_null() {
+        assertNull(StringPool.canonical(null));
+    }
+}
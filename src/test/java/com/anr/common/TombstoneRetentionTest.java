@@ -0,0 +1,39 @@
+package com.anr.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the tombstone retention window
+ *
+ * @author amitr
+ */
+public class TombstoneRetentionTest {
+
+    @Test
+    void test_claim_onlyOnceAFullBatchIsOutOfTheWindow() {
+        TombstoneRetention sut = new TombstoneRetention(10, 0);
+
+        assertEquals(0L, sut.claim(19));
+        assertEquals(10L, sut.claim(20));
+        assertEquals(10L, sut.prunedUpTo());
+        assertEquals(0L, sut.claim(29));
+        assertEquals(25L, sut.claim(35));
+        assertEquals(25L, sut.prunedUpTo());
+    }
+
+    @Test
+    void test_claim_zeroRetentionPrunesUpToTheHorizon() {
+        TombstoneRetention sut = new TombstoneRetention(0, 4);
+
+        assertEquals(0L, sut.claim(4));
+        assertEquals(5L, sut.claim(5));
+        assertEquals(5L, sut.prunedUpTo());
+    }
+
+    @Test
+    void test_prunedUpTo_neverNegative() {
+        assertEquals(0L, new TombstoneRetention(10, -1).prunedUpTo());
+    }
+}
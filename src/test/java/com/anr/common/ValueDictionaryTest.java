@@ -0,0 +1,157 @@
+package com.anr.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.anr.localmdb.model.DictionaryCodeListener;
+import com.anr.localmdb.model.Plan;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Runs the value dictionary against its own database: stable codes, canonical values, new values
+ * that outlive the transaction that added them, and values added by writers' registration only
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:valuedictionary")
+public class ValueDictionaryTest {
+
+    @Autowired
+    private ValueDictionary sut;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void test_code_sameValueSameCode() {
+        Integer code = sut.code("dictionary-same");
+
+        assertEquals(code, sut.code(new String("dictionary-same")));
+        assertNotEquals(code, sut.code("dictionary-other"));
+        assertNull(sut.code(null));
+    }
+
+    @Test
+    void test_value_canonicalInstance() {
+        Integer code = sut.code(new String("dictionary-canonical"));
+
+        assertSame(StringPool.canonical(new String("dictionary-canonical")), sut.value(code));
+        assertNull(sut.value(null));
+    }
+
+    @Test
+    void test_value_addedElsewhere_readFromTable() {
+        Integer code = jdbc.queryForObject("SELECT COALESCE(MAX(code), 0) + 100 FROM " + ValueDictionary.TABLE,
+                Integer.class);
+        jdbc.update("INSERT INTO " + ValueDictionary.TABLE + " (code, dictionary_value) VALUES (?, ?)", code,
+                "dictionary-elsewhere");
+
+        assertEquals("dictionary-elsewhere", sut.value(code));
+        assertEquals(code, sut.code("dictionary-elsewhere"));
+    }
+
+    @Test
+    void test_code_survivesRollbackOfCallerTransaction() {
+        Integer code = tx.execute(status -> {
+            status.setRollbackOnly();
+            return sut.code("dictionary-rolledback");
+        });
+
+        assertEquals("dictionary-rolledback", jdbc.queryForObject("SELECT dictionary_value FROM "
+                + ValueDictionary.TABLE + " WHERE code = ?", String.class, code));
+    }
+
+    @Test
+    void test_find_readOnly() {
+        Integer code = sut.code("dictionary-found");
+
+        assertEquals(code, sut.find("dictionary-found"));
+        assertEquals(ValueDictionary.ABSENT, sut.find("dictionary-never-stored"));
+        assertNull(sut.find(null));
+        assertEquals(0, count("dictionary-never-stored"));
+    }
+
+    @Test
+    void test_find_unknownValue_tableReadAtMostOncePerInterval() {
+        sut.find("dictionary-find-miss-" + System.nanoTime());
+        Integer code = jdbc.queryForObject("SELECT COALESCE(MAX(code), 0) + 100 FROM " + ValueDictionary.TABLE,
+                Integer.class);
+        jdbc.update("INSERT INTO " + ValueDictionary.TABLE + " (code, dictionary_value) VALUES (?, ?)", code,
+                "dictionary-find-later");
+
+        // the miss above just read the table; the next one answers from what is loaded
+        assertEquals(ValueDictionary.ABSENT, sut.find("dictionary-find-later"));
+    }
+
+    @Test
+    void test_registeredValues_written_queryParameterNotAdded() {
+        Plan plan = new Plan();
+        plan.setPlanDefinitionId(990001);
+        plan.setSegment("dictionary-segment-new");
+        sut.register(DictionaryCodeListener.encodedValues(plan));
+        tx.executeWithoutResult(status -> entityManager.persist(plan));
+
+        assertEquals(1, count("dictionary-segment-new"));
+        assertEquals("dictionary-segment-new", tx.execute(status -> entityManager.find(Plan.class, 990001))
+                .getSegment());
+
+        // the query flushes a pending write before binding its own parameter
+        sut.register(List.of("dictionary-family-flushed"));
+        List<Plan> found = tx.execute(status -> {
+            entityManager.find(Plan.class, 990001).setPlanFamily("dictionary-family-flushed");
+            return entityManager.createQuery("SELECT p FROM Plan p WHERE p.segment = :segment", Plan.class)
+                    .setParameter("segment", "dictionary-segment-queried").getResultList();
+        });
+
+        assertTrue(found.isEmpty());
+        assertEquals("dictionary-family-flushed", tx.execute(status -> entityManager.find(Plan.class, 990001))
+                .getPlanFamily());
+        assertEquals(0, count("dictionary-segment-queried"));
+    }
+
+    @Test
+    void test_unregisteredValue_writeRejected() {
+        Plan plan = new Plan();
+        plan.setPlanDefinitionId(990002);
+        plan.setStatus("dictionary-status-unregistered");
+
+        assertThrows(RuntimeException.class,
+                () -> tx.executeWithoutResult(status -> entityManager.persist(plan)));
+        assertEquals(0, count("dictionary-status-unregistered"));
+    }
+
+    @Test
+    void test_value_unknownCode() {
+        assertThrows(IllegalStateException.class, () -> sut.value(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void test_code_tooLong() {
+        assertThrows(IllegalArgumentException.class, () -> sut.code("x".repeat(ValueDictionary.MAX_VALUE_LENGTH + 1)));
+    }
+
+    private int count(String value) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + ValueDictionary.TABLE + " WHERE dictionary_value = ?",
+                Integer.class, value);
+    }
+}
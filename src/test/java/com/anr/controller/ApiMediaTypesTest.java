@@ -0,0 +1,53 @@
+package com.anr.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+/**
+ * Unit tests for picking JSON or a binary encoding from the Accept header
+ *
+ * @author amitr
+ */
+public class ApiMediaTypesTest {
+
+    @Test
+    void test_prefersBinary_namedBinaryType() {
+        assertTrue(ApiMediaTypes.prefersBinary("application/cbor"));
+        assertTrue(ApiMediaTypes.prefersBinary("application/x-jackson-smile"));
+        assertTrue(ApiMediaTypes.prefersBinary("application/cbor, */*;q=0.1"));
+        assertTrue(ApiMediaTypes.prefersBinary("application/json;q=0.5, application/cbor"));
+    }
+
+    @Test
+    void test_prefersBinary_jsonOrWildcard() {
+        assertFalse(ApiMediaTypes.prefersBinary(null));
+        assertFalse(ApiMediaTypes.prefersBinary(""));
+        assertFalse(ApiMediaTypes.prefersBinary("*/*"));
+        assertFalse(ApiMediaTypes.prefersBinary("application/json"));
+        assertFalse(ApiMediaTypes.prefersBinary("application/*"));
+    }
+
+    @Test
+    void test_prefersBinary_tiesGoToTheFirstNamed() {
+        assertFalse(ApiMediaTypes.prefersBinary("application/json, application/cbor"));
+        assertTrue(ApiMediaTypes.prefersBinary("application/cbor, application/json"));
+    }
+
+    @Test
+    void test_preferredBinary_typeWithoutParameters() {
+        assertEquals(MediaType.APPLICATION_CBOR, ApiMediaTypes.preferredBinary("application/cbor;q=0.9, */*;q=0.1"));
+        assertEquals(ApiMediaTypes.APPLICATION_SMILE, ApiMediaTypes.preferredBinary("application/x-jackson-smile"));
+        assertNull(ApiMediaTypes.preferredBinary("application/json"));
+    }
+
+    @Test
+    void test_prefersBinary_refusedOrMalformed() {
+        assertFalse(ApiMediaTypes.prefersBinary("application/cbor;q=0, */*"));
+        assertFalse(ApiMediaTypes.prefersBinary("not a media type"));
+    }
+}
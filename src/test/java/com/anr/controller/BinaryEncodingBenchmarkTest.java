@@ -0,0 +1,153 @@
+package com.anr.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares payload size and encode/decode throughput of JSON, CBOR and Smile for the Product and
+ * InsuranceMember shapes, with mappers built the way Spring MVC builds its message converters
+ *
+ * Excluded from the regular test run; run with ./gradlew benchmarkTest
+ *
+ * @author amitr
+ */
+@Tag("benchmark")
+public class BinaryEncodingBenchmarkTest {
+
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 3_000;
+
+    private final Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+
+    BinaryEncodingBenchmarkTest() {
+        mappers.put("JSON", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("CBOR", Jackson2ObjectMapperBuilder.cbor().build());
+        mappers.put("Smile", Jackson2ObjectMapperBuilder.smile().build());
+    }
+
+    @Test
+    void compareProduct() throws Exception {
+        compare("Product", product(1), Product.class);
+    }
+
+    @Test
+    void compareProductList() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            products.add(product(i));
+        }
+        compare("Product x 500", products, listOf(Product.class));
+    }
+
+    @Test
+    void compareInsuranceMember() throws Exception {
+        compare("InsuranceMember", member(), InsuranceMember.class);
+    }
+
+    private void compare(String shape, Object value, Class<?> type) throws Exception {
+        compare(shape, value, mappers.get("JSON").constructType(type));
+    }
+
+    private void compare(String shape, Object value, JavaType type) throws Exception {
+        ObjectMapper json = mappers.get("JSON");
+        String expected = json.writeValueAsString(value);
+        System.out.printf("%n%s%n  %-6s %9s %14s %14s%n", shape, "format", "bytes", "encode ops/s", "decode ops/s");
+
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] encoded = mapper.writeValueAsBytes(value);
+            // same schema: the decoded value re-encodes to the same JSON
+            assertEquals(expected, json.writeValueAsString(mapper.readValue(encoded, type)), entry.getKey());
+
+            long encodes = opsPerSecond(() -> mapper.writeValueAsBytes(value));
+            long decodes = opsPerSecond(() -> mapper.readValue(encoded, type));
+            System.out.printf("  %-6s %9d %14d %14d%n", entry.getKey(), encoded.length, encodes, decodes);
+        }
+    }
+
+    private long opsPerSecond(Op op) throws Exception {
+        run(op, WARMUP_MILLIS);
+        return run(op, MEASURE_MILLIS) * 1000 / MEASURE_MILLIS;
+    }
+
+    private long run(Op op, long millis) throws Exception {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        long count = 0;
+        while (System.nanoTime() < deadline) {
+            op.run();
+            count++;
+        }
+        return count;
+    }
+
+    private JavaType listOf(Class<?> element) {
+        return mappers.get("JSON").getTypeFactory().constructCollectionType(List.class, element);
+    }
+
+    private Product product(int i) {
+        Product product = new ProductBuilder(String.format("P%05d", i), "toy " + i)
+                .desc("plastic figurine of an avenger superhero, series " + (i % 12))
+                .price("$" + (i % 90 + 10) + ".49")
+                .build();
+        product.setVersion((long) (i % 5));
+        return product;
+    }
+
+    private InsuranceMember member() {
+        InsuranceMember member = new InsuranceMember();
+        member.setId("545345");
+        member.setPartyId("1234411");
+        member.setFirstname("john");
+        member.setLastname("deer");
+        member.setDateOfBirth(new Date(445_000_000_000L));
+        List<Policy> policies = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            Policy policy = new Policy();
+            policy.setPolicyID("1234" + p);
+            policy.setHccID("H012932" + p);
+            policy.setGroup("B0123");
+            policy.setDivision("123");
+            policy.setPolicyStartDate(new Date(1_577_854_800_000L));
+            policy.setPolicyExpiryDate(new Date(1_609_390_800_000L));
+            List<Plan> plans = new ArrayList<>();
+            for (String name : Arrays.asList("happyHealth", "basicMedicines", "dentalCare")) {
+                Plan plan = new Plan();
+                plan.setPlanDefinitionId(100 + plans.size());
+                plan.setPlanName(name);
+                plan.setPlanNumber("0140" + plans.size());
+                plan.setSegment("small group");
+                plan.setPlanFamily("ForWorkoutPeople");
+                plan.setCoverageType("health");
+                plan.setStatus("active");
+                plans.add(plan);
+            }
+            policy.setPlans(plans);
+            policies.add(policy);
+        }
+        member.setPolicies(policies);
+        return member;
+    }
+
+    @FunctionalInterface
+    private interface Op {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,323 @@
+package com.anr.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.MemberIngestResult;
+import com.anr.model.MemberPage;
+import com.anr.model.MemberSummary;
+import com.anr.service.MemberIngestService;
+import com.anr.service.MemberService;
+
+/**
+ * Test class for MemberController
+ *
+ * @author amitr
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MemberControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private MemberService memberService;
+
+    @MockBean
+    private MemberIngestService memberIngestService;
+
+    private static final String BASE_URI = "/api/v1/members";
+
+    // Test GET /api/v1/members/{id} - member with policies and plans
+    @Test
+    void test_getMemberById_success() throws Exception {
+        when(memberService.findById("545345")).thenReturn(member("545345"));
+
+        mockMvc.perform(get(BASE_URI + "/545345"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("545345"))
+                .andExpect(jsonPath("$.policies[0].policyID").value("12345"))
+                .andExpect(jsonPath("$.policies[0].plans[0].planName").value("happyHealth"));
+    }
+
+    // Test GET /api/v1/members/{id} - not found
+    @Test
+    void test_getMemberById_notFound() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/nobody"))
+                .andExpect(status().isNotFound());
+    }
+
+    // Test GET /api/v1/members/{id} - Accept: application/cbor
+    @Test
+    void test_getMemberById_cbor() throws Exception {
+        when(memberService.findById("545345")).thenReturn(member("545345"));
+
+        byte[] body = mockMvc.perform(get(BASE_URI + "/545345").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        InsuranceMember decoded = Jackson2ObjectMapperBuilder.cbor().build().readValue(body, InsuranceMember.class);
+        assertEquals("happyHealth", decoded.getPolicies().get(0).getPlans().get(0).getPlanName());
+    }
+
+    // Test GET /api/v1/members/by-name - summaries without policies
+    @Test
+    void test_getMembersByName() throws Exception {
+        when(memberService.findByName("john", null))
+                .thenReturn(Arrays.asList(new MemberSummary("545345", "1234411", "john", "deer", null)));
+
+        mockMvc.perform(get(BASE_URI + "/by-name").param("firstname", "john"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastname").value("deer"))
+                .andExpect(jsonPath("$[0].policies").doesNotExist());
+    }
+
+    // Test GET /api/v1/members/by-name - no name is a bad request
+    @Test
+    void test_getMembersByName_noName_badRequest() throws Exception {
+        when(memberService.findByName(null, null))
+                .thenThrow(new IllegalArgumentException("firstname or lastname is required"));
+
+        mockMvc.perform(get(BASE_URI + "/by-name"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.firstname").value("firstname or lastname is required"));
+    }
+
+    // Test GET /api/v1/members/by-birthday - first page, inclusive ISO date range
+    @Test
+    void test_getMembersByBirthday() throws Exception {
+        when(memberService.findPageByBirthday(LocalDate.of(1984, 1, 1), LocalDate.of(1984, 12, 31), null, 50))
+                .thenReturn(new MemberPage<>(Arrays.asList(member("545345")), "next", 50));
+
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "1984-01-01").param("to", "1984-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("545345"))
+                .andExpect(jsonPath("$.items[0].policies[0].plans[0].planName").value("happyHealth"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.limit").value(50));
+    }
+
+    // Test GET /api/v1/members/by-birthday - summary view with cursor; limit is capped
+    @Test
+    void test_getMembersByBirthday_summaryView() throws Exception {
+        when(memberService.findSummaryPageByBirthday(LocalDate.of(1984, 1, 1), LocalDate.of(1984, 12, 31), "abc",
+                500)).thenReturn(new MemberPage<>(
+                        Arrays.asList(new MemberSummary("545345", "1234411", "john", "deer", null)), null, 500));
+
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "1984-01-01").param("to", "1984-12-31")
+                .param("view", "summary").param("cursor", "abc").param("limit", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].lastname").value("deer"))
+                .andExpect(jsonPath("$.items[0].policies").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    // Test GET /api/v1/members/by-birthday - reversed range
+    @Test
+    void test_getMembersByBirthday_reversed_badRequest() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "1985-01-01").param("to", "1984-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.from").value("from must not be after to"));
+    }
+
+    // Test GET /api/v1/members/by-birthday - malformed date never reaches the service
+    @Test
+    void test_getMembersByBirthday_malformedDate_badRequest() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "04/02/1984").param("to", "1984-12-31"))
+                .andExpect(status().isBadRequest());
+
+        verify(memberService, never()).findPageByBirthday(any(), any(), any(), anyInt());
+    }
+
+    // Test GET /api/v1/members/by-birthday - bad cursor, limit and view
+    @Test
+    void test_getMembersByBirthday_badParams() throws Exception {
+        when(memberService.findPageByBirthday(any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("malformed cursor"));
+
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "1984-01-01").param("to", "1984-12-31")
+                .param("cursor", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.cursor").value("malformed cursor"));
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "1984-01-01").param("to", "1984-12-31")
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.limit").exists());
+        mockMvc.perform(get(BASE_URI + "/by-birthday").param("from", "1984-01-01").param("to", "1984-12-31")
+                .param("view", "everything"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.view").exists());
+    }
+
+    // Test GET /api/v1/members/eligible - ids and plan definition ids only
+    @Test
+    void test_getEligibleOn() throws Exception {
+        when(memberService.findEligibleOn(LocalDate.of(2024, 6, 30))).thenReturn(
+                Arrays.asList(new EligiblePolicy("545345", "1234411-01", List.of(1001, 1002))));
+
+        mockMvc.perform(get(BASE_URI + "/eligible").param("date", "2024-06-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].memberId").value("545345"))
+                .andExpect(jsonPath("$[0].policyId").value("1234411-01"))
+                .andExpect(jsonPath("$[0].planDefinitionIds[1]").value(1002))
+                .andExpect(jsonPath("$[0].firstname").doesNotExist());
+    }
+
+    // Test GET /api/v1/members/eligible - missing or malformed date never reaches the service
+    @Test
+    void test_getEligibleOn_badDate_badRequest() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/eligible").param("date", "30/06/2024"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(BASE_URI + "/eligible"))
+                .andExpect(status().isBadRequest());
+
+        verify(memberService, never()).findEligibleOn(any());
+    }
+
+    // Test GET /api/v1/members/by-birthday/export - NDJSON written by the service
+    @Test
+    void test_exportMembersByBirthday() throws Exception {
+        when(memberService.exportByBirthday(eq(LocalDate.of(1984, 1, 1)), eq(LocalDate.of(1984, 12, 31)),
+                eq(true), any(OutputStream.class))).thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(3);
+                    out.write("{\"id\":\"1\"}\n{\"id\":\"2\"}\n".getBytes(StandardCharsets.UTF_8));
+                    return 2L;
+                });
+
+        MvcResult started = mockMvc.perform(get(BASE_URI + "/by-birthday/export").param("from", "1984-01-01")
+                .param("to", "1984-12-31").param("view", "summary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"members.ndjson\""))
+                .andExpect(content().string("{\"id\":\"1\"}\n{\"id\":\"2\"}\n"));
+    }
+
+    // Test GET /api/v1/members/by-birthday/export - reversed range or bad view is rejected before streaming
+    @Test
+    void test_exportMembersByBirthday_badParams() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/by-birthday/export").param("from", "1985-01-01").param("to", "1984-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(BASE_URI + "/by-birthday/export").param("from", "1984-01-01").param("to", "1984-12-31")
+                .param("view", "everything"))
+                .andExpect(status().isBadRequest());
+
+        verify(memberService, never()).exportByBirthday(any(), any(), anyBoolean(), any());
+    }
+
+    // Test POST /api/v1/members/ingest - body handed to the ingest, its progress streamed back
+    @Test
+    void test_ingestMembers() throws Exception {
+        echoIngest();
+
+        MvcResult started = mockMvc.perform(post(BASE_URI + "/ingest").contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"_id\":\"1\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"_id\":\"1\"}\n"));
+    }
+
+    // Test POST /api/v1/members/ingest - gzip body is decompressed
+    @Test
+    void test_ingestMembers_gzip() throws Exception {
+        echoIngest();
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write("{\"_id\":\"2\"}\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        MvcResult started = mockMvc.perform(post(BASE_URI + "/ingest").contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip").content(gzipped.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"_id\":\"2\"}\n"));
+    }
+
+    // Test POST /api/v1/members/ingest - plain JSON body is not accepted
+    @Test
+    void test_ingestMembers_wrongContentType() throws Exception {
+        mockMvc.perform(post(BASE_URI + "/ingest").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(memberIngestService, never()).ingest(any(InputStream.class), any(OutputStream.class));
+    }
+
+    // stands in for the ingest: writes back what it read
+    private void echoIngest() throws Exception {
+        when(memberIngestService.ingest(any(InputStream.class), any(OutputStream.class))).thenAnswer(invocation -> {
+            InputStream in = invocation.getArgument(0);
+            OutputStream out = invocation.getArgument(1);
+            in.transferTo(out);
+            return new MemberIngestResult();
+        });
+    }
+
+    private InsuranceMember member(String id) {
+        Plan plan = new Plan();
+        plan.setPlanDefinitionId(111);
+        plan.setPlanName("happyHealth");
+        Policy policy = new Policy();
+        policy.setPolicyID("12345");
+        policy.setPlans(Collections.singletonList(plan));
+        InsuranceMember member = new InsuranceMember();
+        member.setId(id);
+        member.setFirstname("john");
+        member.setLastname("deer");
+        member.setPolicies(Collections.singletonList(policy));
+        return member;
+    }
+}
@@ -1,31 +1,60 @@
 package com.anr.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.anr.localmdb.model.Product;
 import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.model.ProductBatchResult;
+import com.anr.model.ProductCatalog;
+import com.anr.model.ProductChangeEvent;
+import com.anr.model.ProductChanges;
+import com.anr.model.ProductJson;
+import com.anr.model.ProductLookup;
+import com.anr.model.ProductPage;
+import com.anr.service.ProductBatchService;
+import com.anr.service.ProductChangeFeed;
 import com.anr.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -48,7 +77,14 @@ public class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
     private static final String BASE_URI = "/api/v1/products";
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
 
     // Test GET /api/v1/products - Get all products (success with multiple products)
     @Test
@@ -93,7 +129,7 @@ public class ProductControllerTest {
     void test_getProductById_success() throws Exception {
         Product product = createProduct("P001", "Laptop", "High-performance laptop", "1299.99");
         
-        when(productService.findById("P001")).thenReturn(product);
+        when(productService.findJsonById("P001")).thenReturn(json(product));
 
         mockMvc.perform(get(BASE_URI + "/P001")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -109,7 +145,7 @@ public class ProductControllerTest {
     // Test GET /api/v1/products/{id} - Product not found
     @Test
     void test_getProductById_notFound() throws Exception {
-        when(productService.findById("P999")).thenReturn(Product.EMPTY);
+        when(productService.findJsonById("P999")).thenReturn(null);
 
         mockMvc.perform(get(BASE_URI + "/P999")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -668,13 +704,828 @@ public class ProductControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    // ========================================================================
+    // KEYSET PAGINATION TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products?limit=2 - first page carries a next cursor
+    @Test
+    void test_getProductPage_firstPage() throws Exception {
+        List<Product> items = Arrays.asList(
+                createProduct("P001", "Laptop", "High-performance laptop", "1299.99"),
+                createProduct("P002", "Mouse", "Wireless mouse", "29.99"));
+
+        when(productService.findPage(isNull(), eq(2))).thenReturn(new ProductPage<>(items, "next-token", 2));
+
+        mockMvc.perform(get(BASE_URI).param("limit", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value("P001"))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.limit").value(2));
+    }
+
+    // Test GET /api/v1/products?cursor=... - last page has no next cursor, default page size applies
+    @Test
+    void test_getProductPage_lastPage() throws Exception {
+        List<Product> items = Arrays.asList(createProduct("P003", "Keyboard", "Mechanical keyboard", "89.99"));
+
+        when(productService.findPage(eq("next-token"), eq(50))).thenReturn(new ProductPage<>(items, null, 50));
+
+        mockMvc.perform(get(BASE_URI).param("cursor", "next-token"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    // Test GET /api/v1/products?limit=100000 - page size is capped
+    @Test
+    void test_getProductPage_limitIsCapped() throws Exception {
+        when(productService.findPage(isNull(), eq(500)))
+                .thenReturn(new ProductPage<>(Collections.emptyList(), null, 500));
+
+        mockMvc.perform(get(BASE_URI).param("limit", "100000"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.limit").value(500));
+    }
+
+    // Test GET /api/v1/products?limit=0 - bad request
+    @Test
+    void test_getProductPage_zeroLimit_badRequest() throws Exception {
+        mockMvc.perform(get(BASE_URI).param("limit", "0"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.limit").exists());
+    }
+
+    // Test GET /api/v1/products?cursor=garbage - bad request
+    @Test
+    void test_getProductPage_invalidCursor_badRequest() throws Exception {
+        when(productService.findPage(eq("garbage"), eq(50))).thenThrow(new IllegalArgumentException("malformed cursor"));
+
+        mockMvc.perform(get(BASE_URI).param("cursor", "garbage"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.cursor").value("malformed cursor"));
+    }
+
+    // ========================================================================
+    // ETAG / CONDITIONAL REQUEST TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products/{id} - strong ETag from id and version
+    @Test
+    void test_getProductById_setsETag() throws Exception {
+        when(productService.findJsonById("P001")).thenReturn(json(versioned("P001", 3L)));
+
+        mockMvc.perform(get(BASE_URI + "/P001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3\""));
+    }
+
+    // Test GET /api/v1/products/{id} - If-None-Match on the current version answers 304 without a body
+    @Test
+    void test_getProductById_notModified() throws Exception {
+        when(productService.findJsonById("P001")).thenReturn(json(versioned("P001", 3L)));
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.IF_NONE_MATCH, "\"P001-v3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3\""))
+                .andExpect(content().string(""));
+    }
+
+    // Test GET /api/v1/products/{id} - gzip-accepting clients get the pre-compressed bytes
+    @Test
+    void test_getProductById_gzip() throws Exception {
+        ProductJson product = json(versioned("P001", 3L));
+        when(productService.findJsonById("P001")).thenReturn(product);
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3-gz\""))
+                .andExpect(content().bytes(product.getGzip()));
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3\""))
+                .andExpect(jsonPath("$.id").value("P001"));
+    }
+
+    // Test GET /api/v1/products/{id} - a tag of either encoding of the current version answers 304
+    @Test
+    void test_getProductById_notModified_eitherEncodingTag() throws Exception {
+        when(productService.findJsonById("P001")).thenReturn(json(versioned("P001", 3L)));
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"P001-v3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3-gz\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.IF_NONE_MATCH, "\"P001-v2\", \"P001-v3-gz\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3\""));
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.IF_NONE_MATCH, "\"P001-v2-gz\""))
+                .andExpect(status().isOk());
+    }
+
+    // Test GET /api/v1/products/{id} - an older tag gets the full product
+    @Test
+    void test_getProductById_staleTagReturnsBody() throws Exception {
+        when(productService.findJsonById("P001")).thenReturn(json(versioned("P001", 4L)));
+
+        mockMvc.perform(get(BASE_URI + "/P001").header(HttpHeaders.IF_NONE_MATCH, "\"P001-v3\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("P001"));
+    }
+
+    // Test GET /api/v1/products - list tag changes with any member version
+    @Test
+    void test_getAllProducts_notModifiedUntilAVersionChanges() throws Exception {
+        when(productService.findAll()).thenReturn(Arrays.asList(versioned("P001", 1L), versioned("P002", 1L)));
+        String etag = mockMvc.perform(get(BASE_URI))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(BASE_URI).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        when(productService.findAll()).thenReturn(Arrays.asList(versioned("P001", 1L), versioned("P002", 2L)));
+        mockMvc.perform(get(BASE_URI).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    // Test PUT /api/v1/products/{id} - If-Match passes the expected version through
+    @Test
+    void test_updateProduct_ifMatch() throws Exception {
+        Product body = createProduct("P001", "Updated Laptop", "Updated description", "1499.99");
+        when(productService.updateProduct(eq("P001"), any(Product.class), eq(3L))).thenReturn(versioned("P001", 4L));
+
+        mockMvc.perform(put(BASE_URI + "/P001")
+                .header(HttpHeaders.IF_MATCH, "\"P001-v3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v4\""));
+    }
+
+    // Test PUT /api/v1/products/{id} - stale If-Match is 412
+    @Test
+    void test_updateProduct_ifMatchStale() throws Exception {
+        Product body = createProduct("P001", "Updated Laptop", "Updated description", "1499.99");
+        when(productService.updateProduct(eq("P001"), any(Product.class), eq(2L)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, "P001"));
+
+        mockMvc.perform(put(BASE_URI + "/P001")
+                .header(HttpHeaders.IF_MATCH, "\"P001-v2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    // Test PUT /api/v1/products/{id} - a tag of another product never matches
+    @Test
+    void test_updateProduct_ifMatchOtherProduct() throws Exception {
+        Product body = createProduct("P001", "Updated Laptop", "Updated description", "1499.99");
+
+        mockMvc.perform(put(BASE_URI + "/P001")
+                .header(HttpHeaders.IF_MATCH, "\"P002-v3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(productService, never()).updateProduct(any(), any(), any());
+    }
+
+    // Test PUT /api/v1/products/{id} - a stale version in the body is a 409 conflict
+    @Test
+    void test_updateProduct_bodyVersionConflict() throws Exception {
+        Product body = versioned("P001", 2L);
+        when(productService.updateProduct(eq("P001"), any(Product.class), eq(2L)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, "P001"));
+
+        mockMvc.perform(put(BASE_URI + "/P001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isConflict());
+    }
+
+    // Test PUT /api/v1/products/{id} - unconditional update returns and tags the version it wrote
+    @Test
+    void test_updateProduct_unconditionalReturnsNewVersion() throws Exception {
+        Product body = createProduct("P001", "Updated Laptop", "Updated description", "1499.99");
+        when(productService.updateProduct(eq("P001"), any(Product.class))).thenReturn(versioned("P001", 4L));
+
+        mockMvc.perform(put(BASE_URI + "/P001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    // Test DELETE /api/v1/products/{id} - matching If-Match deletes
+    @Test
+    void test_deleteProduct_ifMatch() throws Exception {
+        when(productService.deleteProduct("P001", 3L)).thenReturn(true);
+
+        mockMvc.perform(delete(BASE_URI + "/P001").header(HttpHeaders.IF_MATCH, "\"P001-v3\""))
+                .andExpect(status().isNoContent());
+    }
+
+    // Test DELETE /api/v1/products/{id} - stale If-Match is 412
+    @Test
+    void test_deleteProduct_ifMatchStale() throws Exception {
+        when(productService.deleteProduct("P001", 2L))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, "P001"));
+
+        mockMvc.perform(delete(BASE_URI + "/P001").header(HttpHeaders.IF_MATCH, "\"P001-v2\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    // ========================================================================
+    // BULK CREATE TESTS
+    // ========================================================================
+
+    // Test POST /api/v1/products/batch - per-item results returned
+    @Test
+    void test_createProducts_batch() throws Exception {
+        List<Product> products = Arrays.asList(
+                createProduct("P001", "Laptop", "High-performance laptop", "1299.99"),
+                createProduct("bad id!", "Mouse", "Wireless mouse", "29.99"));
+        ProductBatchResult result = new ProductBatchResult();
+        result.add(new ProductBatchResult.Item(0, "P001", ProductBatchResult.CREATED, null));
+        result.add(new ProductBatchResult.Item(1, "bad id!", ProductBatchResult.INVALID,
+                Collections.singletonMap("id", "Product ID can only contain alphanumeric characters")));
+        when(productBatchService.createAll(any())).thenReturn(result);
+
+        mockMvc.perform(post(BASE_URI + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(products)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("created"))
+                .andExpect(jsonPath("$.items[0].errors").doesNotExist())
+                .andExpect(jsonPath("$.items[1].status").value("invalid"))
+                .andExpect(jsonPath("$.items[1].errors.id").exists());
+    }
+
+    // Test POST /api/v1/products/batch - empty batch rejected
+    @Test
+    void test_createProducts_emptyBatch() throws Exception {
+        mockMvc.perform(post(BASE_URI + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.products").exists());
+    }
+
+    // ========================================================================
+    // PRICE ORDER TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products/by-price - range bounds parsed to minor units
+    @Test
+    void test_getProductsByPrice_range() throws Exception {
+        ProductPage<Product> page = new ProductPage<>(Arrays.asList(createProduct("P002", "Mouse", "Wireless mouse", "29.99")),
+                "next", 1);
+        when(productService.findPageByPrice(eq(1000L), eq(5000L), eq(false), isNull(), eq(1))).thenReturn(page);
+
+        mockMvc.perform(get(BASE_URI + "/by-price").param("min", "$10.00").param("max", "50").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("P002"))
+                .andExpect(jsonPath("$.items[0].price").value("29.99"))
+                .andExpect(jsonPath("$.items[0].priceMinor").value(2999))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    // Test GET /api/v1/products/by-price - descending order
+    @Test
+    void test_getProductsByPrice_descending() throws Exception {
+        when(productService.findPageByPrice(isNull(), isNull(), eq(true), isNull(), eq(50)))
+                .thenReturn(new ProductPage<>(Collections.emptyList(), null, 50));
+
+        mockMvc.perform(get(BASE_URI + "/by-price").param("order", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0));
+    }
+
+    // Test GET /api/v1/products/by-price - unparseable bound or order
+    @Test
+    void test_getProductsByPrice_invalidParams() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/by-price").param("min", "cheap"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.min").exists());
+        mockMvc.perform(get(BASE_URI + "/by-price").param("order", "sideways"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.order").exists());
+    }
+
+    // Test GET /api/v1/products/cheapest
+    @Test
+    void test_getCheapestProducts() throws Exception {
+        when(productService.findCheapest(2)).thenReturn(Arrays.asList(
+                createProduct("P002", "Mouse", "Wireless mouse", "29.99"),
+                createProduct("P003", "Keyboard", "Mechanical keyboard", "89.99")));
+
+        mockMvc.perform(get(BASE_URI + "/cheapest").param("n", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("P002"))
+                .andExpect(jsonPath("$[1].id").value("P003"));
+        mockMvc.perform(get(BASE_URI + "/cheapest").param("n", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ========================================================================
+    // DESCRIPTION SEARCH TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products/search - matches returned in id order
+    @Test
+    void test_searchProducts_success() throws Exception {
+        List<Product> products = Arrays.asList(
+                createProduct("P001", "Laptop", "High-performance laptop", "1299.99"),
+                createProduct("P004", "Stand", "Aluminium laptop stand", "39.99"));
+        when(productService.findByDescContaining("laptop")).thenReturn(products);
+
+        mockMvc.perform(get(BASE_URI + "/search").param("q", "laptop"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value("P001"))
+                .andExpect(jsonPath("$[1].id").value("P004"));
+    }
+
+    // Test GET /api/v1/products/search - no match is an empty list, not 404
+    @Test
+    void test_searchProducts_noMatch() throws Exception {
+        when(productService.findByDescContaining("robot")).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get(BASE_URI + "/search").param("q", "robot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    // Test GET /api/v1/products/search - blank search text rejected
+    @Test
+    void test_searchProducts_blankQuery() throws Exception {
+        mockMvc.perform(get(BASE_URI + "/search").param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.q").exists());
+    }
+
+    // ========================================================================
+    // NDJSON EXPORT TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products/export - streamed as newline-delimited JSON
+    @Test
+    void test_exportProducts_streamsNdjson() throws Exception {
+        String lines = "{\"_id\":\"P001\",\"name\":\"Laptop\"}\n{\"_id\":\"P002\",\"name\":\"Mouse\"}\n";
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write(lines.getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(productService).exportAll(any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get(BASE_URI + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.ndjson\""))
+                .andExpect(content().string(lines));
+    }
+
+    // ========================================================================
+    // DELTA SYNC TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products?changedSince=... - changed products, deleted ids and the next watermark
+    @Test
+    void test_getProductChanges() throws Exception {
+        ProductChanges changes = new ProductChanges(Arrays.asList(versioned("P001", 2L)), Arrays.asList("P002"),
+                "wm-2", false);
+        when(productService.findChangedSince(eq("wm-1"), eq(500))).thenReturn(changes);
+
+        mockMvc.perform(get(BASE_URI).param("changedSince", "wm-1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].id").value("P001"))
+                .andExpect(jsonPath("$.deleted[0]").value("P002"))
+                .andExpect(jsonPath("$.watermark").value("wm-2"))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.resync").value(false));
+    }
+
+    // Test GET /api/v1/products?changedSince= - blank starts a full sync
+    @Test
+    void test_getProductChanges_blankStartsFromBeginning() throws Exception {
+        when(productService.findChangedSince(eq(""), eq(10)))
+                .thenReturn(new ProductChanges(Collections.emptyList(), Collections.emptyList(), "wm-0", false));
+
+        mockMvc.perform(get(BASE_URI).param("changedSince", "").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.watermark").value("wm-0"));
+    }
+
+    // Test GET /api/v1/products?changedSince=garbage - bad request
+    @Test
+    void test_getProductChanges_invalidWatermark_badRequest() throws Exception {
+        when(productService.findChangedSince(eq("garbage"), eq(500)))
+                .thenThrow(new IllegalArgumentException("malformed watermark"));
+
+        mockMvc.perform(get(BASE_URI).param("changedSince", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.changedSince").value("malformed watermark"));
+    }
+
+    // ========================================================================
+    // CATALOG SNAPSHOT TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products - the snapshot's pre-encoded bytes are served without a query
+    @Test
+    void test_getAllProducts_fromSnapshot() throws Exception {
+        ProductCatalog catalog = catalog(Arrays.asList(versioned("P001", 1L), versioned("P002", 1L)));
+        when(productService.findCatalog()).thenReturn(catalog);
+
+        mockMvc.perform(get(BASE_URI))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalog.getEtag()))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value("P002"));
+
+        mockMvc.perform(get(BASE_URI).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, ProductETags.gzip(catalog.getEtag())))
+                .andExpect(content().bytes(catalog.getGzip()));
+
+        verify(productService, never()).findAll();
+    }
+
+    // Test GET /api/v1/products - If-None-Match on the snapshot's tag answers 304
+    @Test
+    void test_getAllProducts_fromSnapshot_notModified() throws Exception {
+        ProductCatalog catalog = catalog(Arrays.asList(versioned("P001", 1L)));
+        when(productService.findCatalog()).thenReturn(catalog);
+
+        mockMvc.perform(get(BASE_URI).header(HttpHeaders.IF_NONE_MATCH, catalog.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get(BASE_URI).header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, catalog.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ProductETags.gzip(catalog.getEtag())));
+    }
+
+    // ========================================================================
+    // BINARY ENCODING TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products/{id} - Accept: application/cbor gets the product encoded as CBOR
+    @Test
+    void test_getProductById_cbor() throws Exception {
+        Product product = versioned("P001", 3L);
+        when(productService.findById("P001")).thenReturn(product);
+
+        byte[] body = mockMvc.perform(get(BASE_URI + "/P001").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"P001-v3-cbor\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Product decoded = Jackson2ObjectMapperBuilder.cbor().build().readValue(body, Product.class);
+        assertEquals("P001", decoded.getId());
+        assertEquals(product.getName(), decoded.getName());
+        verify(productService, never()).findJsonById(any());
+    }
+
+    // Test GET /api/v1/products/{id} - JSON, CBOR and Smile bodies of one version carry different tags
+    @Test
+    void test_getProductById_etagPerRepresentation() throws Exception {
+        Product product = versioned("P001", 3L);
+        when(productService.findById("P001")).thenReturn(product);
+        when(productService.findJsonById("P001")).thenReturn(json(product));
+
+        String jsonTag = mockMvc.perform(get(BASE_URI + "/P001").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborTag = mockMvc.perform(get(BASE_URI + "/P001").accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smileTag = mockMvc.perform(get(BASE_URI + "/P001").accept(SMILE))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(jsonTag, cborTag);
+        assertNotEquals(jsonTag, smileTag);
+        assertNotEquals(cborTag, smileTag);
+
+        // the JSON tag does not validate a cached CBOR body
+        mockMvc.perform(get(BASE_URI + "/P001").accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(BASE_URI + "/P001").accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, cborTag))
+                .andExpect(status().isNotModified());
+    }
+
+    // Test GET /api/v1/products/{id} - a binary request for an unknown product is still a 404
+    @Test
+    void test_getProductById_cbor_notFound() throws Exception {
+        when(productService.findById("P999")).thenReturn(Product.EMPTY);
+
+        mockMvc.perform(get(BASE_URI + "/P999").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isNotFound());
+    }
+
+    // Test POST /api/v1/products - Smile request body, Smile response
+    @Test
+    void test_createProduct_smile() throws Exception {
+        Product newProduct = createProduct("P004", "Monitor", "4K Monitor", "499.99");
+        when(productService.saveOne(any(Product.class))).thenReturn(newProduct);
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+
+        byte[] body = mockMvc.perform(post(BASE_URI)
+                .contentType(SMILE)
+                .accept(SMILE)
+                .content(smile.writeValueAsBytes(newProduct)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals("Monitor", smile.readValue(body, Product.class).getName());
+    }
+
+    // Test GET /api/v1/products - binary clients get the snapshot's products, not its JSON bytes
+    @Test
+    void test_getAllProducts_fromSnapshot_cbor() throws Exception {
+        ProductCatalog catalog = catalog(Arrays.asList(versioned("P001", 1L), versioned("P002", 1L)));
+        when(productService.findCatalog()).thenReturn(catalog);
+
+        byte[] body = mockMvc.perform(get(BASE_URI).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Product[] decoded = Jackson2ObjectMapperBuilder.cbor().build().readValue(body, Product[].class);
+        assertEquals(2, decoded.length);
+        assertEquals("P002", decoded[1].getId());
+    }
+
+    // Test GET /api/v1/products - the snapshot's JSON and CBOR bodies carry different tags
+    @Test
+    void test_getAllProducts_fromSnapshot_cborETagDiffersFromJson() throws Exception {
+        ProductCatalog catalog = catalog(Arrays.asList(versioned("P001", 1L), versioned("P002", 1L)));
+        when(productService.findCatalog()).thenReturn(catalog);
+
+        String jsonTag = mockMvc.perform(get(BASE_URI))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborTag = mockMvc.perform(get(BASE_URI).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertEquals(catalog.getEtag(), jsonTag);
+        assertNotEquals(jsonTag, cborTag);
+        mockMvc.perform(get(BASE_URI).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk());
+    }
+
+    // ========================================================================
+    // MULTI-GET TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products?ids=... - found products in order plus the missing ids
+    @Test
+    void test_getProductsByIds() throws Exception {
+        ProductLookup lookup = new ProductLookup(Arrays.asList(versioned("P003", 1L), versioned("P001", 1L)),
+                Arrays.asList("P002"));
+        when(productService.findByIds(Arrays.asList("P003", "P002", "P001"))).thenReturn(lookup);
+
+        mockMvc.perform(get(BASE_URI).param("ids", "P003, P002,P001"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value("P003"))
+                .andExpect(jsonPath("$.products[1].id").value("P001"))
+                .andExpect(jsonPath("$.missing[0]").value("P002"));
+    }
+
+    // Test POST /api/v1/products/lookup - JSON array body variant
+    @Test
+    void test_lookupProducts_body() throws Exception {
+        when(productService.findByIds(Arrays.asList("P001", "P002")))
+                .thenReturn(new ProductLookup(Arrays.asList(versioned("P001", 1L)), Arrays.asList("P002")));
+
+        mockMvc.perform(post(BASE_URI + "/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"P001\",\"P002\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value("P001"))
+                .andExpect(jsonPath("$.missing[0]").value("P002"));
+    }
+
+    // Test POST /api/v1/products/lookup - no ids is a bad request
+    @Test
+    void test_lookupProducts_empty_badRequest() throws Exception {
+        mockMvc.perform(post(BASE_URI + "/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.ids").exists());
+
+        verify(productService, never()).findByIds(any());
+    }
+
+    // Test GET /api/v1/products?ids=... - more ids than allowed is a bad request
+    @Test
+    void test_getProductsByIds_tooMany_badRequest() throws Exception {
+        String ids = String.join(",", Collections.nCopies(1001, "P001"));
+
+        mockMvc.perform(get(BASE_URI).param("ids", ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.ids").exists());
+
+        verify(productService, never()).findByIds(any());
+    }
+
+    // ========================================================================
+    // CHANGE STREAM TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products/changes - committed writes are pushed as server-sent events
+    @Test
+    void test_streamChanges_pushesEvents() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(BASE_URI + "/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        productChangeFeed.publish(ProductChangeEvent.Operation.UPDATED, "SSE-1", 7L);
+
+        String stream = awaitContent(mvcResult, "SSE-1");
+        assertTrue(stream.contains("event:updated"), stream);
+        assertTrue(stream.contains("\"version\":7"), stream);
+        assertTrue(stream.contains("id:"), stream);
+    }
+
+    // Test GET /api/v1/products/changes with Last-Event-ID - missed events are replayed first
+    @Test
+    void test_streamChanges_resumesFromLastEventId() throws Exception {
+        String lastSeen;
+        try (ProductChangeFeed.Subscription probe = productChangeFeed.subscribe(null)) {
+            productChangeFeed.publish(ProductChangeEvent.Operation.CREATED, "SSE-2", 0L);
+            lastSeen = probe.poll().getEventId();
+        }
+        productChangeFeed.publish(ProductChangeEvent.Operation.DELETED, "SSE-3", null);
+
+        MvcResult mvcResult = mockMvc.perform(get(BASE_URI + "/changes").header("Last-Event-ID", lastSeen))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String stream = awaitContent(mvcResult, "SSE-3");
+        assertTrue(stream.contains("event:deleted"), stream);
+        assertFalse(stream.contains("SSE-2"), stream);
+    }
+
+    // Test GET /api/v1/products/changes with an unknown Last-Event-ID - told to reload
+    @Test
+    void test_streamChanges_unknownLastEventIdGetsReset() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(BASE_URI + "/changes").param("lastEventId", "gone-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // the data line may follow the event line in a separate write
+        String stream = awaitContent(mvcResult, "\"operation\":\"RESET\"");
+        assertTrue(stream.contains("event:reset"), stream);
+        assertTrue(stream.contains("\"operation\":\"RESET\""), stream);
+    }
+
+    // ========================================================================
+    // SPARSE FIELDSET TESTS
+    // ========================================================================
+
+    // Test GET /api/v1/products?fields=id,name - only the requested fields, no ETag
+    @Test
+    void test_getAllProducts_fields() throws Exception {
+        when(productService.findAllFields("id,name"))
+                .thenReturn(Arrays.asList(Map.of("id", "P001", "name", "Laptop")));
+
+        mockMvc.perform(get(BASE_URI).param("fields", "id,name"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Laptop"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].price").doesNotExist())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    // Test GET /api/v1/products?fields=name&limit=1 - sparse keyset page
+    @Test
+    void test_getProductPage_fields() throws Exception {
+        List<Map<String, Object>> items = Arrays.asList(Map.of("id", "P001", "name", "Laptop"));
+        when(productService.findPageFields(eq("name"), isNull(), eq(1)))
+                .thenReturn(new ProductPage<>(items, "next-token", 1));
+
+        mockMvc.perform(get(BASE_URI).param("fields", "name").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("P001"))
+                .andExpect(jsonPath("$.items[0].price").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    // Test GET /api/v1/products?fields=secret - bad request
+    @Test
+    void test_getAllProducts_unknownField_badRequest() throws Exception {
+        when(productService.findAllFields("secret"))
+                .thenThrow(new IllegalArgumentException("unknown field 'secret'"));
+
+        mockMvc.perform(get(BASE_URI).param("fields", "secret"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fields").value("unknown field 'secret'"));
+    }
+
+    // Test GET /api/v1/products/{id}?fields=price
+    @Test
+    void test_getProductById_fields() throws Exception {
+        when(productService.findFieldsById("P001", "price")).thenReturn(Map.of("id", "P001", "price", "1299.99"));
+
+        mockMvc.perform(get(BASE_URI + "/P001").param("fields", "price"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value("1299.99"))
+                .andExpect(jsonPath("$.name").doesNotExist());
+    }
+
+    // Test GET /api/v1/products/{id}?fields=price - not found
+    @Test
+    void test_getProductById_fields_notFound() throws Exception {
+        when(productService.findFieldsById("P404", "price")).thenReturn(Collections.emptyMap());
+
+        mockMvc.perform(get(BASE_URI + "/P404").param("fields", "price"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
     /**
      * Helper method to create a Product instance
      */
+    private Product versioned(String id, Long version) {
+        Product product = createProduct(id, "name " + id, "description " + id, "10.00");
+        product.setVersion(version);
+        return product;
+    }
+
     private Product createProduct(String id, String name, String description, String price) {
         return new ProductBuilder(id, name)
                 .desc(description)
                 .price(price)
                 .build();
     }
+
+    private ProductJson json(Product product) throws Exception {
+        long version = product.getVersion() == null ? 0L : product.getVersion();
+        byte[] body = objectMapper.writeValueAsBytes(product);
+        return new ProductJson(product.getId(), version, body, gzip(body));
+    }
+
+    private ProductCatalog catalog(List<Product> products) throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(products);
+        return new ProductCatalog(products, body, gzip(body), "\"catalog-" + products.size() + "\"");
+    }
+
+    private byte[] gzip(byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private String awaitContent(MvcResult mvcResult, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = mvcResult.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = mvcResult.getResponse().getContentAsString();
+        }
+        return content;
+    }
 }
@@ -0,0 +1,86 @@
+package com.anr.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+
+/**
+ * Unit tests for the Product.version based entity tags
+ *
+ * @author amitr
+ */
+public class ProductETagsTest {
+
+    @Test
+    void test_of_product() {
+        assertEquals("\"P-1-v7\"", ProductETags.of(versioned("P-1", 7L)));
+        assertEquals("\"P001-v0\"", ProductETags.of(versioned("P001", null)));
+    }
+
+    @Test
+    void test_of_list_changesWithVersionAndOrder() {
+        String base = ProductETags.of(Arrays.asList(versioned("A", 1L), versioned("B", 1L)), null);
+
+        assertEquals(base, ProductETags.of(Arrays.asList(versioned("A", 1L), versioned("B", 1L)), null));
+        assertNotEquals(base, ProductETags.of(Arrays.asList(versioned("A", 1L), versioned("B", 2L)), null));
+        assertNotEquals(base, ProductETags.of(Arrays.asList(versioned("B", 1L), versioned("A", 1L)), null));
+        assertNotEquals(base, ProductETags.of(Arrays.asList(versioned("A", 1L), versioned("B", 1L)), "next"));
+    }
+
+    @Test
+    void test_gzip_ownTag() {
+        assertEquals("\"P-1-v7-gz\"", ProductETags.gzip(ProductETags.of(versioned("P-1", 7L))));
+    }
+
+    @Test
+    void test_encoded_tagPerMediaType() {
+        String tag = ProductETags.of(versioned("P-1", 7L));
+
+        assertEquals(tag, ProductETags.encoded(tag, MediaType.APPLICATION_JSON));
+        assertEquals("\"P-1-v7-cbor\"", ProductETags.encoded(tag, MediaType.APPLICATION_CBOR));
+        assertEquals("\"P-1-v7-x-jackson-smile\"", ProductETags.encoded(tag, ApiMediaTypes.APPLICATION_SMILE));
+    }
+
+    @Test
+    void test_noneMatchHits_eitherEncoding() {
+        assertTrue(ProductETags.noneMatchHits("\"P001-v7\"", "\"P001-v7\""));
+        assertTrue(ProductETags.noneMatchHits("\"P001-v6\", W/\"P001-v7-gz\"", "\"P001-v7\""));
+        assertTrue(ProductETags.noneMatchHits("*", "\"P001-v7\""));
+        assertFalse(ProductETags.noneMatchHits("\"P001-v6-gz\"", "\"P001-v7\""));
+        assertFalse(ProductETags.noneMatchHits(null, "\"P001-v7\""));
+    }
+
+    @Test
+    void test_expectedVersion() {
+        assertEquals(7L, ProductETags.expectedVersion("\"P-v1-v7\"", "P-v1"));
+        assertEquals(7L, ProductETags.expectedVersion("\"P001-v7-gz\"", "P001"));
+        assertEquals(7L, ProductETags.expectedVersion("\"P001-v7-cbor\"", "P001"));
+        assertEquals(7L, ProductETags.expectedVersion("\"P001-v7-x-jackson-smile\"", "P001"));
+        assertNull(ProductETags.expectedVersion("*", "P001"));
+    }
+
+    @Test
+    void test_expectedVersion_rejectsForeignOrMalformedTags() {
+        assertThrows(IllegalArgumentException.class, () -> ProductETags.expectedVersion("\"P002-v7\"", "P001"));
+        assertThrows(IllegalArgumentException.class, () -> ProductETags.expectedVersion("W/\"P001-v7\"", "P001"));
+        assertThrows(IllegalArgumentException.class, () -> ProductETags.expectedVersion("\"P001-vx\"", "P001"));
+        assertThrows(IllegalArgumentException.class, () -> ProductETags.expectedVersion("P001-v7", "P001"));
+    }
+
+    private Product versioned(String id, Long version) {
+        Product product = new ProductBuilder(id, "name").build();
+        product.setVersion(version);
+        return product;
+    }
+}
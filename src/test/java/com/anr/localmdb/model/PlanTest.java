@@ -29,7 +29,6 @@ public class PlanTest {
         
         // Assert
         assertNotNull(plan);
-        assertNull(plan.getId());
         assertNull(plan.getPlanDefinitionId());
         assertNull(plan.getPlanName());
         assertNull(plan.getPlanNumber());
@@ -43,19 +42,6 @@ public class PlanTest {
     // GETTER AND SETTER TESTS
     // ========================================================================
 
-    @Test
-    void testSetAndGetId() {
-        // Arrange
-        Plan plan = new Plan();
-        Long id = 12345L;
-        
-        // Act
-        plan.setId(id);
-        
-        // Assert
-        assertEquals(id, plan.getId());
-    }
-
     @Test
     void testSetAndGetPlanDefinitionId() {
         // Arrange
@@ -155,7 +141,6 @@ public class PlanTest {
     void testSetNullValues() {
         // Arrange
         Plan plan = new Plan();
-        plan.setId(123L);
         plan.setPlanDefinitionId(100);
         plan.setPlanName("Test Plan");
         plan.setPlanNumber("PLN-001");
@@ -165,7 +150,6 @@ public class PlanTest {
         plan.setStatus("Active");
         
         // Act - Set all to null
-        plan.setId(null);
         plan.setPlanDefinitionId(null);
         plan.setPlanName(null);
         plan.setPlanNumber(null);
@@ -175,7 +159,6 @@ public class PlanTest {
         plan.setStatus(null);
         
         // Assert
-        assertNull(plan.getId());
         assertNull(plan.getPlanDefinitionId());
         assertNull(plan.getPlanName());
         assertNull(plan.getPlanNumber());
@@ -244,7 +227,6 @@ public class PlanTest {
     void testJsonSerialization_withAllFields() throws JsonProcessingException {
         // Arrange
         Plan plan = new Plan();
-        plan.setId(1L);
         plan.setPlanDefinitionId(100);
         plan.setPlanName("Premium Plan");
         plan.setPlanNumber("PLN-001");
@@ -282,7 +264,7 @@ public class PlanTest {
     @Test
     void testJsonDeserialization() throws JsonProcessingException {
         // Arrange
-        String json = "{\"id\":1,\"planDefinitionId\":100,\"planName\":\"Test Plan\",\"planNumber\":\"PLN-001\",\"segment\":\"Individual\",\"planFamily\":\"Gold\",\"coverageType\":\"Medical\",\"status\":\"Active\"}";
+        String json = "{\"planDefinitionId\":100,\"planName\":\"Test Plan\",\"planNumber\":\"PLN-001\",\"segment\":\"Individual\",\"planFamily\":\"Gold\",\"coverageType\":\"Medical\",\"status\":\"Active\"}";
         ObjectMapper mapper = new ObjectMapper();
         
         // Act
@@ -290,7 +272,6 @@ public class PlanTest {
         
         // Assert
         assertNotNull(plan);
-        assertEquals(1L, plan.getId());
         assertEquals(100, plan.getPlanDefinitionId());
         assertEquals("Test Plan", plan.getPlanName());
         assertEquals("PLN-001", plan.getPlanNumber());
@@ -308,7 +289,6 @@ public class PlanTest {
     void testCompleteWorkflow() {
         // Arrange & Act
         Plan plan = new Plan();
-        plan.setId(1L);
         plan.setPlanDefinitionId(200);
         plan.setPlanName("Comprehensive Health Plan");
         plan.setPlanNumber("PLN-2024-200");
@@ -318,7 +298,6 @@ public class PlanTest {
         plan.setStatus("Active");
         
         // Assert
-        assertEquals(1L, plan.getId());
         assertEquals(200, plan.getPlanDefinitionId());
         assertEquals("Comprehensive Health Plan", plan.getPlanName());
         assertEquals("PLN-2024-200", plan.getPlanNumber());
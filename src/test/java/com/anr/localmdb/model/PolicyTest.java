@@ -1,6 +1,7 @@
 package com.anr.localmdb.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -147,6 +148,33 @@ public class PolicyTest {
         assertEquals(2, policy.getPlans().size());
     }
 
+    @Test
+    void testSetPlans_referencesPlanDefinitions() throws JsonProcessingException {
+        // Arrange
+        Policy policy = new Policy();
+        Plan plan1 = new Plan();
+        plan1.setPlanDefinitionId(111);
+        plan1.setPlanName("Plan 1");
+        Plan plan2 = new Plan();
+        plan2.setPlanDefinitionId(321);
+        plan2.setPlanName("Plan 2");
+
+        // Act
+        policy.setPlans(Arrays.asList(plan1, plan2));
+        String json = new ObjectMapper().writeValueAsString(policy);
+
+        // Assert - the ids are persisted, the plans are what the API shows
+        assertEquals(Arrays.asList(111, 321), policy.getPlanDefinitionIds());
+        assertTrue(json.contains("\"plans\""));
+        assertFalse(json.contains("planDefinitionIds"));
+
+        // Act - clearing the plans clears the references
+        policy.setPlans(null);
+
+        // Assert
+        assertNull(policy.getPlanDefinitionIds());
+    }
+
     // ========================================================================
     // NULL VALUE TESTS
     // ========================================================================
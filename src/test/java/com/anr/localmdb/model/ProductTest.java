@@ -0,0 +1,56 @@
+package com.anr.localmdb.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for the numeric price derived from Product.price
+ *
+ * @author amitr
+ */
+public class ProductTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testToMinorUnits() {
+        assertEquals(350L, Product.toMinorUnits("$3.50"));
+        assertEquals(1299L, Product.toMinorUnits("12.99"));
+        assertEquals(500L, Product.toMinorUnits("5"));
+        assertNull(Product.toMinorUnits(null));
+        assertNull(Product.toMinorUnits("ten dollars"));
+        assertNull(Product.toMinorUnits("1.234"));
+    }
+
+    @Test
+    void testSetPriceKeepsMinorUnitsInSync() {
+        Product product = new ProductBuilder("P001", "toy").price("$3.50").build();
+        assertEquals(350L, product.getPriceMinor());
+
+        product.setPrice("4.25");
+        assertEquals(425L, product.getPriceMinor());
+
+        product.setPrice(null);
+        assertNull(product.getPriceMinor());
+    }
+
+    @Test
+    void testJsonKeepsStringPriceAndIgnoresIncomingMinorUnits() throws Exception {
+        Product product = objectMapper.readValue(
+                "{\"id\":\"P001\",\"name\":\"toy\",\"price\":\"$3.50\",\"priceMinor\":1}", Product.class);
+
+        assertEquals("$3.50", product.getPrice());
+        assertEquals(350L, product.getPriceMinor());
+        String json = objectMapper.writeValueAsString(product);
+        assertTrue(json.contains("\"price\":\"$3.50\""));
+        assertTrue(json.contains("\"priceMinor\":350"));
+        assertFalse(json.contains("\"priceMinor\":1,"));
+    }
+}
@@ -4,14 +4,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.anr.localmdb.model.Product;
 import com.anr.localmdb.model.Product.ProductBuilder;
@@ -21,6 +26,9 @@ public class ProductRepositoryTest {
     @Autowired
     private ProductRepository prodRepo;
 
+    @Autowired
+    private JdbcTemplate jdbc;
+
     @BeforeEach
     void setup() {
         // H2 database is automatically initialized with sample data via DataInitializer
@@ -43,6 +51,22 @@ public class ProductRepositoryTest {
         assertTrue(fetchedProducts.size() > 0);
     }
 
+    @Test
+    void test_find_prodByDescriptionPart_escapedWildcardsInIdOrder() {
+        String tag = RandomStringUtils.randomAlphabetic(8);
+        prodRepo.save(new ProductBuilder(tag + "-3", "pct").desc(tag + " 100% cotton").price("$1.00").build());
+        prodRepo.save(new ProductBuilder(tag + "-1", "pct").desc(tag + " 100% COTTON").price("$1.00").build());
+        prodRepo.save(new ProductBuilder(tag + "-2", "word").desc(tag + " 100 percent cotton").price("$1.00").build());
+        prodRepo.save(new ProductBuilder(tag + "-4", "under").desc(tag + " a_b").price("$1.00").build());
+        prodRepo.save(new ProductBuilder(tag + "-5", "plain").desc(tag + " axb").price("$1.00").build());
+
+        assertEquals(List.of(tag + "-1", tag + "-3"),
+                ids(prodRepo.findProductsWithDescriptionContaining(tag + " 100\\% cotton")));
+        assertEquals(List.of(tag + "-4"), ids(prodRepo.findProductsWithDescriptionContaining(tag + " a\\_b")));
+        assertEquals(List.of(tag + "-1", tag + "-2", tag + "-3", tag + "-4", tag + "-5"),
+                ids(prodRepo.findProductsWithDescriptionContaining(tag)));
+    }
+
     @Test
     void insert_one_product() {
         Product giveProduct = getStubbedProduct("ironman", "plastic figuring toy of an avenger superhero", "$5.49");
@@ -53,6 +77,71 @@ public class ProductRepositoryTest {
         assertEquals(giveProduct.getName(), savedProduct.getName());
     }
 
+    @Test
+    void test_keysetPage_ordersByIdAndSeeksPastCursor() {
+        List<Product> firstPage = prodRepo.findByIdGreaterThanOrderByIdAsc("", Limit.of(3));
+        List<Product> secondPage = prodRepo.findByIdGreaterThanOrderByIdAsc(
+                firstPage.get(firstPage.size() - 1).getId(), Limit.of(3));
+
+        assertEquals(3, firstPage.size());
+        assertTrue(firstPage.get(0).getId().compareTo(firstPage.get(1).getId()) < 0);
+        assertTrue(secondPage.get(0).getId().compareTo(firstPage.get(2).getId()) > 0);
+    }
+
+    @Test
+    void test_priceRange_ascendingKeyset() {
+        List<Product> firstPage = prodRepo.findPriceRangeAscending(350, 350, Long.MIN_VALUE, "", Limit.of(2));
+        Product last = firstPage.get(1);
+        List<Product> secondPage = prodRepo.findPriceRangeAscending(350, 350, last.getPriceMinor(), last.getId(),
+                Limit.of(2));
+
+        assertEquals("001", firstPage.get(0).getId());
+        assertEquals("002", last.getId());
+        assertEquals("003", secondPage.get(0).getId());
+        secondPage.forEach(p -> assertEquals(350L, p.getPriceMinor()));
+    }
+
+    @Test
+    void test_priceRange_descending() {
+        List<Product> page = prodRepo.findPriceRangeDescending(Long.MIN_VALUE, 550, Long.MAX_VALUE, "", Limit.of(3));
+
+        assertEquals(3, page.size());
+        assertEquals(550L, page.get(0).getPriceMinor());
+        assertEquals("010", page.get(0).getId());
+        assertTrue(page.get(1).getId().compareTo(page.get(0).getId()) < 0);
+    }
+
+    @Test
+    void test_cheapest() {
+        List<Product> cheapest = prodRepo.findByPriceMinorNotNullOrderByPriceMinorAscIdAsc(Limit.of(2));
+
+        assertEquals(2, cheapest.size());
+        assertEquals("001", cheapest.get(0).getId());
+        assertEquals("$3.50", cheapest.get(1).getPrice());
+    }
+
+    @Test
+    void test_priceRange_usesPriceIndex() {
+        String plan = jdbc.queryForObject("EXPLAIN SELECT * FROM products WHERE price_minor BETWEEN 100 AND 400 "
+                + "ORDER BY price_minor, id", String.class);
+
+        assertTrue(plan.toUpperCase().contains("IDX_PRODUCTS_PRICE_MINOR"), plan);
+    }
+
+    @Test
+    void test_findFields_returnsOnlyRequestedColumns() {
+        List<Map<String, Object>> rows = prodRepo.findFieldsOrderedById(Arrays.asList("id", "name"), "001",
+                Limit.of(2));
+
+        assertEquals(2, rows.size());
+        assertEquals("002", rows.get(0).get("id"));
+        assertEquals(Set.of("id", "name"), rows.get(0).keySet());
+    }
+
+    private List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
     private Product getStubbedProduct(String name, String desc, String price) {
         String id = RandomStringUtils.randomAlphabetic(10);
         return new ProductBuilder(id, name).desc(desc).price(price).build();
@@ -0,0 +1,95 @@
+package com.anr.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for log line and timestamp rendering
+ *
+ * @author amitr
+ */
+public class LogFormatTest {
+
+    // 2024-03-09 in any zone; the millis part is 7
+    private static final long NOW = 1_710_000_000_007L;
+
+    @Test
+    void test_line_sameAsFormattedLine() {
+        String formatted = String.format("[transmissionID = %s] %s (ts=%s)%n", "TXN-1", "start time:42",
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(NOW)));
+
+        assertEquals(formatted, LogFormat.line("TXN-1", NOW, "start time:{}", 42L));
+    }
+
+    @Test
+    void test_line_placeholdersFilledInOrder() {
+        assertEquals("a=1 b=null c={}", message("a={} b={} c={}", 1, null));
+        assertEquals("no placeholders", message("no placeholders", "dropped"));
+        assertEquals("{} kept", message("{} kept"));
+        assertEquals("null", message(null, "x"));
+    }
+
+    @Test
+    void test_line_blankTransactionID() {
+        assertEquals("[transmissionID = ] ", LogFormat.line(null, NOW, "m").substring(0, 20));
+        assertEquals("[transmissionID = ] ", LogFormat.line("", NOW, "m").substring(0, 20));
+    }
+
+    @Test
+    void test_line_longMessage() {
+        String longMessage = "x".repeat(20_000);
+
+        assertEquals(longMessage, message(longMessage));
+        assertEquals("short", message("short"));
+    }
+
+    @Test
+    void test_timestamp_sameAsSimpleDateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        for (long millis : new long[] { NOW, NOW + 993, NOW + 1_000, 0L, 86_399_999L }) {
+            assertEquals(format.format(new Date(millis)), LogFormat.timestamp(millis));
+            String line = LogFormat.line("T", millis, "m");
+            assertEquals(format.format(new Date(millis)), line.substring(line.indexOf("(ts=") + 4, line.indexOf(')')));
+        }
+    }
+
+    @Test
+    void test_timestamp_sharedSecondConsistentAcrossVirtualThreads() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        List<Future<String>> mismatches = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 64; t++) {
+                long offset = t * 997L;
+                mismatches.add(executor.submit(() -> {
+                    SimpleDateFormat own = (SimpleDateFormat) format.clone();
+                    // neighbouring threads alternate seconds, so the shared one keeps changing
+                    for (long millis = NOW + offset; millis < NOW + offset + 5_000; millis += 333) {
+                        String expected = own.format(new Date(millis));
+                        if (!expected.equals(LogFormat.timestamp(millis))) {
+                            return expected;
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<String> mismatch : mismatches) {
+            assertNull(mismatch.get());
+        }
+    }
+
+    private static String message(String pattern, Object... args) {
+        String line = LogFormat.line("T", NOW, pattern, args);
+        return line.substring("[transmissionID = T] ".length(), line.lastIndexOf(" (ts="));
+    }
+}
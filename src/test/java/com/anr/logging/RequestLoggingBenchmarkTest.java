@@ -0,0 +1,164 @@
+package com.anr.logging;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.anr.common.SBUtil;
+import com.anr.common.SBUtil.TransactionType;
+import com.anr.logging.model.SplunkEvent;
+import com.anr.logging.model.SplunkEvent.SplunkEventBuilder;
+import com.anr.model.SBResponseModel;
+import com.google.gson.Gson;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Allocation and latency per request of the logging ControllerLoggingAspect does around a call -
+ * start line, outcome line with the serialized response, request and response events - with the
+ * SBUtil logging before parameterized messages (String.format and a new SimpleDateFormat per line,
+ * response serialized whatever the level) against the current one, with INFO on and off. Lines
+ * go to a logger without appenders, so what is measured is building them, not writing them
+ *
+ * Each path runs once on the test thread and once with every request on a virtual thread of its
+ * own, as spring.threads.virtual.enabled serves them, where nothing a thread keeps outlives the
+ * request. Allocation there is the process total, thread creation included, which is the same for
+ * both paths
+ *
+ * Excluded from the regular test run; run with ./gradlew benchmarkTest
+ *
+ * @author amitr
+ */
+@Tag("benchmark")
+public class RequestLoggingBenchmarkTest {
+
+    private static final int WARMUP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 200_000;
+    private static final String TRANSACTION_ID = "TXN-0123456789";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SBUtil.class);
+    private final Gson gson = new Gson();
+    private final SBUtil sbutil = new SBUtil();
+    private final SBResponseModel response = new SBResponseModel();
+
+    @Test
+    void compareBeforeAndAfter() throws Exception {
+        ReflectionTestUtils.setField(sbutil, "gson", gson);
+        ReflectionTestUtils.setField(sbutil, "logforwarder", new LogForwarder() {
+            @Override
+            public void logEvent(SplunkEvent event) {
+            }
+        });
+        response.setField1("field-one-value");
+        response.setField2("field-two-value");
+        Level level = logger.getLevel();
+        boolean additive = logger.isAdditive();
+        logger.setAdditive(false);
+        try {
+            System.out.printf("%nrequest logging, per request%n  %-32s %12s %14s%n", "path", "median ns",
+                    "bytes / call");
+            for (Level on : new Level[] { Level.INFO, Level.WARN }) {
+                logger.setLevel(on);
+                String label = on == Level.INFO ? "INFO on" : "INFO off";
+                report("before, " + label, this::before);
+                report("after, " + label, this::after);
+                reportOnVirtualThreads("before, " + label + ", virtual", this::before);
+                reportOnVirtualThreads("after, " + label + ", virtual", this::after);
+            }
+        } finally {
+            logger.setLevel(level);
+            logger.setAdditive(additive);
+        }
+    }
+
+    // the aspect and SBUtil as they were: every line formatted, then logged at DEBUG
+    private void before(int i) {
+        long startTime = System.currentTimeMillis();
+        SplunkEventBuilder bldr = new SplunkEventBuilder("Default-Api", "localhost", "web", TRANSACTION_ID);
+        bldr.transactionType(TransactionType.Request);
+        legacyLogInfo(TRANSACTION_ID, "start time:" + startTime);
+        String messageString = "Success: " + gson.toJson(response);
+        bldr.transactionType(TransactionType.Response);
+        messageString += "; timetaken = " + (System.currentTimeMillis() - startTime) + " ms";
+        legacyLogInfo(TRANSACTION_ID, messageString);
+        SplunkEvent event = bldr.build();
+        event.setReponseTimeInMillis(System.currentTimeMillis() - startTime);
+        event.setProcessEndTs(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()));
+        event.setProcesStartTs(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(startTime)));
+    }
+
+    private void legacyLogInfo(String transactionID, String message) {
+        if (logger.isInfoEnabled()) {
+            logger.debug(String.format("[transmissionID = %s] %s (ts=%s)%n",
+                    StringUtils.isEmpty(transactionID) ? StringUtils.EMPTY : transactionID, message,
+                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date())));
+        }
+    }
+
+    // the aspect's logging as it is now
+    private void after(int i) {
+        long startTime = System.currentTimeMillis();
+        SplunkEventBuilder bldr = new SplunkEventBuilder("Default-Api", "localhost", "web", TRANSACTION_ID);
+        bldr.transactionType(TransactionType.Request);
+        sbutil.logInfo(TRANSACTION_ID, "start time:{}", startTime);
+        long timeTaken = System.currentTimeMillis() - startTime;
+        bldr.transactionType(TransactionType.Response);
+        if (sbutil.isInfoEnabled()) {
+            sbutil.logInfo(TRANSACTION_ID, "Success: {}; timetaken = {} ms", gson.toJson(response), timeTaken);
+        }
+        sbutil.logToSplunkOrSimilar(bldr.build(), startTime);
+    }
+
+    private void report(String path, IntConsumer call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.accept(i);
+        }
+        long[] nanos = new long[MEASURED_CALLS];
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            long start = System.nanoTime();
+            call.accept(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(nanos);
+        System.out.printf("  %-32s %12d %14d%n", path, nanos[MEASURED_CALLS / 2], allocated / MEASURED_CALLS);
+    }
+
+    // one virtual thread per call, run one after the other so the calls do not compete
+    private void reportOnVirtualThreads(String path, IntConsumer call) throws Exception {
+        long[] nanos = new long[MEASURED_CALLS];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < WARMUP_CALLS; i++) {
+                int n = i;
+                executor.submit(() -> call.accept(n)).get();
+            }
+            long allocatedBefore = THREADS.getTotalThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                int n = i;
+                executor.submit(() -> {
+                    long start = System.nanoTime();
+                    call.accept(n);
+                    nanos[n] = System.nanoTime() - start;
+                }).get();
+            }
+            long allocated = THREADS.getTotalThreadAllocatedBytes() - allocatedBefore;
+            Arrays.sort(nanos);
+            System.out.printf("  %-32s %12d %14d%n", path, nanos[MEASURED_CALLS / 2], allocated / MEASURED_CALLS);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.localmdb.repository.MemberDocumentRepository;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.MemberPage;
+import com.anr.model.MemberSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Document-mode member storage against its own database: the same members are stored both ways,
+ * so a document read can be checked to render exactly as the relational read does, and in one
+ * statement
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:memberdocuments",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class MemberDocumentServiceTest {
+
+    private static final int MEMBERS = 12;
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1980, 6, 1);
+    private static final LocalDate LAST_BIRTHDAY = FIRST_BIRTHDAY.plusDays(MEMBERS - 1);
+
+    @Autowired
+    private MemberDocumentService sut;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private MemberDocumentRepository docRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setup() {
+        if (!docRepo.existsById(memberId(0))) {
+            List<InsuranceMember> members = new ArrayList<>();
+            for (int m = 0; m < MEMBERS; m++) {
+                members.add(member(m));
+            }
+            memberService.saveBatch(members);
+            sut.insertBatch(members);
+        }
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void test_findById_oneStatement() {
+        InsuranceMember member = sut.findById(memberId(4));
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(2, member.getPolicies().size());
+        assertEquals("dental", member.getPolicies().get(1).getPlans().get(1).getPlanName());
+        assertEquals(List.of(200, 201), member.getPolicies().get(1).getPlanDefinitionIds());
+    }
+
+    @Test
+    void test_findById_rendersAsRelationalRead() throws Exception {
+        String relational = objectMapper.writeValueAsString(memberService.findById(memberId(7)));
+        String document = objectMapper.writeValueAsString(sut.findById(memberId(7)));
+
+        assertEquals(relational, document);
+    }
+
+    @Test
+    void test_findById_lowCardinalityValuesSharedAcrossMembersAndModes() {
+        Policy relational = memberService.findById(memberId(1)).getPolicies().get(0);
+        Policy document = sut.findById(memberId(2)).getPolicies().get(0);
+
+        assertSame(relational.getGroup(), document.getGroup());
+        assertSame(relational.getDivision(), document.getDivision());
+        assertSame(relational.getPlans().get(0).getStatus(), document.getPlans().get(0).getStatus());
+        assertSame(relational.getPlans().get(0).getSegment(), sut.findById(memberId(3)).getPolicies().get(1)
+                .getPlans().get(1).getSegment());
+    }
+
+    @Test
+    void test_findById_missing() {
+        assertNull(sut.findById("DOC-missing"));
+    }
+
+    @Test
+    void test_findPageByBirthday_oneStatementSameCursorAsRelational() {
+        MemberPage<InsuranceMember> page = sut.findPageByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY, null, 5);
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(5, page.getItems().size());
+        assertEquals(memberId(4), page.getItems().get(4).getId());
+        assertEquals(memberService.findPageByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY, null, 5).getNextCursor(),
+                page.getNextCursor());
+
+        MemberPage<InsuranceMember> next = sut.findPageByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY,
+                page.getNextCursor(), 5);
+        assertEquals(memberId(5), next.getItems().get(0).getId());
+    }
+
+    @Test
+    void test_findSummaryPageByBirthday_lastPageHasNoCursor() {
+        MemberPage<MemberSummary> page = sut.findSummaryPageByBirthday(FIRST_BIRTHDAY.plusDays(10), LAST_BIRTHDAY,
+                null, 5);
+
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void test_findByName_readsIndexedColumns() {
+        List<MemberSummary> members = sut.findByName("doc3", "document");
+
+        assertEquals(1, members.size());
+        assertEquals(memberId(3), members.get(0).getId());
+        assertEquals(MEMBERS, sut.findByName(null, "document").size());
+        assertThrows(IllegalArgumentException.class, () -> sut.findByName(" ", null));
+    }
+
+    @Test
+    void test_exportByBirthday_oneLinePerMember() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(MEMBERS, sut.exportByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY, false, out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(MEMBERS, lines.length);
+        assertTrue(lines[MEMBERS - 1].contains("\"plans\""));
+        assertTrue(lines[MEMBERS - 1].contains(memberId(MEMBERS - 1)));
+    }
+
+    @Test
+    void test_findEligibleOn_sameAsRelational() {
+        LocalDate date = LocalDate.of(2024, 6, 1);
+        List<EligiblePolicy> policies = setUp(sut.findEligibleOn(date));
+
+        assertEquals(MEMBERS * 2, policies.size());
+        assertEquals(List.of(200, 201), policies.get(0).getPlanDefinitionIds());
+        assertEquals(setUp(memberService.findEligibleOn(date)), policies);
+        assertEquals(List.of(), setUp(sut.findEligibleOn(LocalDate.of(2023, 12, 31))));
+    }
+
+    @Test
+    void test_insertBatch_existingMember_rejected() {
+        assertThrows(DataIntegrityViolationException.class, () -> sut.insertBatch(List.of(member(0))));
+    }
+
+    @Test
+    void test_saveOne_replacesDocument() {
+        InsuranceMember member = member(MEMBERS + 1);
+        sut.saveOne(member);
+        member.setLastname("replaced");
+        sut.saveOne(member);
+
+        InsuranceMember read = sut.findById(memberId(MEMBERS + 1));
+        assertNotNull(read);
+        assertEquals("replaced", read.getLastname());
+        assertEquals(1, sut.findByName(null, "replaced").size());
+    }
+
+    @Test
+    void test_saveOne_planWithoutDefinitionId_rejected() {
+        InsuranceMember member = member(MEMBERS + 2);
+        member.getPolicies().get(0).getPlans().get(0).setPlanDefinitionId(null);
+
+        assertThrows(IllegalArgumentException.class, () -> sut.saveOne(member));
+    }
+
+    // members of the setup, stored both ways
+    private List<EligiblePolicy> setUp(List<EligiblePolicy> policies) {
+        return policies.stream().filter(policy -> policy.getMemberId().startsWith("DOC"))
+                .filter(policy -> policy.getMemberId().compareTo(memberId(MEMBERS)) < 0).collect(Collectors.toList());
+    }
+
+    private String memberId(int m) {
+        return String.format("DOC%02d", m);
+    }
+
+    private InsuranceMember member(int m) {
+        InsuranceMember member = new InsuranceMember();
+        member.setId(memberId(m));
+        member.setPartyId("DOCP" + m);
+        member.setFirstname("doc" + m);
+        member.setLastname("document");
+        member.setDateOfBirth(java.sql.Date.valueOf(FIRST_BIRTHDAY.plusDays(m)));
+        List<Policy> policies = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            Policy policy = new Policy();
+            policy.setPolicyID(memberId(m) + "-P" + p);
+            policy.setHccID("HD" + m + p);
+            policy.setGroup(new String("B0123"));
+            policy.setDivision(new String("north"));
+            policy.setPolicyStartDate(java.sql.Date.valueOf(LocalDate.of(2024, 1, 1)));
+            List<Plan> plans = new ArrayList<>();
+            for (String name : List.of("medical", "dental")) {
+                Plan plan = new Plan();
+                plan.setPlanDefinitionId(200 + plans.size());
+                plan.setPlanName(name);
+                plan.setSegment(new String("small group"));
+                plan.setStatus(new String("active"));
+                plans.add(plan);
+            }
+            policy.setPlans(plans);
+            policies.add(policy);
+        }
+        member.setPolicies(policies);
+        return member;
+    }
+}
@@ -0,0 +1,174 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.localmdb.repository.MemberRepository;
+import com.anr.model.EligiblePolicy;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * "Policies in force on date X" against its own database: the in-memory policy period index must
+ * answer exactly what the policies (start, expiry) index query does, and follow member writes
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:eligibility",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class MemberEligibilityTest {
+
+    private static final int MEMBERS = 10;
+    // member m's first policy covers the year 2031 + m % 3, its second starts mid-2032 and never expires
+    private static final LocalDate FIRST_YEAR = LocalDate.of(2031, 1, 1);
+
+    @Autowired
+    private MemberService sut;
+
+    @Autowired
+    private MemberRepository memRepo;
+
+    @Autowired
+    private PolicyPeriodIndex index;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setup() {
+        if (!memRepo.existsById(memberId(0))) {
+            List<InsuranceMember> members = new ArrayList<>();
+            for (int m = 0; m < MEMBERS; m++) {
+                members.add(member(m));
+            }
+            sut.insertBatch(members);
+        }
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void test_findEligibleOn_fromIndexWithoutStatements() {
+        assertTrue(index.isReady());
+
+        List<EligiblePolicy> policies = ours(sut.findEligibleOn(LocalDate.of(2031, 6, 1)), "");
+
+        assertEquals(0, stats.getPrepareStatementCount());
+        assertEquals(List.of(memberId(0), memberId(3), memberId(6), memberId(9)),
+                policies.stream().map(EligiblePolicy::getMemberId).collect(Collectors.toList()));
+        assertEquals(List.of(400, 401), policies.get(0).getPlanDefinitionIds());
+    }
+
+    @Test
+    void test_findPolicyPlansActiveOn_oneStatementSameAsIndex() {
+        for (LocalDate date : List.of(LocalDate.of(2030, 12, 31), FIRST_YEAR, LocalDate.of(2032, 6, 30),
+                LocalDate.of(2032, 7, 1), LocalDate.of(2033, 12, 31), LocalDate.of(2040, 1, 1))) {
+            stats.clear();
+            List<EligiblePolicy> queried = EligiblePolicy.fromRows(
+                    memRepo.findPolicyPlansActiveOn(java.sql.Date.valueOf(date)).iterator());
+
+            assertEquals(1, stats.getPrepareStatementCount());
+            assertEquals(queried, sut.findEligibleOn(date), date.toString());
+        }
+    }
+
+    @Test
+    void test_findEligibleOn_openEndedAndBoundaries() {
+        assertEquals(MEMBERS, ours(sut.findEligibleOn(LocalDate.of(2040, 1, 1)), "-P1").size());
+        assertEquals(0, ours(sut.findEligibleOn(LocalDate.of(2040, 1, 1)), "-P0").size());
+        assertEquals(4, ours(sut.findEligibleOn(LocalDate.of(2031, 12, 31)), "-P0").size());
+        assertEquals(3, ours(sut.findEligibleOn(LocalDate.of(2032, 1, 1)), "-P0").size());
+        assertEquals(0, ours(sut.findEligibleOn(LocalDate.of(2032, 6, 30)), "-P1").size());
+        assertEquals(0, ours(sut.findEligibleOn(LocalDate.of(2030, 12, 31)), "").size());
+    }
+
+    @Test
+    void test_saveOne_indexFollowsCommittedWrite() {
+        // covered through 2033
+        InsuranceMember member = member(MEMBERS + 1);
+        sut.saveOne(member);
+        assertEquals(List.of(memberId(MEMBERS + 1) + "-P0", memberId(MEMBERS + 1) + "-P1"),
+                policyIds(LocalDate.of(2033, 3, 1), MEMBERS + 1));
+
+        member.getPolicies().get(0).setPolicyStartDate(java.sql.Date.valueOf(LocalDate.of(2033, 5, 1)));
+        sut.saveOne(member);
+        assertEquals(List.of(memberId(MEMBERS + 1) + "-P1"), policyIds(LocalDate.of(2033, 3, 1), MEMBERS + 1));
+        assertEquals(List.of(memberId(MEMBERS + 1) + "-P0", memberId(MEMBERS + 1) + "-P1"),
+                policyIds(LocalDate.of(2033, 5, 1), MEMBERS + 1));
+    }
+
+    @Test
+    void test_insertBatch_rolledBack_notIndexed() {
+        List<InsuranceMember> members = List.of(member(MEMBERS + 2), member(0));
+
+        assertThrows(RuntimeException.class, () -> sut.insertBatch(members));
+        assertEquals(List.of(), policyIds(LocalDate.of(2040, 1, 1), MEMBERS + 2));
+    }
+
+    private List<String> policyIds(LocalDate date, int m) {
+        return sut.findEligibleOn(date).stream().filter(policy -> policy.getMemberId().equals(memberId(m)))
+                .map(EligiblePolicy::getPolicyId).collect(Collectors.toList());
+    }
+
+    // the set-up members' policies with the id suffix; sample data and members other tests add are
+    // in this database too
+    private List<EligiblePolicy> ours(List<EligiblePolicy> policies, String suffix) {
+        return policies.stream().filter(policy -> policy.getMemberId().compareTo(memberId(MEMBERS)) < 0)
+                .filter(policy -> policy.getMemberId().startsWith("ELIG"))
+                .filter(policy -> policy.getPolicyId().endsWith(suffix)).collect(Collectors.toList());
+    }
+
+    private String memberId(int m) {
+        return String.format("ELIG%02d", m);
+    }
+
+    private InsuranceMember member(int m) {
+        InsuranceMember member = new InsuranceMember();
+        member.setId(memberId(m));
+        member.setPartyId("ELIGP" + m);
+        member.setFirstname("eligible" + m);
+        member.setLastname("eligibility");
+        member.setDateOfBirth(java.sql.Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(m)));
+        LocalDate start = FIRST_YEAR.plusYears(m % 3);
+        List<Policy> policies = new ArrayList<>();
+        policies.add(policy(memberId(m) + "-P0", start, start.plusYears(1).minusDays(1)));
+        policies.add(policy(memberId(m) + "-P1", LocalDate.of(2032, 7, 1), null));
+        member.setPolicies(policies);
+        return member;
+    }
+
+    private Policy policy(String id, LocalDate start, LocalDate expiry) {
+        Policy policy = new Policy();
+        policy.setPolicyID(id);
+        policy.setHccID("HE" + id);
+        policy.setPolicyStartDate(java.sql.Date.valueOf(start));
+        policy.setPolicyExpiryDate(expiry == null ? null : java.sql.Date.valueOf(expiry));
+        List<Plan> plans = new ArrayList<>();
+        for (String name : List.of("medical", "vision")) {
+            Plan plan = new Plan();
+            plan.setPlanDefinitionId(400 + plans.size());
+            plan.setPlanName(name);
+            plans.add(plan);
+        }
+        policy.setPlans(plans);
+        return policy;
+    }
+}
@@ -0,0 +1,197 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.model.MemberIngestChunk;
+import com.anr.model.MemberIngestResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs the NDJSON member ingest against its own database with a small chunk size: chunking,
+ * per-chunk reports, failure isolation and statement counts of the batched inserts
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:memberingest",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "sbsvc.memberIngest.chunkSize=" + MemberIngestServiceTest.CHUNK_SIZE })
+public class MemberIngestServiceTest {
+
+    static final int CHUNK_SIZE = 50;
+
+    @Autowired
+    private MemberIngestService sut;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void test_ingest_commitsInChunksAndReportsEach() throws Exception {
+        List<MemberIngestChunk> reports = new ArrayList<>();
+
+        MemberIngestResult result = sut.ingest(ndjson("CH", 120), reports::add);
+
+        assertEquals(120, result.getInserted());
+        assertEquals(0, result.getFailed());
+        assertEquals(3, result.getChunks());
+        assertEquals(3, reports.size());
+        assertEquals(2, reports.get(1).getChunk());
+        assertEquals(51, reports.get(1).getFirstLine());
+        assertEquals(100, reports.get(1).getLastLine());
+        assertEquals(20, reports.get(2).getInserted());
+        assertNull(reports.get(0).getFailures());
+
+        InsuranceMember member = memberService.findById("CH119");
+        assertEquals(2, member.getPolicies().size());
+        assertEquals("plan901", member.getPolicies().get(1).getPlans().get(1).getPlanName());
+    }
+
+    @Test
+    void test_ingest_chunkInsertedAsJdbcBatches() throws Exception {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // plan definitions stored and cached beforehand, so only the member inserts are counted
+        sut.ingest(ndjson("JW", 1), chunk -> { });
+        memberService.findById("JW0");
+        InputStream in = ndjson("JB", CHUNK_SIZE);
+        stats.clear();
+
+        sut.ingest(in, chunk -> { });
+
+        // 50 members and 100 policies, plus 100 member-policy and 200 policy-plan rows
+        assertEquals(3 * CHUNK_SIZE, stats.getEntityInsertCount());
+        // a few statements per table instead of one per row, and no read of what is being inserted
+        assertTrue(stats.getPrepareStatementCount() <= 12, "statements: " + stats.getPrepareStatementCount());
+        assertEquals(0, stats.getEntityLoadCount());
+    }
+
+    @Test
+    void test_ingest_badLinesAndDuplicatesFailAlone() throws Exception {
+        String lines = line(member("BD0")) + "\n"
+                + "{not json\n"
+                + "\n"
+                + "{\"firstname\":\"noid\"}\n"
+                + line(member("BD0")) + "\n"
+                + line(member("BD1")) + "\n";
+        List<MemberIngestChunk> reports = new ArrayList<>();
+
+        MemberIngestResult result = sut.ingest(stream(lines), reports::add);
+
+        assertEquals(2, result.getInserted());
+        assertEquals(3, result.getFailed());
+        List<MemberIngestChunk.Failure> failures = reports.get(0).getFailures();
+        assertEquals(2, failures.get(0).getLine());
+        assertTrue(failures.get(0).getError().startsWith("malformed member document"));
+        assertEquals(4, failures.get(1).getLine());
+        assertEquals("id is required", failures.get(1).getError());
+        // the duplicate is only found by the database: the chunk is retried member by member
+        assertEquals(5, failures.get(2).getLine());
+        assertEquals("BD0", failures.get(2).getId());
+        assertEquals("member or policy already exists", failures.get(2).getError());
+        assertNotNull(memberService.findById("BD1"));
+    }
+
+    @Test
+    void test_ingest_sampleRecordDocument() throws Exception {
+        ObjectNode record;
+        try (InputStream in = getClass().getResourceAsStream("/SampleMemberRecord.json")) {
+            record = (ObjectNode) objectMapper.readTree(in);
+        }
+        record.put("_id", "SR1");
+        for (Object policy : (ArrayNode) record.get("policies")) {
+            ObjectNode node = (ObjectNode) policy;
+            node.put("policyID", "SR1-" + node.get("policyID").asText());
+        }
+
+        MemberIngestResult result = sut.ingest(stream(record.toString() + "\n"), chunk -> { });
+
+        assertEquals(1, result.getInserted());
+        InsuranceMember member = memberService.findById("SR1");
+        assertEquals(LocalDate.of(1984, 2, 4),
+                new java.sql.Date(member.getDateOfBirth().getTime()).toLocalDate());
+        assertEquals(3, member.getPolicies().size());
+        assertEquals("basicMedicines", member.getPolicies().get(2).getPlans().get(1).getPlanName());
+    }
+
+    @Test
+    void test_ingest_progressWrittenAsNdjson() throws Exception {
+        ByteArrayOutputStream progress = new ByteArrayOutputStream();
+
+        sut.ingest(ndjson("PG", 60), progress);
+
+        String[] lines = progress.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(1, objectMapper.readTree(lines[0]).get("chunk").asInt());
+        assertEquals(60, objectMapper.readTree(lines[2]).get("inserted").asInt());
+        assertEquals(2, objectMapper.readTree(lines[2]).get("chunks").asInt());
+    }
+
+    private InputStream ndjson(String prefix, int count) throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int m = 0; m < count; m++) {
+            lines.append(line(member(prefix + m))).append('\n');
+        }
+        return stream(lines.toString());
+    }
+
+    private String line(InsuranceMember member) throws Exception {
+        return objectMapper.writeValueAsString(member);
+    }
+
+    private InputStream stream(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private InsuranceMember member(String id) {
+        InsuranceMember member = new InsuranceMember();
+        member.setId(id);
+        member.setFirstname("member");
+        member.setLastname("ingest");
+        member.setDateOfBirth(java.sql.Date.valueOf(LocalDate.of(1980, 1, 1)));
+        List<Policy> policies = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            Policy policy = new Policy();
+            policy.setPolicyID(id + "-P" + p);
+            List<Plan> plans = new ArrayList<>();
+            for (int n = 0; n < 2; n++) {
+                Plan plan = new Plan();
+                plan.setPlanDefinitionId(900 + n);
+                plan.setPlanName("plan" + (900 + n));
+                plans.add(plan);
+            }
+            policy.setPlans(plans);
+            policies.add(policy);
+        }
+        member.setPolicies(policies);
+        return member;
+    }
+}
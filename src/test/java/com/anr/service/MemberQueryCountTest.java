@@ -0,0 +1,283 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.localmdb.repository.MemberRepository;
+import com.anr.model.MemberPage;
+import com.anr.model.MemberSummary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the SQL statements behind each member read, so that a fetch plan change (an EAGER
+ * collection, a lost entity graph) shows up as a failure rather than as N+1 selects in production;
+ * runs in its own database
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:memberqueries",
+        "spring.jpa.properties.hibernate.generate_statistics=true", "sbsvc.secondLevelCache.metrics=true" })
+public class MemberQueryCountTest {
+
+    private static final int MEMBERS = 20;
+    private static final int POLICIES = 2;
+    private static final int PLANS = 2;
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1990, 1, 1);
+    private static final LocalDate LAST_BIRTHDAY = FIRST_BIRTHDAY.plusDays(MEMBERS - 1);
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private MemberRepository memberRepo;
+
+    @Autowired
+    private PlanDefinitionCache planCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setup() {
+        if (!memberRepo.existsById(memberId(0))) {
+            List<InsuranceMember> members = new ArrayList<>();
+            for (int m = 0; m < MEMBERS; m++) {
+                members.add(member(m));
+            }
+            memberService.saveBatch(members);
+        }
+        // every read starts with no plan definitions and nothing in the second-level cache
+        planCache.clear();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // JPA evictAll() leaves collection regions in place
+        sessionFactory.getCache().evictAllRegions();
+        stats = sessionFactory.getStatistics();
+        // only the statements issued by the read under test count
+        stats.clear();
+    }
+
+    @Test
+    void test_findById_coldCache_wholeAggregateInFourStatements() {
+        InsuranceMember member = memberService.findById(memberId(3));
+
+        // member, its policies, their plan references, then the definitions not yet cached
+        assertEquals(4, stats.getPrepareStatementCount());
+        assertEquals(POLICIES, member.getPolicies().size());
+        for (Policy policy : member.getPolicies()) {
+            assertEquals(PLANS, policy.getPlans().size());
+            assertEquals("plan1", policy.getPlans().get(1).getPlanName());
+        }
+    }
+
+    @Test
+    void test_findById_cachedDefinitionsSharedAcrossMembers() {
+        InsuranceMember first = memberService.findById(memberId(3));
+        stats.clear();
+
+        InsuranceMember second = memberService.findById(memberId(4));
+
+        // definitions all cached: no plan_definitions read, one instance per definition
+        assertEquals(3, stats.getPrepareStatementCount());
+        assertSame(first.getPolicies().get(0).getPlans().get(0), second.getPolicies().get(1).getPlans().get(0));
+    }
+
+    @Test
+    void test_findById_warmCache_memberRowOnly() {
+        memberService.findById(memberId(3));
+        stats.clear();
+
+        InsuranceMember member = memberService.findById(memberId(3));
+
+        // policies and plan references come from the second-level cache
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(POLICIES, member.getPolicies().size());
+        assertEquals("plan1", member.getPolicies().get(1).getPlans().get(1).getPlanName());
+        assertTrue(meterRegistry.get("cache.gets").tags("cache", Policy.CACHE_REGION, "result", "hit")
+                .functionCounter().count() > 0);
+    }
+
+    @Test
+    void test_findById_missing_oneStatement() {
+        assertNull(memberService.findById("QC-missing"));
+
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void test_findByName_readsMemberColumnsOnly() {
+        List<MemberSummary> members = memberService.findByName(null, "querycount");
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(MEMBERS, members.size());
+        assertEquals(memberId(0), members.get(0).getId());
+    }
+
+    @Test
+    void test_findPageByBirthday_batchesPoliciesAndPlansAcrossPage() {
+        MemberPage<InsuranceMember> page = memberService.findPageByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY, null, 10);
+
+        // the page of members, its 10 policy collections, their 20 plan reference lists, then the
+        // definitions
+        assertEquals(4, stats.getPrepareStatementCount());
+        assertEquals(10, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        for (InsuranceMember member : page.getItems()) {
+            assertEquals(POLICIES, member.getPolicies().size());
+            member.getPolicies().forEach(policy -> assertEquals(PLANS, policy.getPlans().size()));
+        }
+    }
+
+    @Test
+    void test_findSummaryPageByBirthday_oneStatement() {
+        MemberPage<MemberSummary> page = memberService.findSummaryPageByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY,
+                null, 10);
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(memberId(0), page.getItems().get(0).getId());
+        assertEquals(memberId(9), page.getItems().get(9).getId());
+    }
+
+    @Test
+    void test_findPageByBirthday_cursorWalksRangeInOrder() {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            MemberPage<MemberSummary> page = memberService.findSummaryPageByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY,
+                    cursor, 8);
+            page.getItems().forEach(member -> ids.add(member.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>();
+        for (int m = 0; m < MEMBERS; m++) {
+            expected.add(memberId(m));
+        }
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void test_findPageByBirthday_rangeBoundsInclusive() {
+        MemberPage<InsuranceMember> page = memberService.findPageByBirthday(FIRST_BIRTHDAY.plusDays(5),
+                FIRST_BIRTHDAY.plusDays(6), null, 10);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(memberId(5), page.getItems().get(0).getId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void test_exportByBirthday_fullAndSummaryWriteOneLinePerMember() throws Exception {
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+
+        assertEquals(MEMBERS, memberService.exportByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY, false, full));
+        assertEquals(MEMBERS, memberService.exportByBirthday(FIRST_BIRTHDAY, LAST_BIRTHDAY, true, summary));
+
+        String[] fullLines = full.toString(StandardCharsets.UTF_8).split("\n");
+        String[] summaryLines = summary.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(MEMBERS, fullLines.length);
+        assertEquals(MEMBERS, summaryLines.length);
+        assertTrue(fullLines[0].contains("\"plans\""));
+        assertFalse(summaryLines[0].contains("policies"));
+        assertTrue(summaryLines[MEMBERS - 1].contains(memberId(MEMBERS - 1)));
+    }
+
+    @Test
+    void test_nameQuery_leavesPoliciesUnloaded() {
+        List<InsuranceMember> members = memberRepo.findMembersByLastname("querycount");
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(MEMBERS, members.size());
+        assertFalse(Hibernate.isInitialized(members.get(0).getPolicies()));
+    }
+
+    @Test
+    void test_save_keepsStoredPlanDefinitions() {
+        InsuranceMember single = outsider("QCX1");
+        InsuranceMember batched = outsider("QCX2");
+
+        memberService.saveOne(single);
+        memberService.saveBatch(List.of(batched));
+
+        // definitions are shared: a member carrying its own copy of one does not overwrite it
+        planCache.clear();
+        assertEquals("plan0", memberService.findById(memberId(3)).getPolicies().get(0).getPlans().get(0)
+                .getPlanName());
+        assertEquals("plan0", memberService.findById("QCX1").getPolicies().get(0).getPlans().get(0)
+                .getPlanName());
+    }
+
+    // a member outside the name and birthday ranges the other tests read, with renamed plan copies
+    private InsuranceMember outsider(String id) {
+        InsuranceMember member = member(0);
+        member.setId(id);
+        member.setPartyId(id);
+        member.setLastname("outsider");
+        member.setDateOfBirth(java.sql.Date.valueOf(FIRST_BIRTHDAY.minusYears(10)));
+        for (Policy policy : member.getPolicies()) {
+            policy.setPolicyID(id + policy.getPolicyID().substring(memberId(0).length()));
+            policy.setHccID(id + policy.getHccID());
+            policy.getPlans().forEach(plan -> plan.setPlanName("renamed"));
+        }
+        return member;
+    }
+
+    private String memberId(int m) {
+        return String.format("QC%02d", m);
+    }
+
+    private InsuranceMember member(int m) {
+        InsuranceMember member = new InsuranceMember();
+        member.setId(memberId(m));
+        member.setPartyId("QCP" + m);
+        member.setFirstname("member" + m);
+        member.setLastname("querycount");
+        member.setDateOfBirth(java.sql.Date.valueOf(FIRST_BIRTHDAY.plusDays(m)));
+        List<Policy> policies = new ArrayList<>();
+        for (int p = 0; p < POLICIES; p++) {
+            Policy policy = new Policy();
+            policy.setPolicyID(memberId(m) + "-P" + p);
+            policy.setHccID("H" + m + p);
+            List<Plan> plans = new ArrayList<>();
+            for (int n = 0; n < PLANS; n++) {
+                Plan plan = new Plan();
+                plan.setPlanDefinitionId(100 + n);
+                plan.setPlanName("plan" + n);
+                plans.add(plan);
+            }
+            policy.setPlans(plans);
+            policies.add(policy);
+        }
+        member.setPolicies(policies);
+        return member;
+    }
+}
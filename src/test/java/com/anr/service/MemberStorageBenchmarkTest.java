@@ -0,0 +1,149 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares read latency and allocation of the relational and document member storage modes, for
+ * single members and for birthday pages, over the same members stored both ways. The second-level
+ * cache is off so that both modes read from the database on every call
+ *
+ * Excluded from the regular test run; run with ./gradlew benchmarkTest. Uses its own in-memory
+ * database so the sample data of the other tests is untouched
+ *
+ * @author amitr
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:storagebenchmark",
+        "spring.jpa.show-sql=false", "logging.level.com.anr=INFO", "sbsvc.secondLevelCache.enabled=false" })
+@DirtiesContext
+public class MemberStorageBenchmarkTest {
+
+    private static final int MEMBERS = 20_000;
+    private static final int POLICIES = 3;
+    private static final int PLANS = 4;
+    private static final int PAGE_SIZE = 50;
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1950, 1, 1);
+    private static final int WARMUP_CALLS = 5_000;
+    private static final int MEASURED_CALLS = 20_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private MemberDocumentService memberDocumentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void compareRelationalWithDocument() throws Exception {
+        load();
+        String relational = objectMapper.writeValueAsString(memberService.findById(memberId(17)));
+        assertEquals(relational, objectMapper.writeValueAsString(memberDocumentService.findById(memberId(17))));
+
+        System.out.printf("%n%,d members x %d policies x %d plans%n  %-22s %12s %14s%n", MEMBERS, POLICIES, PLANS,
+                "read", "median us", "bytes / call");
+        report("findById relational", i -> memberService.findById(memberId(i % MEMBERS)));
+        report("findById document", i -> memberDocumentService.findById(memberId(i % MEMBERS)));
+        report("page of " + PAGE_SIZE + " relational", i -> memberService.findPageByBirthday(birthday(i),
+                birthday(i).plusDays(PAGE_SIZE - 1), null, PAGE_SIZE));
+        report("page of " + PAGE_SIZE + " document", i -> memberDocumentService.findPageByBirthday(birthday(i),
+                birthday(i).plusDays(PAGE_SIZE - 1), null, PAGE_SIZE));
+    }
+
+    private void report(String read, IntFunction<Object> call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.apply(i * 7);
+        }
+        long[] nanos = new long[MEASURED_CALLS];
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            long start = System.nanoTime();
+            call.apply(i * 7);
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(nanos);
+        System.out.printf("  %-22s %12d %14d%n", read, nanos[MEASURED_CALLS / 2] / 1_000,
+                allocated / MEASURED_CALLS);
+    }
+
+    private void load() {
+        List<InsuranceMember> members = new ArrayList<>();
+        for (int m = 0; m < MEMBERS; m++) {
+            members.add(member(m));
+            if (members.size() == 1_000) {
+                memberService.insertBatch(members);
+                memberDocumentService.insertBatch(members);
+                members.clear();
+            }
+        }
+    }
+
+    // first day of a full page: one member is born per day
+    private LocalDate birthday(int i) {
+        return FIRST_BIRTHDAY.plusDays(i % (MEMBERS - PAGE_SIZE));
+    }
+
+    private String memberId(int m) {
+        return String.format("SB%06d", m);
+    }
+
+    private InsuranceMember member(int m) {
+        InsuranceMember member = new InsuranceMember();
+        member.setId(memberId(m));
+        member.setPartyId("SBP" + m);
+        member.setFirstname("member" + m);
+        member.setLastname("benchmark" + (m % 100));
+        member.setDateOfBirth(java.sql.Date.valueOf(FIRST_BIRTHDAY.plusDays(m)));
+        List<Policy> policies = new ArrayList<>();
+        for (int p = 0; p < POLICIES; p++) {
+            Policy policy = new Policy();
+            policy.setPolicyID(memberId(m) + "-P" + p);
+            policy.setHccID("H" + m + p);
+            policy.setGroup("B0123");
+            policy.setDivision("123");
+            policy.setPolicyStartDate(java.sql.Date.valueOf(LocalDate.of(2024, 1, 1)));
+            policy.setPolicyExpiryDate(java.sql.Date.valueOf(LocalDate.of(2024, 12, 31)));
+            List<Plan> plans = new ArrayList<>();
+            for (int n = 0; n < PLANS; n++) {
+                // 40 definitions shared across members
+                int definition = (m + n) % 40;
+                Plan plan = new Plan();
+                plan.setPlanDefinitionId(300 + definition);
+                plan.setPlanName("plan" + definition);
+                plan.setPlanNumber("0140" + definition);
+                plan.setSegment("small group");
+                plan.setPlanFamily("ForWorkoutPeople");
+                plan.setCoverageType("health");
+                plan.setStatus("active");
+                plans.add(plan);
+            }
+            policy.setPlans(plans);
+            policies.add(policy);
+        }
+        member.setPolicies(policies);
+        return member;
+    }
+}
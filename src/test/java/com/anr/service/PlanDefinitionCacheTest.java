@@ -0,0 +1,110 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.Plan;
+
+/**
+ * Unit tests for the plan definition cache
+ *
+ * @author amitr
+ */
+public class PlanDefinitionCacheTest {
+
+    private PlanDefinitionCache sut;
+    private List<Collection<Integer>> loads;
+
+    @BeforeEach
+    void setup() {
+        sut = new PlanDefinitionCache(100, Duration.ofMinutes(10));
+        loads = new ArrayList<>();
+    }
+
+    @Test
+    void test_getAll_loadsMissesOnceThenHits() {
+        Map<Integer, Plan> first = sut.getAll(Arrays.asList(111, 321, 321), this::load);
+        Map<Integer, Plan> second = sut.getAll(Arrays.asList(321, 111), this::load);
+
+        // one load, duplicates collapsed
+        assertEquals(1, loads.size());
+        assertEquals(Arrays.asList(111, 321), loads.get(0));
+        assertSame(first.get(321), second.get(321));
+        assertEquals("plan321", second.get(321).getPlanName());
+    }
+
+    @Test
+    void test_getAll_loadsOnlyMisses() {
+        sut.getAll(Arrays.asList(111), this::load);
+        Map<Integer, Plan> found = sut.getAll(Arrays.asList(111, 109), this::load);
+
+        assertEquals(2, loads.size());
+        assertEquals(Arrays.asList(109), loads.get(1));
+        assertEquals(2, found.size());
+    }
+
+    @Test
+    void test_getAll_unknownIdAbsentAndNotCached() {
+        Map<Integer, Plan> found = sut.getAll(Arrays.asList(404), ids -> new ArrayList<>());
+
+        assertFalse(found.containsKey(404));
+        assertEquals(0, sut.getNativeCache().size());
+    }
+
+    @Test
+    void test_evict_reloadsEvictedOnly() {
+        sut.getAll(Arrays.asList(111, 321), this::load);
+
+        sut.evict(Arrays.asList(321));
+        sut.getAll(Arrays.asList(111, 321), this::load);
+
+        assertEquals(Arrays.asList(321), loads.get(1));
+    }
+
+    @Test
+    void test_getAll_evictedDuringLoad_returnedNotCached() {
+        Map<Integer, Plan> found = sut.getAll(Arrays.asList(111), ids -> {
+            List<Plan> stale = load(ids);
+            // a writer commits and evicts while this read holds the old row
+            sut.evict(Arrays.asList(111));
+            return stale;
+        });
+
+        assertEquals("plan111", found.get(111).getPlanName());
+        assertEquals(0, sut.getNativeCache().size());
+        assertEquals(1L, sut.invalidationCount());
+    }
+
+    @Test
+    void test_clear() {
+        sut.getAll(Arrays.asList(111, 321), this::load);
+
+        sut.clear();
+
+        assertTrue(sut.getNativeCache().asMap().isEmpty());
+    }
+
+    private List<Plan> load(Collection<Integer> ids) {
+        loads.add(new ArrayList<>(ids));
+        List<Plan> plans = new ArrayList<>();
+        for (Integer id : ids) {
+            Plan plan = new Plan();
+            plan.setPlanDefinitionId(id);
+            plan.setPlanName("plan" + id);
+            plans.add(plan);
+        }
+        return plans;
+    }
+}
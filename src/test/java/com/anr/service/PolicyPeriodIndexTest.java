@@ -0,0 +1,187 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.InsuranceMember;
+import com.anr.localmdb.model.Plan;
+import com.anr.localmdb.model.Policy;
+import com.anr.model.EligiblePolicy;
+import com.anr.model.PolicyPlanRow;
+
+/**
+ * Unit tests for the policy period interval index
+ *
+ * @author amitr
+ */
+public class PolicyPeriodIndexTest {
+
+    private PolicyPeriodIndex sut;
+
+    @BeforeEach
+    void setup() {
+        sut = new PolicyPeriodIndex();
+        sut.rebuild(Arrays.asList(
+                row("M1", "M1-A", "2024-01-01", "2024-12-31", 10),
+                row("M1", "M1-A", "2024-01-01", "2024-12-31", 11),
+                row("M1", "M1-B", "2025-01-01", null, 12),
+                row("M2", "M2-A", "2023-07-01", "2024-06-30", null),
+                row("M3", "M3-A", null, "2024-12-31", 10)).iterator());
+    }
+
+    @Test
+    void test_activeOn_notAnsweredBeforeRebuild() {
+        assertFalse(new PolicyPeriodIndex().activeOn(LocalDate.of(2024, 1, 1)).isPresent());
+    }
+
+    @Test
+    void test_activeOn_idsAndPlansInMemberThenPolicyOrder() {
+        assertEquals(List.of(new EligiblePolicy("M1", "M1-A", List.of(10, 11)),
+                new EligiblePolicy("M2", "M2-A", List.of())), activeOn("2024-03-15"));
+    }
+
+    @Test
+    void test_activeOn_boundariesInclusive() {
+        assertEquals(List.of("M1-A", "M2-A"), policyIds("2024-06-30"));
+        assertEquals(List.of("M1-A"), policyIds("2024-07-01"));
+        assertEquals(List.of("M1-A"), policyIds("2024-12-31"));
+        assertEquals(List.of("M2-A"), policyIds("2023-07-01"));
+        assertEquals(List.of(), policyIds("2023-06-30"));
+    }
+
+    @Test
+    void test_activeOn_noExpiryIsOpenEnded_noStartIsNeverActive() {
+        assertEquals(List.of("M1-B"), policyIds("2099-01-01"));
+        assertEquals(3, sut.size());
+    }
+
+    @Test
+    void test_put_replacesMemberPeriods() {
+        sut.put(member("M1", policy("M1-C", "2024-03-01", "2024-03-31", 20)));
+
+        assertEquals(List.of("M1-C", "M2-A"), policyIds("2024-03-15"));
+        assertEquals(List.of(), policyIds("2025-06-01"));
+        assertEquals(2, sut.size());
+
+        sut.put(member("M4"));
+        sut.put(member("M2"));
+        assertEquals(List.of("M1-C"), policyIds("2024-03-15"));
+    }
+
+    @Test
+    void test_rebuild_answersAndKeepsWritesWhileReadingRows() {
+        List<PolicyPlanRow> rows = List.of(
+                row("M1", "M1-A", "2024-01-01", "2024-12-31", 10),
+                row("M5", "M5-A", "2024-02-01", "2024-12-31", 10));
+        Iterator<PolicyPlanRow> reading = rows.iterator();
+        List<List<String>> seenWhileReading = new ArrayList<>();
+
+        sut.rebuild(new Iterator<PolicyPlanRow>() {
+            @Override
+            public boolean hasNext() {
+                return reading.hasNext();
+            }
+
+            @Override
+            public PolicyPlanRow next() {
+                if (seenWhileReading.isEmpty()) {
+                    // a lookup and a member write from another request, mid-rebuild
+                    seenWhileReading.add(policyIds("2024-03-15"));
+                    sut.put(member("M6", policy("M6-A", "2024-03-01", "2024-03-31", 20)));
+                }
+                return reading.next();
+            }
+        });
+
+        assertEquals(List.of(List.of("M1-A", "M2-A")), seenWhileReading);
+        assertEquals(List.of("M1-A", "M5-A", "M6-A"), policyIds("2024-03-15"));
+        assertEquals(3, sut.size());
+    }
+
+    @Test
+    void test_activeOn_matchesScanOverManyPeriods() {
+        Random random = new Random(7);
+        List<PolicyPlanRow> rows = new ArrayList<>();
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        for (int p = 0; p < 2_000; p++) {
+            LocalDate start = first.plusDays(random.nextInt(1_500));
+            String expiry = random.nextInt(10) == 0 ? null : start.plusDays(random.nextInt(400)).toString();
+            rows.add(row(String.format("M%04d", p / 3), "P" + p, start.toString(), expiry, p % 40));
+        }
+        sut.rebuild(rows.iterator());
+        // writes between lookups, so removal keeps the tree consistent too
+        for (int m = 0; m < 100; m++) {
+            String memberId = String.format("M%04d", m * 5);
+            sut.put(member(memberId, policy(memberId + "-N", "2021-06-01", "2021-06-30", 1)));
+            rows.removeIf(row -> row.getMemberId().equals(memberId));
+            rows.add(row(memberId, memberId + "-N", "2021-06-01", "2021-06-30", 1));
+        }
+
+        for (int d = 0; d < 2_000; d += 13) {
+            LocalDate date = first.plusDays(d);
+            List<String> expected = new ArrayList<>();
+            for (PolicyPlanRow row : rows) {
+                if (PolicyPeriodIndex.inForce(row, date)) {
+                    expected.add(row.getPolicyId());
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            for (EligiblePolicy policy : sut.activeOn(date).get()) {
+                actual.add(policy.getPolicyId());
+            }
+            expected.sort(null);
+            actual.sort(null);
+            assertEquals(expected, actual, date.toString());
+        }
+        assertTrue(sut.size() < 2_000);
+    }
+
+    private List<EligiblePolicy> activeOn(String date) {
+        return sut.activeOn(LocalDate.parse(date)).get();
+    }
+
+    private List<String> policyIds(String date) {
+        List<String> ids = new ArrayList<>();
+        for (EligiblePolicy policy : activeOn(date)) {
+            ids.add(policy.getPolicyId());
+        }
+        return ids;
+    }
+
+    private static PolicyPlanRow row(String memberId, String policyId, String start, String expiry, Integer plan) {
+        return new PolicyPlanRow(memberId, policyId, date(start), date(expiry), plan);
+    }
+
+    private static java.sql.Date date(String date) {
+        return date == null ? null : java.sql.Date.valueOf(date);
+    }
+
+    private static InsuranceMember member(String id, Policy... policies) {
+        InsuranceMember member = new InsuranceMember();
+        member.setId(id);
+        member.setPolicies(Arrays.asList(policies));
+        return member;
+    }
+
+    private static Policy policy(String id, String start, String expiry, int planDefinitionId) {
+        Policy policy = new Policy();
+        policy.setPolicyID(id);
+        policy.setPolicyStartDate(date(start));
+        policy.setPolicyExpiryDate(date(expiry));
+        Plan plan = new Plan();
+        plan.setPlanDefinitionId(planDefinitionId);
+        policy.setPlans(List.of(plan));
+        return policy;
+    }
+}
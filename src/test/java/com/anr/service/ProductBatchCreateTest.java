@@ -0,0 +1,79 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.localmdb.repository.ProductRepository;
+import com.anr.model.ProductBatchResult;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Bulk create against H2 with JDBC batching on; runs in its own database so the row counts of the
+ * sample data tests are unaffected
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:batchcreate",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class ProductBatchCreateTest {
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void test_createAll_insertsWithJdbcBatches() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            products.add(new ProductBuilder(String.format("BC%04d", i), "item" + i).desc("bulk item")
+                    .price("$1.00").build());
+        }
+        long before = productRepo.count();
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        ProductBatchResult result = productBatchService.createAll(products);
+
+        assertEquals(1200, result.getCreated());
+        assertEquals(before + 1200, productRepo.count());
+        assertEquals(1200, stats.getEntityInsertCount());
+        // one statement per JDBC batch of 50, not one per product
+        assertTrue(stats.getPrepareStatementCount() < 100,
+                "expected batched inserts, got " + stats.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void test_createAll_existingIdFailsOnlyThatItem() {
+        List<Product> products = new ArrayList<>();
+        products.add(new ProductBuilder("BX0001", "fresh one").desc("bulk").price("$1.00").build());
+        // loaded by DataInitializer
+        products.add(new ProductBuilder("001", "scooby").desc("clash").price("$1.00").build());
+        products.add(new ProductBuilder("BX0002", "fresh two").desc("bulk").price("$1.00").build());
+
+        ProductBatchResult result = productBatchService.createAll(products);
+
+        assertEquals(2, result.getCreated());
+        assertEquals(ProductBatchResult.FAILED, result.getItems().get(1).getStatus());
+        assertTrue(productRepo.existsById("BX0001"));
+        assertTrue(productRepo.existsById("BX0002"));
+        assertEquals("scooby the dog toy from scooby doo series",
+                productRepo.findById("001").get().getDescription());
+    }
+}
@@ -0,0 +1,111 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.model.ProductBatchResult;
+
+import jakarta.validation.Validation;
+
+/**
+ * Unit tests for bulk product create: validation, chunking and per-item results
+ *
+ * @author amitr
+ */
+@ExtendWith(MockitoExtension.class)
+public class ProductBatchServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    private ProductBatchService sut;
+
+    @BeforeEach
+    void setup() {
+        sut = new ProductBatchService(productService, Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void test_createAll_reportsInvalidItemsAndSavesTheRest() {
+        List<Product> products = Arrays.asList(
+                product("P001", "laptop", "$10.00"),
+                product("bad id!", "mouse", "$5.00"),
+                product("P003", "k", "ten dollars"),
+                product("P001", "laptop again", "$10.00"));
+
+        ProductBatchResult result = sut.createAll(products);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(3, result.getFailed());
+        assertEquals(ProductBatchResult.CREATED, result.getItems().get(0).getStatus());
+        assertNull(result.getItems().get(0).getErrors());
+        assertEquals(ProductBatchResult.INVALID, result.getItems().get(1).getStatus());
+        assertTrue(result.getItems().get(1).getErrors().containsKey("id"));
+        assertTrue(result.getItems().get(2).getErrors().containsKey("name"));
+        assertTrue(result.getItems().get(2).getErrors().containsKey("price"));
+        assertEquals("duplicate id within the request", result.getItems().get(3).getErrors().get("id"));
+        verify(productService, times(1)).saveBatch(Arrays.asList(products.get(0)));
+    }
+
+    @Test
+    void test_createAll_savesInChunks() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ProductBatchService.CHUNK_SIZE * 2 + 1; i++) {
+            products.add(product("P" + i, "item" + i, "$1.00"));
+        }
+
+        ProductBatchResult result = sut.createAll(products);
+
+        assertEquals(products.size(), result.getCreated());
+        assertEquals(products.size(), result.getItems().size());
+        verify(productService, times(3)).saveBatch(anyList());
+        verify(productService, never()).saveOne(any());
+    }
+
+    @Test
+    void test_createAll_rejectedChunkRetriedOneByOne() {
+        Product fresh = product("P001", "laptop", "$10.00");
+        Product existing = product("001", "scooby", "$3.50");
+        existing.setVersion(7L);
+        when(productService.saveBatch(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(productService.saveOne(any())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) == existing) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return invocation.getArgument(0);
+        });
+
+        ProductBatchResult result = sut.createAll(Arrays.asList(fresh, existing));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(ProductBatchResult.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(ProductBatchResult.FAILED, result.getItems().get(1).getStatus());
+        assertEquals("product already exists", result.getItems().get(1).getErrors().get("id"));
+        assertNull(existing.getVersion());
+        verify(productService, times(1)).saveOne(fresh);
+    }
+
+    private Product product(String id, String name, String price) {
+        return new ProductBuilder(id, name).desc("desc").price(price).build();
+    }
+}
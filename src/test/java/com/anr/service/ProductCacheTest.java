@@ -0,0 +1,130 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+
+/**
+ * Unit tests for the version-aware product read-through cache
+ *
+ * @author amitr
+ */
+public class ProductCacheTest {
+
+    private ProductCache sut;
+
+    @BeforeEach
+    void setup() {
+        sut = new ProductCache(100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void test_get_loadsOnceThenHits() {
+        AtomicInteger loads = new AtomicInteger();
+        Product product = versioned("P001", "first", 1L);
+
+        sut.get("P001", id -> {
+            loads.incrementAndGet();
+            return product;
+        });
+        Product cached = sut.get("P001", id -> {
+            loads.incrementAndGet();
+            return product;
+        });
+
+        assertSame(product, cached);
+        assertEquals(1, loads.get());
+        assertEquals(1, sut.getNativeCache().stats().hitCount());
+        assertEquals(1, sut.getNativeCache().stats().missCount());
+    }
+
+    @Test
+    void test_get_doesNotCacheEmptyProduct() {
+        sut.get("P404", id -> Product.EMPTY);
+
+        assertNull(sut.getNativeCache().getIfPresent("P404"));
+    }
+
+    @Test
+    void test_put_olderVersionDoesNotReplaceNewer() {
+        sut.put(versioned("P001", "newer", 3L));
+        sut.put(versioned("P001", "older", 2L));
+
+        assertEquals("newer", sut.getNativeCache().getIfPresent("P001").getName());
+    }
+
+    @Test
+    void test_put_newerVersionReplacesOlder() {
+        sut.put(versioned("P001", "older", 2L));
+        sut.put(versioned("P001", "newer", 3L));
+
+        assertEquals("newer", sut.getNativeCache().getIfPresent("P001").getName());
+    }
+
+    @Test
+    void test_get_loadRacingWithEvictionIsNotCached() {
+        Product stale = versioned("P001", "stale", 1L);
+
+        Product returned = sut.get("P001", id -> {
+            // a concurrent delete commits while this read is still loading
+            sut.evict(id);
+            return stale;
+        });
+
+        assertSame(stale, returned);
+        assertNull(sut.getNativeCache().getIfPresent("P001"));
+        assertEquals(1, sut.invalidationCount());
+    }
+
+    @Test
+    void test_getAll_loadsOnlyMissesInOneCall() {
+        Product cached = versioned("P001", "cached", 1L);
+        Product loaded = versioned("P002", "loaded", 1L);
+        sut.put(cached);
+        List<Collection<String>> calls = new ArrayList<>();
+
+        Map<String, Product> found = sut.getAll(Arrays.asList("P001", "P002", "P003"), ids -> {
+            calls.add(new ArrayList<>(ids));
+            return Arrays.asList(loaded);
+        });
+
+        assertEquals(Arrays.asList(Arrays.asList("P002", "P003")), calls);
+        assertEquals(2, found.size());
+        assertSame(cached, found.get("P001"));
+        assertSame(loaded, found.get("P002"));
+        assertSame(loaded, sut.getNativeCache().getIfPresent("P002"));
+    }
+
+    @Test
+    void test_getAll_loadRacingWithEvictionIsNotCached() {
+        Product stale = versioned("P001", "stale", 1L);
+
+        Map<String, Product> found = sut.getAll(Arrays.asList("P001"), ids -> {
+            sut.evict("P001");
+            return Arrays.asList(stale);
+        });
+
+        assertSame(stale, found.get("P001"));
+        assertNull(sut.getNativeCache().getIfPresent("P001"));
+    }
+
+    private Product versioned(String id, String name, Long version) {
+        Product product = new ProductBuilder(id, name).desc("desc").price("$1.00").build();
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,167 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.model.ProductCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for the copy-on-write catalog snapshot; rebuilds are queued on a list and run by
+ * hand so each test decides when the background work happens
+ *
+ * @author amitr
+ */
+public class ProductCatalogSnapshotTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> queued = new ArrayList<>();
+    private List<Product> rows;
+    private int loads;
+
+    @BeforeEach
+    void setup() {
+        rows = new ArrayList<>(Arrays.asList(product("P001", 1L), product("P002", 1L)));
+        loads = 0;
+        queued.clear();
+    }
+
+    @Test
+    void test_current_nullUntilFirstBuild() throws Exception {
+        ProductCatalogSnapshot sut = snapshot(10, Duration.ofHours(1));
+        assertNull(sut.current());
+
+        sut.refresh();
+        runQueued();
+
+        ProductCatalog catalog = sut.current();
+        assertNotNull(catalog);
+        assertEquals(2, catalog.getProducts().size());
+        assertArrayEquals(objectMapper.writeValueAsBytes(rows), catalog.getJson());
+        assertArrayEquals(catalog.getJson(), gunzip(catalog.getGzip()));
+        assertEquals(1, sut.rebuildCount());
+    }
+
+    @Test
+    void test_invalidate_queuesOneRebuildForManyWrites() {
+        ProductCatalogSnapshot sut = snapshot(10, Duration.ofHours(1));
+        sut.refresh();
+        runQueued();
+
+        sut.invalidate();
+        sut.invalidate();
+        sut.invalidate();
+
+        assertEquals(1, queued.size());
+        runQueued();
+        assertEquals(2, loads);
+    }
+
+    @Test
+    void test_rebuild_swapsInNewCatalog() {
+        ProductCatalogSnapshot sut = snapshot(10, Duration.ofHours(1));
+        sut.refresh();
+        runQueued();
+        ProductCatalog before = sut.current();
+
+        rows.add(product("P003", 1L));
+        sut.invalidate();
+        // the old snapshot is served until the rebuild has run
+        assertSame(before, sut.current());
+        runQueued();
+
+        assertEquals(3, sut.current().getProducts().size());
+        assertNotEquals(before.getEtag(), sut.current().getEtag());
+    }
+
+    @Test
+    void test_current_tooStale_returnsNull() {
+        ProductCatalogSnapshot sut = snapshot(10, Duration.ZERO);
+        sut.refresh();
+        runQueued();
+        assertNotNull(sut.current());
+
+        sut.invalidate();
+
+        assertNull(sut.current());
+        assertEquals(1, sut.staleReadCount());
+        runQueued();
+        assertNotNull(sut.current());
+    }
+
+    @Test
+    void test_rebuild_catalogAboveLimit_notSnapshotted() {
+        ProductCatalogSnapshot sut = snapshot(1, Duration.ofHours(1));
+
+        sut.refresh();
+        runQueued();
+
+        assertNull(sut.current());
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    void test_rebuild_failureKeepsPreviousSnapshot() {
+        ProductCatalogSnapshot sut = snapshot(10, Duration.ofHours(1));
+        sut.refresh();
+        runQueued();
+        ProductCatalog before = sut.current();
+
+        rows = null;
+        sut.invalidate();
+        runQueued();
+
+        assertSame(before, sut.current());
+    }
+
+    @Test
+    void test_disabled_neverBuilds() {
+        ProductCatalogSnapshot sut = ProductCatalogSnapshot.disabled();
+
+        sut.refresh();
+        sut.invalidate();
+
+        assertNull(sut.current());
+    }
+
+    private ProductCatalogSnapshot snapshot(int maxProducts, Duration maxStaleness) {
+        return new ProductCatalogSnapshot(limit -> {
+            loads++;
+            return rows.subList(0, Math.min(limit, rows.size()));
+        }, objectMapper, maxProducts, maxStaleness, true, queued::add);
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private Product product(String id, Long version) {
+        Product product = new ProductBuilder(id, "name " + id).desc("desc").price("$1.00").build();
+        product.setVersion(version);
+        return product;
+    }
+
+    private byte[] gunzip(byte[] gzip) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
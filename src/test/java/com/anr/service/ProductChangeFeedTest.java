@@ -0,0 +1,117 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.model.ProductChangeEvent;
+import com.anr.model.ProductChangeEvent.Operation;
+
+/**
+ * Unit tests for change-stream fan-out, resume and slow-consumer handling
+ *
+ * @author amitr
+ */
+public class ProductChangeFeedTest {
+
+    private ProductChangeFeed sut;
+
+    @BeforeEach
+    void setup() {
+        sut = new ProductChangeFeed(8, 4, Duration.ofMillis(10));
+    }
+
+    @Test
+    void test_publish_reachesEverySubscriber() throws InterruptedException {
+        ProductChangeFeed.Subscription first = sut.subscribe(null);
+        ProductChangeFeed.Subscription second = sut.subscribe(null);
+
+        sut.publish(Operation.UPDATED, "P001", 4L);
+
+        for (ProductChangeFeed.Subscription subscription : new ProductChangeFeed.Subscription[] { first, second }) {
+            ProductChangeEvent event = subscription.poll();
+            assertEquals("P001", event.getId());
+            assertEquals(4L, event.getVersion());
+            assertEquals(Operation.UPDATED, event.getOperation());
+        }
+        assertNull(first.poll());
+    }
+
+    @Test
+    void test_subscribe_resumesAfterLastEventId() throws InterruptedException {
+        ProductChangeFeed.Subscription live = sut.subscribe(null);
+        sut.publish(Operation.CREATED, "P001", 0L);
+        sut.publish(Operation.UPDATED, "P001", 1L);
+        sut.publish(Operation.DELETED, "P001", null);
+        String seen = live.poll().getEventId();
+
+        ProductChangeFeed.Subscription resumed = sut.subscribe(seen);
+
+        assertEquals(Operation.UPDATED, resumed.poll().getOperation());
+        assertEquals(Operation.DELETED, resumed.poll().getOperation());
+        assertNull(resumed.poll());
+    }
+
+    @Test
+    void test_subscribe_unknownPositionGetsReset() throws InterruptedException {
+        sut.publish(Operation.CREATED, "P001", 0L);
+
+        ProductChangeEvent event = sut.subscribe("earlier-process-7").poll();
+
+        assertEquals(Operation.RESET, event.getOperation());
+        assertNull(event.getId());
+    }
+
+    @Test
+    void test_subscribe_positionOutsideHistoryGetsReset() throws InterruptedException {
+        ProductChangeFeed.Subscription live = sut.subscribe(null);
+        sut.publish(Operation.CREATED, "P000", 0L);
+        String seen = live.poll().getEventId();
+        live.close();
+        for (int i = 1; i <= 10; i++) {
+            sut.publish(Operation.CREATED, "P" + i, 0L);
+        }
+
+        ProductChangeFeed.Subscription resumed = sut.subscribe(seen);
+
+        ProductChangeEvent reset = resumed.poll();
+        assertEquals(Operation.RESET, reset.getOperation());
+        // resuming from the reset position loses nothing further
+        sut.publish(Operation.DELETED, "P1", null);
+        assertEquals(Operation.DELETED, sut.subscribe(reset.getEventId()).poll().getOperation());
+    }
+
+    @Test
+    void test_publish_dropsSubscriberWithFullBuffer() throws InterruptedException {
+        ProductChangeFeed.Subscription slow = sut.subscribe(null);
+        ProductChangeFeed.Subscription fast = sut.subscribe(null);
+
+        for (int i = 0; i < 5; i++) {
+            sut.publish(Operation.CREATED, "P" + i, 0L);
+            fast.poll();
+        }
+
+        assertTrue(slow.isClosed());
+        assertNull(slow.poll());
+        assertFalse(fast.isClosed());
+        assertEquals(1, sut.droppedCount());
+        assertEquals(1, sut.subscriberCount());
+    }
+
+    @Test
+    void test_close_unsubscribes() {
+        ProductChangeFeed.Subscription subscription = sut.subscribe(null);
+
+        subscription.close();
+        sut.publish(Operation.CREATED, "P001", 0L);
+
+        assertEquals(0, sut.subscriberCount());
+        assertEquals(0, sut.droppedCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.model.ProductChanges;
+
+/**
+ * Delta sync against a real schema: change sequence stamping on every write path, tombstones and
+ * watermarks; runs in its own database
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:productchanges")
+public class ProductChangesTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void test_changedSince_followsCreatesUpdatesAndDeletes() {
+        String watermark = drain(null);
+
+        productService.saveOne(product("DC1", "$1.00"));
+        productService.saveOne(product("DC2", "$2.00"));
+        ProductChanges created = productService.findChangedSince(watermark, 100);
+        assertEquals(List.of("DC1", "DC2"), ids(created.getChanged()));
+        assertTrue(created.getDeleted().isEmpty());
+
+        productService.updateProduct("DC1", product("DC1", "$3.00"));
+        productService.deleteProduct("DC2");
+        ProductChanges changed = productService.findChangedSince(created.getWatermark(), 100);
+        assertEquals(List.of("DC1"), ids(changed.getChanged()));
+        assertEquals("$3.00", changed.getChanged().get(0).getPrice());
+        assertEquals(List.of("DC2"), changed.getDeleted());
+
+        ProductChanges quiet = productService.findChangedSince(changed.getWatermark(), 100);
+        assertTrue(quiet.getChanged().isEmpty());
+        assertTrue(quiet.getDeleted().isEmpty());
+        assertEquals(changed.getWatermark(), quiet.getWatermark());
+    }
+
+    @Test
+    void test_changedSince_pagesInChangeOrder() {
+        String watermark = drain(null);
+        for (int i = 0; i < 5; i++) {
+            productService.saveOne(product("DP" + i, "$1.00"));
+        }
+
+        ProductChanges first = productService.findChangedSince(watermark, 3);
+        ProductChanges second = productService.findChangedSince(first.getWatermark(), 3);
+
+        assertTrue(first.isHasMore());
+        assertEquals(List.of("DP0", "DP1", "DP2"), ids(first.getChanged()));
+        assertFalse(second.isHasMore());
+        assertEquals(List.of("DP3", "DP4"), ids(second.getChanged()));
+    }
+
+    @Test
+    void test_changedSince_recreatedProductIsReportedOnce() {
+        productService.saveOne(product("DR1", "$1.00"));
+        String watermark = drain(null);
+
+        productService.deleteProduct("DR1");
+        productService.saveOne(product("DR1", "$2.00"));
+        ProductChanges changes = productService.findChangedSince(watermark, 100);
+
+        assertEquals(List.of("DR1"), ids(changes.getChanged()));
+        assertTrue(changes.getDeleted().isEmpty());
+    }
+
+    @Test
+    void test_changedSince_rejectsForeignWatermark() {
+        assertThrows(IllegalArgumentException.class, () -> productService.findChangedSince("not-a-watermark", 10));
+    }
+
+    @Test
+    void test_changeSeq_isIndexed() {
+        String plan = jdbc.queryForObject("EXPLAIN SELECT * FROM products WHERE change_seq > 10 ORDER BY change_seq",
+                String.class);
+
+        assertTrue(plan.toUpperCase().contains("IDX_PRODUCTS_CHANGE_SEQ"), plan);
+    }
+
+    // the watermark after everything written so far, sample data included
+    private String drain(String watermark) {
+        ProductChanges page;
+        do {
+            page = productService.findChangedSince(watermark, 500);
+            watermark = page.getWatermark();
+        } while (page.isHasMore());
+        return watermark;
+    }
+
+    private static Product product(String id, String price) {
+        return new ProductBuilder(id, "name " + id).desc("desc " + id).price(price).build();
+    }
+
+    private static List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,66 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.anr.localmdb.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the NDJSON catalog export against the H2 sample data loaded by DataInitializer
+ *
+ * @author amitr
+ */
+@SpringBootTest
+public class ProductExportTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void test_exportAll_writesOneDocumentPerProduct() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = productService.exportAll(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(productRepo.count(), written);
+        assertEquals(written, lines.length);
+        for (String line : lines) {
+            JsonNode doc = objectMapper.readTree(line);
+            assertTrue(doc.hasNonNull("_id"), "every line carries the products.txt _id key");
+            assertTrue(doc.hasNonNull("name"));
+            assertFalse(doc.has("version"));
+        }
+    }
+
+    @Test
+    void test_exportAll_ordersById() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productService.exportAll(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        String previous = "";
+        for (String line : lines) {
+            String id = objectMapper.readTree(line).get("_id").asText();
+            assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.model.ProductJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for the serialized-form product cache
+ *
+ * @author amitr
+ */
+public class ProductJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductJsonCache sut;
+
+    @BeforeEach
+    void setup() {
+        sut = new ProductJsonCache(objectMapper, 1024 * 1024, Duration.ofMinutes(10), true);
+    }
+
+    @Test
+    void test_get_encodesOnceThenHits() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        Product product = versioned("P001", 3L);
+
+        ProductJson first = sut.get("P001", id -> {
+            loads.incrementAndGet();
+            return product;
+        });
+        ProductJson second = sut.get("P001", id -> {
+            loads.incrementAndGet();
+            return product;
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(3L, first.getVersion());
+        assertArrayEquals(objectMapper.writeValueAsBytes(product), first.getJson());
+        assertArrayEquals(first.getJson(), gunzip(first.getGzip()));
+        assertEquals(1, sut.getNativeCache().stats().hitCount());
+    }
+
+    @Test
+    void test_get_missingProductIsNotCached() {
+        assertNull(sut.get("P404", id -> Product.EMPTY));
+        assertEquals(0, sut.getNativeCache().size());
+    }
+
+    @Test
+    void test_bytesHeld_followsPutsAndEvictions() {
+        ProductJson encoded = sut.get("P001", id -> versioned(id, 1L));
+        sut.get("P002", id -> versioned(id, 1L));
+
+        assertEquals(2L * encoded.size(), sut.bytesHeld());
+
+        sut.evict("P001");
+        assertEquals(encoded.size(), sut.bytesHeld());
+
+        sut.clear();
+        assertEquals(0, sut.bytesHeld());
+    }
+
+    @Test
+    void test_get_loadRacingWithEvictionIsNotCached() {
+        ProductJson returned = sut.get("P001", id -> {
+            // a concurrent update commits while this read is still loading
+            sut.evict(id);
+            return versioned(id, 1L);
+        });
+
+        assertEquals("P001", returned.getId());
+        assertNull(sut.getNativeCache().getIfPresent("P001"));
+        assertEquals(0, sut.bytesHeld());
+    }
+
+    @Test
+    void test_gzipDisabled_keepsJsonOnly() {
+        sut = new ProductJsonCache(objectMapper, 1024 * 1024, Duration.ofMinutes(10), false);
+
+        ProductJson encoded = sut.get("P001", id -> versioned(id, 1L));
+
+        assertNull(encoded.getGzip());
+        assertEquals(encoded.getJson().length, encoded.size());
+    }
+
+    private Product versioned(String id, Long version) {
+        Product product = new ProductBuilder(id, "name " + id).desc("desc").price("$1.00").build();
+        product.setVersion(version);
+        return product;
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
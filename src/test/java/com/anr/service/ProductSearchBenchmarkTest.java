@@ -0,0 +1,108 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.repository.ProductRepository;
+
+/**
+ * Compares description search through the trigram index with the LIKE query it replaces
+ *
+ * Excluded from the regular test run; run with ./gradlew benchmarkTest. Uses its own in-memory
+ * database so the sample data of the other tests is untouched
+ *
+ * @author amitr
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:searchbenchmark",
+        "spring.jpa.show-sql=false", "logging.level.com.anr=INFO" })
+@DirtiesContext
+public class ProductSearchBenchmarkTest {
+
+    private static final String[] WORDS = { "plastic", "wooden", "toy", "figure", "series", "deluxe", "mini",
+            "racer", "puzzle", "robot", "dragon", "castle", "pirate", "rocket", "garden", "kitchen", "train",
+            "doll", "blocks", "marble", "scooby", "cars1", "collector", "edition", "battery", "remote" };
+    private static final List<String> QUERIES = Arrays.asList("dragon castle", "collector", "ket gar", "zebra");
+    private static final int RUNS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private ProductService productService;
+
+    @ParameterizedTest
+    @ValueSource(ints = { 100_000, 1_000_000 })
+    void compareIndexWithLike(int catalogSize) {
+        load(catalogSize);
+        long buildStart = System.nanoTime();
+        productService.rebuildSearchIndex();
+        System.out.printf("%n%,d products: index built in %d ms%n", catalogSize, millisSince(buildStart));
+
+        for (String query : QUERIES) {
+            List<Product> viaLike = productRepo.findProductsWithDescriptionContaining(query);
+            List<Product> viaIndex = productService.findByDescContaining(query);
+            assertEquals(viaLike.size(), viaIndex.size(), "index and LIKE disagree on '" + query + "'");
+
+            long like = median(() -> productRepo.findProductsWithDescriptionContaining(query));
+            long index = median(() -> productService.findByDescContaining(query));
+            System.out.printf("  %-15s %7d hits   LIKE %6d ms   index %6d ms%n", "'" + query + "'",
+                    viaIndex.size(), like, index);
+        }
+    }
+
+    private void load(int catalogSize) {
+        jdbc.update("DELETE FROM products");
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 6; w++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            batch.add(new Object[] { String.format("B%07d", i), "item" + i, description.toString().trim(), "$1.00" });
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO products (id, name, description, price, version) VALUES (?, ?, ?, ?, 0)",
+                batch);
+        batch.clear();
+    }
+
+    private long median(Supplier<List<Product>> search) {
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            search.get();
+            times[i] = millisSince(start);
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
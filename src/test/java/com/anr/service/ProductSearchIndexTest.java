@@ -0,0 +1,80 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+
+/**
+ * Unit tests for the trigram description index
+ *
+ * @author amitr
+ */
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex sut;
+
+    @BeforeEach
+    void setup() {
+        sut = new ProductSearchIndex();
+        sut.rebuild(Arrays.asList(
+                product("001", "scooby the dog toy from scooby doo series"),
+                product("006", "mcqueen toy from cars1 series"),
+                product("009", "Mater TOY from cars1 series"),
+                product("011", null)));
+    }
+
+    @Test
+    void test_search_notAnsweredBeforeRebuild() {
+        assertFalse(new ProductSearchIndex().search("toy").isPresent());
+    }
+
+    @Test
+    void test_search_shortTextNotAnswered() {
+        assertFalse(sut.search("to").isPresent());
+    }
+
+    @Test
+    void test_search_caseInsensitiveInIdOrder() {
+        assertEquals(Arrays.asList("001", "006", "009"), sut.search("Toy").get());
+        assertEquals(Arrays.asList("006", "009"), sut.search("CARS1").get());
+    }
+
+    @Test
+    void test_search_gramsPresentButNotContiguousIsNoMatch() {
+        // "doo" and "toy" are both in 001's description but "doo toy" is not
+        assertEquals(Collections.emptyList(), sut.search("doo toy").get());
+        assertEquals(Arrays.asList("001"), sut.search("scooby doo").get());
+    }
+
+    @Test
+    void test_put_replacesPreviousDescription() {
+        sut.put(product("006", "die-cast racer"));
+
+        assertEquals(Arrays.asList("009"), sut.search("cars1").get());
+        assertEquals(Arrays.asList("006"), sut.search("racer").get());
+        assertEquals(3, sut.size());
+    }
+
+    @Test
+    void test_remove_dropsProduct() {
+        sut.remove("001");
+
+        List<String> ids = sut.search("series").get();
+        assertEquals(Arrays.asList("006", "009"), ids);
+        assertTrue(sut.search("scooby").get().isEmpty());
+    }
+
+    private Product product(String id, String description) {
+        return new ProductBuilder(id, "name").desc(description).price("$1.00").build();
+    }
+}
@@ -3,30 +3,54 @@ package com.anr.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.anr.common.ChangeSequence;
+import com.anr.common.CursorCodec;
+import com.anr.common.SingleFlight;
+import com.anr.common.TombstoneRetention;
 import com.anr.localmdb.model.Product;
 import com.anr.localmdb.model.Product.ProductBuilder;
 import com.anr.localmdb.repository.ProductRepository;
+import com.anr.localmdb.repository.ProductTombstoneRepository;
+import com.anr.model.ProductChangeEvent.Operation;
+import com.anr.model.ProductJson;
+import com.anr.model.ProductLookup;
+import com.anr.model.ProductPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * https://gitmoji.carloscuesta.me/
@@ -51,6 +75,25 @@ public class ProductServiceTest {
     // @MockBean
     @Mock
     private ProductRepository mockRepo;
+    @Spy
+    private ProductCache productCache = new ProductCache(100, Duration.ofMinutes(10));
+    @Spy
+    private ProductJsonCache jsonCache = new ProductJsonCache(new ObjectMapper(), 1024 * 1024, Duration.ofMinutes(10),
+            false);
+    @Spy
+    private ProductSearchIndex searchIndex = new ProductSearchIndex();
+    @Spy
+    private SingleFlight loads = new SingleFlight();
+    @Mock
+    private ProductTombstoneRepository tombstoneRepo;
+    @Spy
+    private ChangeSequence changeSequence = new ChangeSequence(0);
+    @Spy
+    private TombstoneRetention tombstoneRetention = new TombstoneRetention(1000, 0);
+    @Spy
+    private ProductChangeFeed changeFeed = new ProductChangeFeed(64, 16, Duration.ofSeconds(15));
+    @Spy
+    private ProductCatalogSnapshot catalogSnapshot = ProductCatalogSnapshot.disabled();
 
     @Test
     void insert_one_product() {
@@ -139,6 +182,48 @@ public class ProductServiceTest {
         verify(mockRepo, times(1)).findById(productId);
     }
 
+    @Test
+    void test_findByIds_inRequestOrderWithMissing() {
+        Product p1 = getMock("Product1", "Description 1", "$10.00");
+        p1.setId("P001");
+        Product p3 = getMock("Product3", "Description 3", "$30.00");
+        p3.setId("P003");
+        when(mockRepo.findAllById(Arrays.asList("P003", "P002", "P001"))).thenReturn(Arrays.asList(p1, p3));
+
+        ProductLookup lookup = sut.findByIds(Arrays.asList("P003", "P002", "P001", "P003"));
+
+        assertEquals(Arrays.asList(p3, p1), lookup.getProducts());
+        assertEquals(Arrays.asList("P002"), lookup.getMissing());
+    }
+
+    @Test
+    void test_findByIds_loadsOnlyUncachedIds() {
+        Product p1 = getMock("Product1", "Description 1", "$10.00");
+        p1.setId("P001");
+        Product p2 = getMock("Product2", "Description 2", "$20.00");
+        p2.setId("P002");
+        productCache.put(p1);
+        when(mockRepo.findAllById(Arrays.asList("P002"))).thenReturn(Arrays.asList(p2));
+
+        ProductLookup lookup = sut.findByIds(Arrays.asList("P001", "P002"));
+
+        assertEquals(Arrays.asList(p1, p2), lookup.getProducts());
+        assertTrue(lookup.getMissing().isEmpty());
+        verify(mockRepo, times(1)).findAllById(any());
+    }
+
+    @Test
+    void test_findByIds_allCached_noQuery() {
+        Product p1 = getMock("Product1", "Description 1", "$10.00");
+        p1.setId("P001");
+        productCache.put(p1);
+
+        ProductLookup lookup = sut.findByIds(Arrays.asList("P001"));
+
+        assertEquals(Arrays.asList(p1), lookup.getProducts());
+        verify(mockRepo, never()).findAllById(any());
+    }
+
     @Test
     void test_findByExactName_success() {
         // Arrange
@@ -177,6 +262,94 @@ public class ProductServiceTest {
         verify(mockRepo, times(1)).findProductsWithDescriptionContaining(searchText);
     }
 
+    @Test
+    void test_findByDescContaining_usesIndexOnceBuilt() {
+        Product product1 = new ProductBuilder("P002", "wooden").desc("Wooden Toy train").price("$15.00").build();
+        Product product2 = new ProductBuilder("P001", "plastic").desc("plastic toy").price("$10.00").build();
+        Product other = new ProductBuilder("P003", "book").desc("picture book").price("$5.00").build();
+        searchIndex.rebuild(Arrays.asList(product1, product2, other));
+        when(mockRepo.findAllById(Arrays.asList("P001", "P002"))).thenReturn(Arrays.asList(product1, product2));
+
+        List<Product> foundProducts = sut.findByDescContaining("TOY");
+
+        assertEquals(Arrays.asList("P001", "P002"), foundProducts.stream().map(Product::getId).toList());
+        verify(mockRepo, never()).findProductsWithDescriptionContaining(anyString());
+    }
+
+    @Test
+    void test_findByDescContaining_indexMissSkipsDatabase() {
+        searchIndex.rebuild(Collections.singletonList(getMock("plastic", "plastic toy", "$10.00")));
+
+        List<Product> foundProducts = sut.findByDescContaining("robot");
+
+        assertTrue(foundProducts.isEmpty());
+        verify(mockRepo, never()).findProductsWithDescriptionContaining(anyString());
+        verify(mockRepo, never()).findAllById(any());
+    }
+
+    @Test
+    void test_findByDescContaining_shortTextFallsBackToQuery() {
+        searchIndex.rebuild(Collections.singletonList(getMock("plastic", "plastic toy", "$10.00")));
+        when(mockRepo.findProductsWithDescriptionContaining("to")).thenReturn(Collections.emptyList());
+
+        sut.findByDescContaining("to");
+
+        verify(mockRepo, times(1)).findProductsWithDescriptionContaining("to");
+    }
+
+    @Test
+    void test_findByDescContaining_fallbackEscapesWildcards() {
+        when(mockRepo.findProductsWithDescriptionContaining(anyString())).thenReturn(Collections.emptyList());
+
+        sut.findByDescContaining("5%_a\\b");
+
+        verify(mockRepo, times(1)).findProductsWithDescriptionContaining("5\\%\\_a\\\\b");
+    }
+
+    @Test
+    void test_writes_keepSearchIndexCurrent() {
+        searchIndex.rebuild(Collections.emptyList());
+        Product product = new ProductBuilder("P001", "plastic").desc("plastic toy").price("$10.00").build();
+        when(mockRepo.save(product)).thenReturn(product);
+        when(mockRepo.deleteWhereId("P001")).thenReturn(1);
+
+        sut.saveOne(product);
+        assertEquals(Arrays.asList("P001"), searchIndex.search("stic").get());
+
+        sut.deleteProduct("P001");
+        assertTrue(searchIndex.search("stic").get().isEmpty());
+    }
+
+    @Test
+    void test_updateProduct_expectedVersionMismatch() {
+        Product update = getMock("new", "new", "$2.00");
+        when(mockRepo.updateIfVersion(eq("P001"), eq(4L), eq("new"), eq("new"), eq("$2.00"), eq(200L), anyLong()))
+                .thenReturn(0);
+        when(mockRepo.existsById("P001")).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> sut.updateProduct("P001", update, 4L));
+        verify(productCache, never()).put(any(Product.class));
+    }
+
+    @Test
+    void test_updateProduct_expectedVersionOnMissingProduct() {
+        when(mockRepo.existsById("P999")).thenReturn(false);
+
+        assertEquals(Product.EMPTY, sut.updateProduct("P999", getMock("new", "new", "$2.00"), 4L));
+    }
+
+    @Test
+    void test_deleteProduct_expectedVersion() {
+        when(mockRepo.deleteIfVersion("P001", 4L)).thenReturn(0);
+        when(mockRepo.existsById("P001")).thenReturn(true);
+        when(mockRepo.deleteIfVersion("P001", 5L)).thenReturn(1);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> sut.deleteProduct("P001", 4L));
+        assertTrue(sut.deleteProduct("P001", 5L));
+        verify(mockRepo, times(1)).existsById("P001");
+        verify(mockRepo, never()).findById(anyString());
+    }
+
     @Test
     void test_findAll_success() {
         // Arrange
@@ -214,26 +387,21 @@ public class ProductServiceTest {
     void test_updateProduct_success() {
         // Arrange
         String productId = "P001";
-        Product existingProduct = getMock("Old Name", "Old Description", "$10.00");
-        existingProduct.setId(productId);
-        existingProduct.setVersion(1L);
-        
         Product updatedProduct = getMock("New Name", "New Description", "$20.00");
-        updatedProduct.setId(productId);
-        updatedProduct.setVersion(1L);
         
-        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
-        when(mockRepo.save(any(Product.class))).thenReturn(updatedProduct);
+        when(mockRepo.updateById(eq(productId), eq("New Name"),
+                eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(1);
         
         // Act
         Product result = sut.updateProduct(productId, updatedProduct);
         
-        // Assert
+        // Assert - one UPDATE statement, no read or merge first
         assertNotNull(result);
         assertEquals(productId, result.getId());
         assertEquals("New Name", result.getName());
-        verify(mockRepo, times(1)).findById(productId);
-        verify(mockRepo, times(1)).save(any(Product.class));
+        verify(mockRepo, never()).findById(anyString());
+        verify(mockRepo, never()).save(any(Product.class));
     }
 
     @Test
@@ -242,72 +410,77 @@ public class ProductServiceTest {
         String productId = "P999";
         Product updateData = getMock("New Name", "New Description", "$20.00");
         
-        when(mockRepo.findById(productId)).thenReturn(Optional.empty());
+        when(mockRepo.updateById(eq(productId), eq("New Name"),
+                eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(0);
         
         // Act
         Product result = sut.updateProduct(productId, updateData);
         
         // Assert
         assertEquals(Product.EMPTY, result);
-        verify(mockRepo, times(1)).findById(productId);
-        verify(mockRepo, never()).save(any(Product.class));
+        verify(mockRepo, never()).existsById(anyString());
     }
 
     @Test
-    void test_updateProduct_preservesVersion() {
+    void test_updateProduct_versionedIncrementsVersion() {
         // Arrange
         String productId = "P001";
-        Product existingProduct = getMock("Old Name", "Old Description", "$10.00");
-        existingProduct.setId(productId);
-        existingProduct.setVersion(5L); // Existing version
-        
         Product updatedProduct = getMock("New Name", "New Description", "$20.00");
         updatedProduct.setVersion(null); // No version in update data
         
-        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
-        when(mockRepo.save(any(Product.class))).thenAnswer(invocation -> {
-            Product saved = invocation.getArgument(0);
-            assertEquals(5L, saved.getVersion(), "Version should be preserved from existing product");
-            return saved;
-        });
+        when(mockRepo.updateIfVersion(eq(productId), eq(5L), eq("New Name"),
+                eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(1);
         
         // Act
-        Product result = sut.updateProduct(productId, updatedProduct);
+        Product result = sut.updateProduct(productId, updatedProduct, 5L);
         
         // Assert
-        assertNotNull(result);
-        verify(mockRepo, times(1)).findById(productId);
-        verify(mockRepo, times(1)).save(any(Product.class));
+        assertEquals(6L, result.getVersion(), "Version should be the one written by the UPDATE");
+        verify(mockRepo, never()).existsById(anyString());
+    }
+
+    @Test
+    void test_updateProduct_unconditionalReadsVersionBack() {
+        Product updatedProduct = getMock("New Name", "New Description", "$20.00");
+        updatedProduct.setVersion(3L);
+        when(mockRepo.updateById(any(), any(), any(), any(), any(), anyLong())).thenReturn(1);
+        when(mockRepo.findVersionById("P001")).thenReturn(8L);
+
+        Product result = sut.updateProduct("P001", updatedProduct);
+
+        assertEquals(8L, result.getVersion());
+        verify(changeFeed, times(1)).publish(Operation.UPDATED, "P001", 8L);
     }
 
     @Test
     void test_deleteProduct_success() {
         // Arrange
         String productId = "P001";
-        when(mockRepo.existsById(productId)).thenReturn(true);
+        when(mockRepo.deleteWhereId(productId)).thenReturn(1);
         
         // Act
         boolean result = sut.deleteProduct(productId);
         
-        // Assert
+        // Assert - one DELETE statement, no existence check or load first
         assertTrue(result);
-        verify(mockRepo, times(1)).existsById(productId);
-        verify(mockRepo, times(1)).deleteById(productId);
+        verify(mockRepo, never()).existsById(anyString());
+        verify(mockRepo, never()).deleteById(anyString());
     }
 
     @Test
     void test_deleteProduct_notFound() {
         // Arrange
         String productId = "P999";
-        when(mockRepo.existsById(productId)).thenReturn(false);
+        when(mockRepo.deleteWhereId(productId)).thenReturn(0);
         
         // Act
         boolean result = sut.deleteProduct(productId);
         
         // Assert
         assertFalse(result);
-        verify(mockRepo, times(1)).existsById(productId);
-        verify(mockRepo, never()).deleteById(anyString());
+        verify(productCache, never()).evict(anyString());
     }
 
     @Test
@@ -327,31 +500,289 @@ public class ProductServiceTest {
         verify(mockRepo, times(1)).save(productWithVersion);
     }
 
+    @Test
+    void test_writes_invalidateCatalogSnapshot() {
+        Product product = getMock("Product1", "Description 1", "$10.00");
+        when(mockRepo.save(product)).thenReturn(product);
+        when(mockRepo.deleteWhereId(product.getId())).thenReturn(1);
+
+        sut.saveOne(product);
+        sut.deleteProduct(product.getId());
+
+        verify(catalogSnapshot, times(2)).invalidate();
+        assertNull(sut.findCatalog());
+    }
+
     @Test
     void test_updateProduct_ensuresIdMatches() {
         // Arrange
         String pathId = "P001";
         String bodyId = "P002"; // Different ID in body
         
-        Product existingProduct = getMock("Old Name", "Old Description", "$10.00");
-        existingProduct.setId(pathId);
-        
         Product updateData = getMock("New Name", "New Description", "$20.00");
         updateData.setId(bodyId); // Wrong ID
         
-        when(mockRepo.findById(pathId)).thenReturn(Optional.of(existingProduct));
-        when(mockRepo.save(any(Product.class))).thenAnswer(invocation -> {
-            Product saved = invocation.getArgument(0);
-            assertEquals(pathId, saved.getId(), "ID should be set to path parameter ID");
-            return saved;
-        });
+        when(mockRepo.updateById(eq(pathId), eq("New Name"), eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(1);
         
         // Act
         Product result = sut.updateProduct(pathId, updateData);
         
         // Assert
-        assertNotNull(result);
-        verify(mockRepo, times(1)).findById(pathId);
-        verify(mockRepo, times(1)).save(any(Product.class));
+        assertEquals(pathId, result.getId(), "ID should be set to path parameter ID");
+        verify(mockRepo, never()).updateById(eq(bodyId), any(), any(), any(), any(), anyLong());
+    }
+
+    // ========================================================================
+    // READ-THROUGH CACHE TESTS
+    // ========================================================================
+
+    @Test
+    void test_findById_servedFromCacheOnSecondCall() {
+        String productId = "P001";
+        Product expectedProduct = getMock("Cached Product", "Cached Description", "$15.00");
+        expectedProduct.setId(productId);
+        when(mockRepo.findById(productId)).thenReturn(Optional.of(expectedProduct));
+
+        Product first = sut.findById(productId);
+        Product second = sut.findById(productId);
+
+        assertEquals(first, second);
+        verify(mockRepo, times(1)).findById(productId);
+    }
+
+    @Test
+    void test_findById_notFoundIsNotCached() {
+        String productId = "P999";
+        when(mockRepo.findById(productId)).thenReturn(Optional.empty());
+
+        sut.findById(productId);
+        sut.findById(productId);
+
+        verify(mockRepo, times(2)).findById(productId);
+    }
+
+    @Test
+    void test_updateProduct_refreshesCachedEntry() {
+        String productId = "P001";
+        Product existingProduct = getMock("Old Name", "Old Description", "$10.00");
+        existingProduct.setId(productId);
+        existingProduct.setVersion(1L);
+
+        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
+        when(mockRepo.updateIfVersion(eq(productId), eq(1L), eq("New Name"),
+                eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(1);
+
+        sut.findById(productId);
+        sut.updateProduct(productId, getMock("New Name", "New Description", "$20.00"), 1L);
+        Product afterUpdate = sut.findById(productId);
+
+        assertEquals("New Name", afterUpdate.getName());
+        assertEquals(2L, afterUpdate.getVersion());
+        verify(mockRepo, times(1)).findById(productId);
+    }
+
+    @Test
+    void test_updateProduct_unconditionalRefreshesCachedEntry() {
+        String productId = "P001";
+        Product existingProduct = getMock("Old Name", "Old Description", "$10.00");
+        existingProduct.setId(productId);
+        existingProduct.setVersion(1L);
+
+        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
+        when(mockRepo.updateById(eq(productId), eq("New Name"),
+                eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(1);
+        when(mockRepo.findVersionById(productId)).thenReturn(2L);
+
+        sut.findById(productId);
+        sut.updateProduct(productId, getMock("New Name", "New Description", "$20.00"));
+        Product afterUpdate = sut.findById(productId);
+
+        assertEquals("New Name", afterUpdate.getName());
+        assertEquals(2L, afterUpdate.getVersion());
+        verify(mockRepo, times(1)).findById(productId);
+    }
+
+    @Test
+    void test_findJsonById_encodesOnceThenServesBytes() {
+        String productId = "P001";
+        Product existingProduct = getMock("Name", "Description", "$10.00");
+        existingProduct.setId(productId);
+        existingProduct.setVersion(2L);
+
+        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
+
+        ProductJson first = sut.findJsonById(productId);
+        ProductJson second = sut.findJsonById(productId);
+
+        assertSame(first, second);
+        assertEquals(2L, first.getVersion());
+        assertTrue(new String(first.getJson(), StandardCharsets.UTF_8).contains("\"name\":\"Name\""));
+        verify(mockRepo, times(1)).findById(productId);
+    }
+
+    @Test
+    void test_findJsonById_missingProductIsNull() {
+        when(mockRepo.findById("nope")).thenReturn(Optional.empty());
+
+        assertNull(sut.findJsonById("nope"));
+    }
+
+    @Test
+    void test_updateProduct_evictsEncodedJson() {
+        String productId = "P001";
+        Product existingProduct = getMock("Old Name", "Old Description", "$10.00");
+        existingProduct.setId(productId);
+        existingProduct.setVersion(1L);
+
+        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
+        when(mockRepo.updateIfVersion(eq(productId), eq(1L), eq("New Name"),
+                eq("New Description"), eq("$20.00"), eq(2000L), anyLong()))
+                .thenReturn(1);
+
+        sut.findJsonById(productId);
+        sut.updateProduct(productId, getMock("New Name", "New Description", "$20.00"), 1L);
+
+        verify(jsonCache, times(1)).evict(productId);
+        verify(changeFeed, times(1)).publish(Operation.UPDATED, productId, 2L);
+        assertEquals(2L, sut.findJsonById(productId).getVersion());
+    }
+
+    @Test
+    void test_deleteProduct_evictsCachedEntry() {
+        String productId = "P001";
+        Product existingProduct = getMock("Doomed", "Doomed Description", "$10.00");
+        existingProduct.setId(productId);
+
+        when(mockRepo.findById(productId)).thenReturn(Optional.of(existingProduct));
+        when(mockRepo.deleteWhereId(productId)).thenReturn(1);
+
+        sut.findById(productId);
+        sut.deleteProduct(productId);
+
+        verify(productCache, times(1)).evict(productId);
+        verify(jsonCache, times(1)).evict(productId);
+        verify(changeFeed, times(1)).publish(Operation.DELETED, productId, null);
+        sut.findById(productId);
+        verify(mockRepo, times(2)).findById(productId);
+    }
+
+    // ========================================================================
+    // PRICE ORDER TESTS
+    // ========================================================================
+
+    @Test
+    void test_findPageByPrice_cursorCarriesPriceAndId() {
+        Product cheap = new ProductBuilder("P009", "cheap").price("$1.00").build();
+        Product mid = new ProductBuilder("P003", "mid").price("$2.00").build();
+        Product dear = new ProductBuilder("P001", "dear").price("$3.00").build();
+        when(mockRepo.findPriceRangeAscending(eq(100L), eq(Long.MAX_VALUE), eq(Long.MIN_VALUE), eq(""), any(Limit.class)))
+                .thenReturn(Arrays.asList(cheap, mid, dear));
+
+        ProductPage<Product> page = sut.findPageByPrice(100L, null, false, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("200:P003", CursorCodec.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void test_findPageByPrice_descendingFromCursor() {
+        when(mockRepo.findPriceRangeDescending(eq(Long.MIN_VALUE), eq(Long.MAX_VALUE), eq(200L), eq("P003"),
+                any(Limit.class))).thenReturn(Collections.emptyList());
+
+        ProductPage<Product> page = sut.findPageByPrice(null, null, true, CursorCodec.encode("200:P003"), 2);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void test_findPageByPrice_rejectsIdOnlyCursor() {
+        String idCursor = CursorCodec.encode("P003");
+
+        assertThrows(IllegalArgumentException.class, () -> sut.findPageByPrice(null, null, false, idCursor, 2));
+    }
+
+    // ========================================================================
+    // KEYSET PAGINATION TESTS
+    // ========================================================================
+
+    @Test
+    void test_findPage_firstPageHasNextCursor() {
+        Product product1 = getMock("Product1", "Description 1", "$10.00");
+        product1.setId("P001");
+        Product product2 = getMock("Product2", "Description 2", "$20.00");
+        product2.setId("P002");
+        Product product3 = getMock("Product3", "Description 3", "$30.00");
+        product3.setId("P003");
+
+        when(mockRepo.findByIdGreaterThanOrderByIdAsc(eq(""), eq(Limit.of(3))))
+                .thenReturn(Arrays.asList(product1, product2, product3));
+
+        ProductPage<Product> page = sut.findPage(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("P002", CursorCodec.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void test_findPage_resumesAfterCursorAndEndsWithoutNextCursor() {
+        Product product3 = getMock("Product3", "Description 3", "$30.00");
+        product3.setId("P003");
+
+        when(mockRepo.findByIdGreaterThanOrderByIdAsc(eq("P002"), eq(Limit.of(3))))
+                .thenReturn(Arrays.asList(product3));
+
+        ProductPage<Product> page = sut.findPage(CursorCodec.encode("P002"), 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void test_findPage_rejectsForeignCursor() {
+        assertThrows(IllegalArgumentException.class, () -> sut.findPage("not-a-cursor", 2));
+        verify(mockRepo, never()).findByIdGreaterThanOrderByIdAsc(anyString(), any(Limit.class));
+    }
+
+    @Test
+    void test_findPageFields_keepsIdFirstAndDropsRepeats() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", "P001");
+        row.put("name", "Product1");
+        when(mockRepo.findFieldsOrderedById(eq(Arrays.asList("id", "name")), isNull(), eq(Limit.of(2))))
+                .thenReturn(Arrays.asList(row, Map.of("id", "P002", "name", "Product2")));
+
+        ProductPage<Map<String, Object>> page = sut.findPageFields(" name, id,name ", null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("P001", CursorCodec.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void test_findAllFields_rejectsUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> sut.findAllFields("name,secret"));
+        verify(mockRepo, never()).findFieldsOrderedById(any(), any(), any());
+    }
+
+    @Test
+    void test_findFieldsById_projectsCachedProduct() {
+        Product product = getMock("Product1", "Description 1", "$10.00");
+        product.setId("P001");
+        when(mockRepo.findById("P001")).thenReturn(Optional.of(product));
+
+        Map<String, Object> row = sut.findFieldsById("P001", "price");
+
+        assertEquals(Arrays.asList("id", "price"), new ArrayList<>(row.keySet()));
+        assertEquals("$10.00", row.get("price"));
+    }
+
+    @Test
+    void test_findFieldsById_missingProductIsEmpty() {
+        when(mockRepo.findById("nope")).thenReturn(Optional.empty());
+
+        assertTrue(sut.findFieldsById("nope", "name").isEmpty());
     }
 }
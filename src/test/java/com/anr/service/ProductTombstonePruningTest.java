@@ -0,0 +1,108 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.anr.common.TombstoneRetention;
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.localmdb.model.ProductTombstone;
+import com.anr.localmdb.repository.ProductTombstoneRepository;
+import com.anr.model.ProductChanges;
+
+/**
+ * Tombstones falling out of a small retention window are pruned on delete, and a watermark from
+ * before them gets a full resync instead of a delta missing those deletes; runs in its own database
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:tombstonepruning",
+        "sbsvc.changeFeed.tombstoneRetention=4" })
+public class ProductTombstonePruningTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductTombstoneRepository tombstoneRepo;
+
+    @Autowired
+    private TombstoneRetention tombstoneRetention;
+
+    @Test
+    void test_delete_prunesOldTombstones_staleWatermarkResyncs() {
+        productService.saveOne(product("TP0"));
+        productService.saveOne(product("TP1"));
+        String before = watermarkNow();
+        productService.deleteProduct("TP0");
+        long tp0 = tombstoneOf("TP0");
+
+        // push the TP0 tombstone a full batch out of the window, then delete again
+        for (int i = 0; i < 10; i++) {
+            productService.saveOne(product("TQ" + i));
+        }
+        productService.deleteProduct("TP1");
+
+        assertTrue(tombstoneRetention.prunedUpTo() >= tp0);
+        assertEquals(-1L, tombstoneOf("TP0"));
+        assertTrue(tombstoneOf("TP1") > tp0);
+
+        List<ProductChanges> resync = drain(before, 3);
+        assertTrue(resync.get(0).isResync());
+        assertTrue(resync.size() > 1);
+        resync.subList(1, resync.size()).forEach(page -> assertFalse(page.isResync()));
+        List<String> ids = resync.stream().flatMap(page -> page.getChanged().stream()).map(Product::getId)
+                .collect(Collectors.toList());
+        assertTrue(ids.containsAll(List.of("TQ0", "TQ9")));
+        assertFalse(ids.contains("TP0"));
+        assertFalse(ids.contains("TP1"));
+    }
+
+    @Test
+    void test_recentWatermark_stillGetsDeletes() {
+        productService.saveOne(product("TR0"));
+        String watermark = watermarkNow();
+
+        productService.deleteProduct("TR0");
+        ProductChanges changes = productService.findChangedSince(watermark, 100);
+
+        assertFalse(changes.isResync());
+        assertEquals(List.of("TR0"), changes.getDeleted());
+    }
+
+    private long tombstoneOf(String productId) {
+        return tombstoneRepo.findAll().stream().filter(t -> t.getProductId().equals(productId))
+                .mapToLong(ProductTombstone::getChangeSeq).max().orElse(-1L);
+    }
+
+    // the watermark after everything written so far, sample data included
+    private String watermarkNow() {
+        List<ProductChanges> pages = drain(null, 500);
+        return pages.get(pages.size() - 1).getWatermark();
+    }
+
+    // every page up to the current end, first page first
+    private List<ProductChanges> drain(String watermark, int limit) {
+        List<ProductChanges> pages = new ArrayList<>();
+        ProductChanges page;
+        do {
+            page = productService.findChangedSince(watermark, limit);
+            pages.add(page);
+            watermark = page.getWatermark();
+        } while (page.isHasMore());
+        return pages;
+    }
+
+    private static Product product(String id) {
+        return new ProductBuilder(id, "name " + id).desc("desc " + id).price("$1.00").build();
+    }
+}
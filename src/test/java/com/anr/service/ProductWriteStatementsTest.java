@@ -0,0 +1,105 @@
+package com.anr.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.anr.localmdb.model.Product;
+import com.anr.localmdb.model.Product.ProductBuilder;
+import com.anr.localmdb.repository.ProductRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the SQL statements behind each product write; runs in its own database
+ *
+ * @author amitr
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:writestatements",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class ProductWriteStatementsTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics stats;
+    private String id;
+    private long version;
+
+    @BeforeEach
+    void setup() {
+        id = "WS" + RandomStringUtils.randomNumeric(8);
+        version = productRepo.save(new ProductBuilder(id, "before").desc("before").price("$1.00").build())
+                .getVersion();
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // only the statements issued by the write under test count
+        stats.clear();
+    }
+
+    @Test
+    void test_versionedUpdate_isOneStatement() {
+        Product updated = productService.updateProduct(id, update(), version);
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(version + 1, updated.getVersion());
+        Product stored = productRepo.findById(id).get();
+        assertEquals(version + 1, stored.getVersion());
+        assertEquals("after", stored.getName());
+    }
+
+    // the UPDATE plus reading back the version it wrote
+    @Test
+    void test_unconditionalUpdate_returnsWrittenVersion() {
+        Product updated = productService.updateProduct(id, update());
+
+        assertEquals(2, stats.getPrepareStatementCount());
+        assertEquals(version + 1, updated.getVersion());
+        assertEquals(version + 1, productRepo.findById(id).get().getVersion());
+    }
+
+    @Test
+    void test_staleUpdate_checksExistenceOnlyAfterMiss() {
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productService.updateProduct(id, update(), version + 1));
+
+        assertEquals(2, stats.getPrepareStatementCount());
+        assertEquals("before", productRepo.findById(id).get().getName());
+    }
+
+    // the delete itself plus its tombstone insert
+    @Test
+    void test_delete_isOneStatementPlusTombstone() {
+        assertTrue(productService.deleteProduct(id));
+
+        assertEquals(2, stats.getPrepareStatementCount());
+        assertFalse(productRepo.existsById(id));
+    }
+
+    @Test
+    void test_versionedDelete_isOneStatementPlusTombstone() {
+        assertTrue(productService.deleteProduct(id, version));
+
+        assertEquals(2, stats.getPrepareStatementCount());
+        assertFalse(productRepo.existsById(id));
+    }
+
+    private Product update() {
+        return new ProductBuilder(id, "after").desc("after").price("$2.00").build();
+    }
+}